@@ -0,0 +1,147 @@
+package org.crygier.graphql;
+
+import graphql.language.IntValue;
+import graphql.language.StringValue;
+import graphql.schema.Coercing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serialize, parseValue and parseLiteral of every {@link JavaScalars} scalar, in each {@link
+ * JavaScalars.TemporalFormat}. Run with {@code gradle jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JavaScalarsBenchmark {
+
+    @Param({"NATIVE", "ISO", "EPOCH_MILLIS"})
+    public JavaScalars.TemporalFormat format;
+
+    private Coercing localDateTime;
+    private Coercing instant;
+    private Coercing localDate;
+    private Coercing date;
+    private Coercing uuid;
+
+    private final LocalDateTime localDateTimeValue = LocalDateTime.of(2017, 2, 2, 12, 30, 15);
+    private final Instant instantValue = Instant.ofEpochSecond(1486038615);
+    private final LocalDate localDateValue = LocalDate.of(2017, 2, 2);
+    private final Date dateValue = new Date(1486038615000L);
+    private final UUID uuidValue = UUID.fromString("123e4567-e89b-12d3-a456-426655440000");
+
+    private final Long epochValue = 1486038615L;
+    private final IntValue epochLiteral = new IntValue(BigInteger.valueOf(1486038615L));
+    private final StringValue localDateTimeLiteral = new StringValue("2017-02-02T12:30:15");
+    private final StringValue localDateLiteral = new StringValue("2017-02-02");
+    private final StringValue instantLiteral = new StringValue("2017-02-02T12:30:15Z");
+    private final String uuidString = "123e4567-e89b-12d3-a456-426655440000";
+    private final StringValue uuidLiteral = new StringValue(uuidString);
+
+    @Setup
+    public void setup() {
+        JavaScalars scalars = new JavaScalars(format, ZoneId.systemDefault());
+        localDateTime = scalars.getLocalDateTime().getCoercing();
+        instant = scalars.getInstant().getCoercing();
+        localDate = scalars.getLocalDate().getCoercing();
+        date = scalars.getDate().getCoercing();
+        uuid = scalars.getUUID().getCoercing();
+    }
+
+    @Benchmark
+    public Object localDateTimeSerialize() {
+        return localDateTime.serialize(localDateTimeValue);
+    }
+
+    @Benchmark
+    public Object localDateTimeParseValue() {
+        return localDateTime.parseValue(epochValue);
+    }
+
+    @Benchmark
+    public Object localDateTimeParseLiteral() {
+        return localDateTime.parseLiteral(localDateTimeLiteral);
+    }
+
+    @Benchmark
+    public Object instantSerialize() {
+        return instant.serialize(instantValue);
+    }
+
+    @Benchmark
+    public Object instantParseValue() {
+        return instant.parseValue(epochValue);
+    }
+
+    @Benchmark
+    public Object instantParseLiteral() {
+        return instant.parseLiteral(instantLiteral);
+    }
+
+    @Benchmark
+    public Object localDateSerialize() {
+        return localDate.serialize(localDateValue);
+    }
+
+    @Benchmark
+    public Object localDateParseValue() {
+        return localDate.parseValue(epochValue);
+    }
+
+    @Benchmark
+    public Object localDateParseLiteral() {
+        return localDate.parseLiteral(localDateLiteral);
+    }
+
+    @Benchmark
+    public Object dateSerialize() {
+        return date.serialize(dateValue);
+    }
+
+    @Benchmark
+    public Object dateParseValue() {
+        return date.parseValue(instantLiteral.getValue());
+    }
+
+    @Benchmark
+    public Object dateParseLiteral() {
+        return date.parseLiteral(epochLiteral);
+    }
+
+    @Benchmark
+    public Object uuidSerialize() {
+        return uuid.serialize(uuidValue);
+    }
+
+    @Benchmark
+    public Object uuidParseValue() {
+        return uuid.parseValue(uuidString);
+    }
+
+    @Benchmark
+    public Object uuidParseLiteral() {
+        return uuid.parseLiteral(uuidLiteral);
+    }
+
+}
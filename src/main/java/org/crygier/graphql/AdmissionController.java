@@ -0,0 +1,191 @@
+package org.crygier.graphql;
+
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.Node;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of operations a {@link GraphQLExecutor} executes concurrently. Operations are admitted through a
+ * lane, each with its own concurrency limit and bounded wait queue. Once all permits of a lane are taken, further
+ * operations wait in the queue until a permit frees up or the queue timeout elapses. When the queue is full, operations
+ * are rejected immediately.
+ * <p>
+ * By default all operations share the {@link #DEFAULT_LANE}. Add more lanes and an {@link OperationClassifier} to,
+ * for example, keep expensive operations from starving cheap ones.
+ */
+public class AdmissionController {
+
+    public static final String DEFAULT_LANE = "default";
+
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private OperationClassifier classifier = document -> DEFAULT_LANE;
+
+    /**
+     * Creates a controller with just the default lane.
+     *
+     * @param maxConcurrent The maximum number of operations executing at once.
+     * @param maxQueued The maximum number of operations waiting for a permit.
+     * @param queueTimeout How long an operation may wait for a permit.
+     */
+    public AdmissionController(int maxConcurrent, int maxQueued, Duration queueTimeout) {
+        lane(DEFAULT_LANE, maxConcurrent, maxQueued, queueTimeout);
+    }
+
+    /**
+     * Adds (or replaces) a lane.
+     *
+     * @param name The name the {@link OperationClassifier} refers to the lane with.
+     * @param maxConcurrent The maximum number of operations executing at once in this lane.
+     * @param maxQueued The maximum number of operations waiting for a permit in this lane.
+     * @param queueTimeout How long an operation may wait for a permit.
+     * @return The same controller.
+     */
+    public AdmissionController lane(String name, int maxConcurrent, int maxQueued, Duration queueTimeout) {
+        lanes.put(name, new Lane(name, maxConcurrent, maxQueued, queueTimeout));
+        return this;
+    }
+
+    /**
+     * @param classifier Chooses the lane of each operation.
+     * @return The same controller.
+     */
+    public AdmissionController classifier(OperationClassifier classifier) {
+        this.classifier = classifier;
+        return this;
+    }
+
+    /**
+     * @return The number of operations currently waiting in the given lane.
+     * @throws IllegalArgumentException If there is no lane of the given name.
+     */
+    public int getQueueDepth(String lane) {
+        return getLane(lane).queued.get();
+    }
+
+    /**
+     * @return The number of operations currently executing in the given lane.
+     * @throws IllegalArgumentException If there is no lane of the given name.
+     */
+    public int getInFlight(String lane) {
+        Lane answer = getLane(lane);
+        return answer.maxConcurrent - answer.permits.availablePermits();
+    }
+
+    private Lane getLane(String name) {
+        Lane answer = lanes.get(name);
+        if (answer == null)
+            throw new IllegalArgumentException("Unknown lane '" + name + "'");
+
+        return answer;
+    }
+
+    /**
+     * Waits for a permit to execute the given operation. The returned permit must be closed once the operation
+     * completes.
+     *
+     * @param document The parsed operation, or null if it could not be parsed.
+     * @param metrics Receives the queue depth and wait time of the operation.
+     * @return The permit to execute the operation.
+     * @throws AdmissionRejectedException If the queue of the lane is full, or no permit freed up in time.
+     */
+    public Permit admit(Document document, ExecutorMetrics metrics) {
+        Lane lane = document != null ? lanes.get(classifier.classify(document)) : null;
+        if (lane == null)
+            lane = lanes.get(DEFAULT_LANE);
+
+        long start = System.nanoTime();
+        // Only take the fast path when nobody is queued, tryAcquire() would barge ahead of the waiting operations
+        if (lane.queued.get() == 0 && lane.permits.tryAcquire()) {
+            metrics.operationAdmitted(lane.name, 0);
+            return new Permit(lane);
+        }
+
+        if (lane.queued.incrementAndGet() > lane.maxQueued) {
+            lane.queued.decrementAndGet();
+            metrics.operationRejected(lane.name, 0);
+            throw new AdmissionRejectedException(lane.name, "Operation rejected: the '" + lane.name + "' lane is at capacity and its queue of " + lane.maxQueued + " operations is full");
+        }
+
+        metrics.queueDepthChanged(lane.name, lane.queued.get());
+        boolean admitted = false;
+        try {
+            admitted = lane.permits.tryAcquire(lane.queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            metrics.queueDepthChanged(lane.name, lane.queued.decrementAndGet());
+        }
+
+        long waitNanos = System.nanoTime() - start;
+        if (!admitted) {
+            metrics.operationRejected(lane.name, waitNanos);
+            throw new AdmissionRejectedException(lane.name, "Operation rejected: no capacity freed up in the '" + lane.name + "' lane within " + lane.queueTimeout.toMillis() + " ms");
+        }
+
+        metrics.operationAdmitted(lane.name, waitNanos);
+        return new Permit(lane);
+    }
+
+    /**
+     * Estimates the cost of an operation as the number of fields it selects.
+     */
+    static int estimateCost(Node node) {
+        int cost = node instanceof Field ? 1 : 0;
+        for (Node child : node.getChildren())
+            cost += estimateCost(child);
+
+        return cost;
+    }
+
+    private static final class Lane {
+        private final String name;
+        private final int maxConcurrent;
+        private final int maxQueued;
+        private final Duration queueTimeout;
+        private final Semaphore permits;
+        private final AtomicInteger queued = new AtomicInteger();
+
+        private Lane(String name, int maxConcurrent, int maxQueued, Duration queueTimeout) {
+            this.name = name;
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueued = maxQueued;
+            this.queueTimeout = queueTimeout;
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+    }
+
+    /**
+     * The permission of a single operation to execute.
+     */
+    public static final class Permit implements AutoCloseable {
+        private final Lane lane;
+        private boolean released;
+
+        private Permit(Lane lane) {
+            this.lane = lane;
+        }
+
+        /**
+         * @return The name of the lane the operation was admitted through.
+         */
+        public String getLane() {
+            return lane.name;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                lane.permits.release();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package org.crygier.graphql;
+
+import graphql.execution.AbortExecutionException;
+
+/**
+ * Thrown by the {@link AdmissionController} when an operation cannot be admitted to execute. The exception is also a
+ * {@link graphql.GraphQLError}, and is returned as such by the {@link GraphQLExecutor}.
+ */
+public class AdmissionRejectedException extends AbortExecutionException {
+
+    private final String lane;
+
+    public AdmissionRejectedException(String lane, String message) {
+        super(message);
+        this.lane = lane;
+    }
+
+    /**
+     * @return The name of the lane that rejected the operation.
+     */
+    public String getLane() {
+        return lane;
+    }
+
+}
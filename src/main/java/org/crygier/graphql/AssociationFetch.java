@@ -0,0 +1,217 @@
+package org.crygier.graphql;
+
+import graphql.language.Field;
+import graphql.schema.DataFetchingEnvironment;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the associations selected below a root field with the strategies chosen by a {@link FetchPolicy}. The
+ * strategies of the associations of the root entities are chosen up front, so the joins can be added to the query of
+ * the root field; once it has run, {@link #load} loads the remaining associations into the persistence context, level
+ * by level, and records their cardinalities.
+ */
+class AssociationFetch {
+
+    private final JpaDataFetcher fetcher;
+    private final DataFetchingEnvironment environment;
+    private final FetchPolicy policy;
+    private final Field field;
+    private final boolean paginated;
+    private final Map<String, FetchStrategy> strategies = new LinkedHashMap<>();
+
+    /**
+     * @param field The field selecting the root entities, its arguments restrict them.
+     * @param paginated Whether the query of the root entities is paginated, in which case no collection is joined nor
+     *                  subselected.
+     */
+    AssociationFetch(JpaDataFetcher fetcher, DataFetchingEnvironment environment, FetchPolicy policy, Field field, boolean paginated) {
+        this.fetcher = fetcher;
+        this.environment = environment;
+        this.policy = policy;
+        this.field = field;
+        this.paginated = paginated;
+
+        boolean collectionJoined = false;
+        for (Field selectedField : fetcher.getSelectedFields(field)) {
+            Attribute<?, ?> attribute = getAssociation(fetcher.entityType, selectedField.getName());
+            if (attribute == null)
+                continue;
+
+            // Joining several collections multiplies their sizes, and providers may refuse to join more than one bag
+            boolean collection = attribute.isCollection();
+            FetchStrategy strategy = policy.choose(getPath(fetcher.entityType.getName(), selectedField), collection, !collection || !paginated && !collectionJoined, !paginated);
+            collectionJoined |= collection && strategy == FetchStrategy.JOIN;
+            strategies.put(selectedField.getName(), strategy);
+        }
+    }
+
+    /**
+     * Adds the joins of the associations to be joined to the given query of the root entities.
+     */
+    void join(CriteriaQuery<?> query) {
+        Root<?> root = query.getRoots().iterator().next();
+        strategies.forEach((name, strategy) -> {
+            if (strategy == FetchStrategy.JOIN)
+                root.fetch(name, JoinType.LEFT);
+        });
+    }
+
+    /**
+     * Loads the associations not joined into the query of the given root entities.
+     */
+    void load(EntityManager entityManager, List<?> entities) {
+        // Detached entities are not initialized by loading their associations again
+        if (entities.isEmpty() || !entityManager.contains(entities.get(0)))
+            return;
+
+        load(entityManager, fetcher.entityType, fetcher.entityType.getName(), field, entities, strategies);
+    }
+
+    private void load(EntityManager entityManager, EntityType<?> entityType, String path, Field field, List<?> owners, Map<String, FetchStrategy> strategies) {
+        for (Field selectedField : fetcher.getSelectedFields(field)) {
+            Attribute<?, ?> attribute = getAssociation(entityType, selectedField.getName());
+            if (attribute == null)
+                continue;
+
+            String associationPath = getPath(path, selectedField);
+            FetchStrategy strategy = strategies != null ? strategies.get(selectedField.getName()) : policy.choose(associationPath, attribute.isCollection(), false, false);
+            if (entityType.hasSingleIdAttribute()) {
+                if (strategy == FetchStrategy.BATCH)
+                    loadBatches(entityManager, entityType, attribute.getName(), owners);
+                else if (strategy == FetchStrategy.SUBSELECT)
+                    loadSubselect(entityManager, entityType, attribute.getName());
+            }
+
+            List<Object> targets = new ArrayList<>();
+            for (Object owner : owners) {
+                Object value = getValue(owner, attribute);
+                if (value instanceof Collection)
+                    targets.addAll((Collection<?>) value);
+                else if (value != null)
+                    targets.add(value);
+            }
+
+            policy.record(associationPath, owners.size(), targets.size());
+
+            EntityType<?> targetType = getTargetEntityType(attribute);
+            if (targetType != null && !targets.isEmpty() && selectedField.getSelectionSet() != null) {
+                Set<Object> distinctTargets = Collections.newSetFromMap(new IdentityHashMap<>());
+                distinctTargets.addAll(targets);
+                load(entityManager, targetType, associationPath, selectedField, new ArrayList<>(distinctTargets), null);
+            }
+        }
+    }
+
+    private void loadBatches(EntityManager entityManager, EntityType<?> entityType, String association, List<?> owners) {
+        PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<Object> ids = new ArrayList<>(owners.size());
+        owners.forEach(it -> ids.add(util.getIdentifier(it)));
+
+        int batchSize = policy.getMaxBatchSize();
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            List<Object> batch = ids.subList(i, Math.min(i + batchSize, ids.size()));
+            CriteriaQuery<Object> query = createFetchQuery(entityManager, entityType, association);
+            Root root = query.getRoots().iterator().next();
+            query.where(root.get(getIdName(entityType)).in(batch));
+
+            fetcher.trace(environment, entityManager, fetcher.applyTimeout(environment, entityManager.createQuery(query))).getResultList();
+        }
+    }
+
+    private void loadSubselect(EntityManager entityManager, EntityType<?> entityType, String association) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object> query = createFetchQuery(entityManager, entityType, association);
+        Root root = query.getRoots().iterator().next();
+
+        String idName = getIdName(entityType);
+        Subquery<Object> ids = query.subquery((Class) entityType.getIdType().getJavaType());
+        Root restricted = ids.from(entityType);
+        ids.select(restricted.get(idName)).where(fetcher.getPredicates(cb, restricted, environment, field));
+        query.where(root.get(idName).in(ids));
+
+        fetcher.trace(environment, entityManager, fetcher.applyTimeout(environment, entityManager.createQuery(query))).getResultList();
+    }
+
+    private static CriteriaQuery<Object> createFetchQuery(EntityManager entityManager, EntityType<?> entityType, String association) {
+        CriteriaQuery<Object> query = entityManager.getCriteriaBuilder().createQuery((Class) entityType.getJavaType());
+        Root root = query.from(entityType);
+        root.fetch(association, JoinType.LEFT);
+
+        return query.select(root).distinct(true);
+    }
+
+    private static String getIdName(EntityType<?> entityType) {
+        return entityType.getId(entityType.getIdType().getJavaType()).getName();
+    }
+
+    private static String getPath(String path, Field field) {
+        return path + "." + field.getName();
+    }
+
+    /**
+     * @return The association or element collection of the given name, or null if the name denotes anything else.
+     */
+    private static Attribute<?, ?> getAssociation(ManagedType<?> type, String name) {
+        for (Attribute<?, ?> attribute : type.getAttributes()) {
+            if (attribute.getName().equals(name))
+                return attribute.isAssociation() || attribute.isCollection() ? attribute : null;
+        }
+
+        return null;
+    }
+
+    private static EntityType<?> getTargetEntityType(Attribute<?, ?> attribute) {
+        Type<?> type = attribute instanceof PluralAttribute ? ((PluralAttribute<?, ?, ?>) attribute).getElementType() : ((SingularAttribute<?, ?>) attribute).getType();
+        return type instanceof EntityType ? (EntityType<?>) type : null;
+    }
+
+    /**
+     * Reads the given attribute through its getter if there is one, as reading the field of a proxy doesn't initialize
+     * it.
+     */
+    private static Object getValue(Object entity, Attribute<?, ?> attribute) {
+        Member member = attribute.getJavaMember();
+        try {
+            for (PropertyDescriptor property : Introspector.getBeanInfo(attribute.getDeclaringType().getJavaType()).getPropertyDescriptors()) {
+                if (property.getName().equals(attribute.getName()) && property.getReadMethod() != null)
+                    return property.getReadMethod().invoke(entity);
+            }
+
+            if (member instanceof Method)
+                return ((Method) member).invoke(entity);
+
+            java.lang.reflect.Field field = (java.lang.reflect.Field) member;
+            field.setAccessible(true);
+            return field.get(entity);
+        } catch (IntrospectionException | ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to read '" + attribute.getName() + "' to fetch its associations", e);
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.crygier.graphql;
+
+import graphql.ExecutionResult;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes results in a binary format made up of maps, arrays and scalars, such as CBOR or MessagePack. Values of the
+ * {@link JavaScalars} are written in their native encoding rather than as strings: a {@link UUID} as its 16 bytes, a
+ * {@link LocalDateTime} or {@link LocalDate} as the seconds since the epoch in the time zone of the scalars, and a
+ * {@link Date} as the milliseconds since the epoch; instants are seconds since the epoch already. These are the
+ * integers the scalars accept as input too.
+ */
+abstract class BinaryResponseEncoder implements ResponseEncoder {
+
+    private final ZoneId zone;
+
+    /**
+     * @param zone The time zone local values are converted in, i.e. the {@link JavaScalars#getZone() zone} of the
+     *             scalars of the executor.
+     */
+    protected BinaryResponseEncoder(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    @Override
+    public void encode(ExecutionResult result, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        writeValue(result.toSpecification(), data);
+        data.flush();
+    }
+
+    private void writeValue(Object value, DataOutputStream out) throws IOException {
+        if (value == null) {
+            writeNull(out);
+        } else if (value instanceof String) {
+            writeString((String) value, out);
+        } else if (value instanceof Boolean) {
+            writeBoolean((Boolean) value, out);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeInteger(((Number) value).longValue(), out);
+        } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+            writeInteger(((BigInteger) value).longValue(), out);
+        } else if (value instanceof Number) {
+            writeDouble(((Number) value).doubleValue(), out);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeMapHeader(map.size(), out);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(String.valueOf(entry.getKey()), out);
+                writeValue(entry.getValue(), out);
+            }
+        } else if (value instanceof Iterable) {
+            Collection<?> elements = value instanceof Collection ? (Collection<?>) value : toList((Iterable<?>) value);
+            writeArrayHeader(elements.size(), out);
+            for (Object element : elements)
+                writeValue(element, out);
+        } else if (value instanceof UUID) {
+            UUID uuid = (UUID) value;
+            byte[] bytes = new byte[16];
+            for (int i = 0; i < 8; i++) {
+                bytes[i] = (byte) (uuid.getMostSignificantBits() >>> (56 - 8 * i));
+                bytes[8 + i] = (byte) (uuid.getLeastSignificantBits() >>> (56 - 8 * i));
+            }
+            writeUuid(bytes, out);
+        } else if (value instanceof LocalDateTime) {
+            writeInteger(((LocalDateTime) value).atZone(zone).toEpochSecond(), out);
+        } else if (value instanceof LocalDate) {
+            writeInteger(((LocalDate) value).atStartOfDay(zone).toEpochSecond(), out);
+        } else if (value instanceof Date) {
+            writeInteger(((Date) value).getTime(), out);
+        } else if (value instanceof Enum) {
+            writeString(((Enum) value).name(), out);
+        } else {
+            writeString(value.toString(), out);
+        }
+    }
+
+    private static List<?> toList(Iterable<?> iterable) {
+        List<Object> answer = new ArrayList<>();
+        iterable.forEach(answer::add);
+        return answer;
+    }
+
+    protected void writeString(String value, DataOutputStream out) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeStringHeader(bytes.length, out);
+        out.write(bytes);
+    }
+
+    protected abstract void writeNull(DataOutputStream out) throws IOException;
+
+    protected abstract void writeBoolean(boolean value, DataOutputStream out) throws IOException;
+
+    protected abstract void writeInteger(long value, DataOutputStream out) throws IOException;
+
+    protected abstract void writeDouble(double value, DataOutputStream out) throws IOException;
+
+    /**
+     * Writes the header of a UTF-8 encoded string of the given number of bytes.
+     */
+    protected abstract void writeStringHeader(int length, DataOutputStream out) throws IOException;
+
+    /**
+     * Writes the given 16 bytes of a {@link UUID}, most significant first.
+     */
+    protected abstract void writeUuid(byte[] bytes, DataOutputStream out) throws IOException;
+
+    protected abstract void writeArrayHeader(int size, DataOutputStream out) throws IOException;
+
+    protected abstract void writeMapHeader(int size, DataOutputStream out) throws IOException;
+
+}
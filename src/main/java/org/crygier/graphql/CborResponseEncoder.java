@@ -0,0 +1,111 @@
+package org.crygier.graphql;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.ZoneId;
+
+/**
+ * Writes results as CBOR (RFC 7049). Maps and arrays are written with their length up front, and a {@link java.util.UUID}
+ * as a byte string tagged as a UUID (tag 37).
+ */
+public class CborResponseEncoder extends BinaryResponseEncoder {
+
+    private static final int UNSIGNED_INTEGER = 0;
+    private static final int NEGATIVE_INTEGER = 1;
+    private static final int BYTE_STRING = 2;
+    private static final int TEXT_STRING = 3;
+    private static final int ARRAY = 4;
+    private static final int MAP = 5;
+    private static final int TAG = 6;
+    private static final int UUID_TAG = 37;
+
+    /**
+     * Creates an encoder converting local values in the default time zone, as the default {@link JavaScalars} do.
+     */
+    public CborResponseEncoder() {
+        this(ZoneId.systemDefault());
+    }
+
+    /**
+     * @param zone The time zone local values are converted in, i.e. the {@link JavaScalars#getZone() zone} of the
+     *             scalars of the executor.
+     */
+    public CborResponseEncoder(ZoneId zone) {
+        super(zone);
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/cbor";
+    }
+
+    @Override
+    protected void writeNull(DataOutputStream out) throws IOException {
+        out.write(0xf6);
+    }
+
+    @Override
+    protected void writeBoolean(boolean value, DataOutputStream out) throws IOException {
+        out.write(value ? 0xf5 : 0xf4);
+    }
+
+    @Override
+    protected void writeInteger(long value, DataOutputStream out) throws IOException {
+        if (value >= 0)
+            writeHeader(UNSIGNED_INTEGER, value, out);
+        else
+            writeHeader(NEGATIVE_INTEGER, -1 - value, out);
+    }
+
+    @Override
+    protected void writeDouble(double value, DataOutputStream out) throws IOException {
+        out.write(0xfb);
+        out.writeDouble(value);
+    }
+
+    @Override
+    protected void writeStringHeader(int length, DataOutputStream out) throws IOException {
+        writeHeader(TEXT_STRING, length, out);
+    }
+
+    @Override
+    protected void writeUuid(byte[] bytes, DataOutputStream out) throws IOException {
+        writeHeader(TAG, UUID_TAG, out);
+        writeHeader(BYTE_STRING, bytes.length, out);
+        out.write(bytes);
+    }
+
+    @Override
+    protected void writeArrayHeader(int size, DataOutputStream out) throws IOException {
+        writeHeader(ARRAY, size, out);
+    }
+
+    @Override
+    protected void writeMapHeader(int size, DataOutputStream out) throws IOException {
+        writeHeader(MAP, size, out);
+    }
+
+    /**
+     * Writes the initial byte of a data item of the given major type, followed by the given argument in as few bytes
+     * as possible. The argument is unsigned.
+     */
+    private static void writeHeader(int majorType, long argument, DataOutputStream out) throws IOException {
+        int type = majorType << 5;
+        if (argument < 24) {
+            out.write(type | (int) argument);
+        } else if (argument < 0x100) {
+            out.write(type | 24);
+            out.write((int) argument);
+        } else if (argument < 0x10000) {
+            out.write(type | 25);
+            out.writeShort((int) argument);
+        } else if (argument < 0x100000000L) {
+            out.write(type | 26);
+            out.writeInt((int) argument);
+        } else {
+            out.write(type | 27);
+            out.writeLong(argument);
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.crygier.graphql;
+
+import graphql.ExecutionResult;
+
+/**
+ * The outcome of an operation executed on the condition that the client doesn't hold its result already. Either the
+ * operation was executed, or the client's copy is still current and nothing but the ETag was computed.
+ */
+public class ConditionalResult {
+
+    private final ExecutionResult executionResult;
+    private final String etag;
+
+    ConditionalResult(ExecutionResult executionResult, String etag) {
+        this.executionResult = executionResult;
+        this.etag = etag;
+    }
+
+    /**
+     * @return The result of the operation, or null if it is not modified.
+     */
+    public ExecutionResult getExecutionResult() {
+        return executionResult;
+    }
+
+    /**
+     * @return The (quoted) entity tag of the result, or null if the result can't be fingerprinted.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * @return True if the client already holds this result, and may be answered with 'not modified'.
+     */
+    public boolean isNotModified() {
+        return executionResult == null;
+    }
+
+    /**
+     * @param etag The (quoted) entity tag of a result.
+     * @param ifNoneMatch The value of the If-None-Match header sent by the client, may be null.
+     * @return True if the header matches the given entity tag.
+     */
+    static boolean matches(String etag, String ifNoneMatch) {
+        if (etag == null || ifNoneMatch == null)
+            return false;
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag))
+                return true;
+        }
+
+        return false;
+    }
+
+}
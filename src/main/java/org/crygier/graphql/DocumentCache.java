@@ -0,0 +1,96 @@
+package org.crygier.graphql;
+
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.language.Document;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.validation.ValidationError;
+import graphql.validation.Validator;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Caches the parsed and validated documents of the most recent operations against a single schema, so every operation
+ * is parsed once, by the {@link GraphQLExecutor} and by graphql-java alike, and validated once. Validation depends on
+ * the schema, so a new cache is created whenever the schema of the executor changes. The cached documents are shared
+ * between operations, and must not be modified.
+ */
+class DocumentCache implements PreparsedDocumentProvider {
+
+    private static final int MAX_ENTRIES = 512;
+
+    private final GraphQLSchema schema;
+    private final Map<String, Entry> entries = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    });
+
+    DocumentCache(GraphQLSchema schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * @return The parsed document of the given operation, or null if it is no valid GraphQL.
+     */
+    Document parse(String query) {
+        Entry entry = entries.get(query);
+        if (entry != null)
+            return entry.document;
+
+        Document document;
+        try {
+            document = new Parser().parseDocument(query);
+        } catch (RuntimeException e) {
+            // Invalid documents are reported by graphql-java itself
+            return null;
+        }
+
+        entries.put(query, new Entry(document));
+        return document;
+    }
+
+    @Override
+    public PreparsedDocumentEntry get(String query, Function<String, PreparsedDocumentEntry> parseAndValidate) {
+        Entry entry = entries.get(query);
+        if (entry == null) {
+            PreparsedDocumentEntry answer = parseAndValidate.apply(query);
+            if (!answer.hasErrors())
+                entries.put(query, new Entry(answer.getDocument(), answer));
+
+            return answer;
+        }
+
+        PreparsedDocumentEntry answer = entry.validated;
+        if (answer == null) {
+            List<ValidationError> errors = new Validator().validateDocument(schema, entry.document);
+            answer = errors.isEmpty() ? new PreparsedDocumentEntry(entry.document) : new PreparsedDocumentEntry(errors);
+            entry.validated = answer;
+        }
+
+        return answer;
+    }
+
+    private static class Entry {
+
+        private final Document document;
+        private volatile PreparsedDocumentEntry validated;
+
+        private Entry(Document document) {
+            this.document = document;
+        }
+
+        private Entry(Document document, PreparsedDocumentEntry validated) {
+            this.document = document;
+            this.validated = validated;
+        }
+
+    }
+
+}
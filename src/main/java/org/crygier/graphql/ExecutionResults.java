@@ -0,0 +1,44 @@
+package org.crygier.graphql;
+
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helpers for the {@link ExecutionResult}s handed to more than one caller.
+ */
+final class ExecutionResults {
+
+    private ExecutionResults() {
+    }
+
+    /**
+     * @return A deep copy of the given result that can't be modified, so callers sharing it don't affect each other.
+     */
+    @SuppressWarnings("unchecked")
+    static ExecutionResult unmodifiableCopy(ExecutionResult result) {
+        Object data = result.getData();
+        Map<Object, Object> extensions = result.getExtensions() != null ? (Map<Object, Object>) copy(result.getExtensions()) : null;
+        return new ExecutionResultImpl(copy(data), Collections.unmodifiableList(result.getErrors()), extensions);
+    }
+
+    private static Object copy(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> answer = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((key, it) -> answer.put(key, copy(it)));
+            return Collections.unmodifiableMap(answer);
+        } else if (value instanceof List) {
+            List<Object> answer = new ArrayList<>(((List<?>) value).size());
+            ((List<?>) value).forEach(it -> answer.add(copy(it)));
+            return Collections.unmodifiableList(answer);
+        }
+
+        return value;
+    }
+
+}
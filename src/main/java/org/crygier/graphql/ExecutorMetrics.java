@@ -0,0 +1,59 @@
+package org.crygier.graphql;
+
+/**
+ * Receives the metrics recorded by a {@link GraphQLExecutor}. Implement this interface to publish them to the
+ * metrics library of your choice; every method does nothing by default.
+ */
+public interface ExecutorMetrics {
+
+    /**
+     * A metrics implementation discarding everything.
+     */
+    ExecutorMetrics NONE = new ExecutorMetrics() {
+    };
+
+    /**
+     * Called whenever an operation enters or leaves the wait queue of an admission lane.
+     *
+     * @param lane The name of the lane.
+     * @param queueDepth The number of operations now waiting in the lane.
+     */
+    default void queueDepthChanged(String lane, int queueDepth) {
+    }
+
+    /**
+     * Called once an operation was admitted to execute.
+     *
+     * @param lane The name of the lane.
+     * @param waitNanos How long the operation waited in the queue, in nanoseconds.
+     */
+    default void operationAdmitted(String lane, long waitNanos) {
+    }
+
+    /**
+     * Called when an operation was rejected because its lane was saturated.
+     *
+     * @param lane The name of the lane.
+     * @param waitNanos How long the operation waited in the queue before being rejected, in nanoseconds.
+     */
+    default void operationRejected(String lane, long waitNanos) {
+    }
+
+    /**
+     * Called when an operation was not executed, but shared the result of an identical operation in flight, if the
+     * executor coalesces operations.
+     *
+     * @param waitNanos How long the operation waited for the result, in nanoseconds.
+     */
+    default void operationCoalesced(long waitNanos) {
+    }
+
+    /**
+     * Called once an operation completed, if the executor has a {@link StatisticsProvider}.
+     *
+     * @param statistics The persistence statistics of the operation.
+     */
+    default void operationCompleted(OperationStatistics statistics) {
+    }
+
+}
@@ -4,16 +4,20 @@ import graphql.language.Argument;
 import graphql.language.Field;
 import graphql.language.IntValue;
 import graphql.language.ObjectValue;
+import graphql.language.SelectionSet;
 import graphql.schema.DataFetchingEnvironment;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.EmbeddableType;
 import javax.persistence.metamodel.EntityType;
 import javax.persistence.metamodel.SingularAttribute;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,14 +42,27 @@ public class ExtendedJpaDataFetcher extends JpaDataFetcher {
         Optional<Field> totalElementsSelection = getSelectionField(field, "totalElements");
         Optional<Field> contentSelection = getSelectionField(field, "content");
 
-        if (contentSelection.isPresent())
-            result.put("content", getQuery(environment, contentSelection.get()).setMaxResults(pageInformation.size).setFirstResult((pageInformation.page - 1) * pageInformation.size).getResultList());
+        if (isExplaining(environment))
+            return explain(environment, pageInformation, contentSelection, totalElementsSelection.isPresent() || totalPagesSelection.isPresent());
+
+        if (isFingerprinting(environment)) {
+            // The probe covers all pages, as entities may move between them
+            probe(environment, contentSelection.orElseGet(() -> new Field("content", new SelectionSet())));
+            result.put("content", Collections.emptyList());
+            result.put("totalElements", 0L);
+            result.put("totalPages", 0L);
+            return result;
+        }
+
+        if (contentSelection.isPresent()) {
+            String kind = "content:" + pageInformation.page + ":" + pageInformation.size;
+            result.put("content", remember(environment, kind, contentSelection.get(), () -> getContent(environment, contentSelection.get(), pageInformation)));
+        }
 
         if (totalElementsSelection.isPresent() || totalPagesSelection.isPresent()) {
-            final Long totalElements = contentSelection
-                    .map(contentField -> getCountQuery(environment, contentField).getSingleResult())
-                    // if no "content" was selected an empty Field can be used
-                    .orElseGet(() -> getCountQuery(environment, new Field()).getSingleResult());
+            // if no "content" was selected an empty Field can be used
+            Field countField = contentSelection.orElseGet(Field::new);
+            final Long totalElements = remember(environment, "count", countField, () -> getTotalElements(environment, countField));
 
             result.put("totalElements", totalElements);
             result.put("totalPages", ((Double) Math.ceil(totalElements / (double) pageInformation.size)).longValue());
@@ -54,17 +71,87 @@ public class ExtendedJpaDataFetcher extends JpaDataFetcher {
         return result;
     }
 
-    private TypedQuery<Long> getCountQuery(DataFetchingEnvironment environment, Field field) {
+    private List<Object> getContent(DataFetchingEnvironment environment, Field field, PageInformation pageInformation) {
+        int firstResult = (pageInformation.page - 1) * pageInformation.size;
+        List<EntityManager> shards = getShardEntityManagers(environment);
+        int size = getRowLimit(environment, pageInformation.size);
+        if (shards.size() == 1)
+            return getResultList(environment, field, shards.get(0), firstResult, size);
+
+        // Every shard may contribute the complete page, so paginate only after merging
+        int maxResults = (int) Math.min((long) firstResult + size, Integer.MAX_VALUE);
+        List<List<Object>> results = queryShards(environment, shards, it -> getResultList(environment, field, it, 0, maxResults));
+
+        return ShardedResults.merge(results, getOrderComparator(environment, field), firstResult, size);
+    }
+
+    private Long getTotalElements(DataFetchingEnvironment environment, Field field) {
+        List<EntityManager> shards = getShardEntityManagers(environment);
+        if (shards.size() == 1)
+            return getCountQuery(environment, field, shards.get(0)).getSingleResult();
+
+        return queryShards(environment, shards, it -> getCountQuery(environment, field, it).getSingleResult()).stream().mapToLong(Long::longValue).sum();
+    }
+
+    private TypedQuery<Long> getCountQuery(DataFetchingEnvironment environment, Field field, EntityManager entityManager) {
+        return trace(environment, entityManager, applyTimeout(environment, entityManager.createQuery(getTotalElementsCriteriaQuery(environment, field, entityManager))));
+    }
+
+    private CriteriaQuery<Long> getTotalElementsCriteriaQuery(DataFetchingEnvironment environment, Field field, EntityManager entityManager) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Long> query = cb.createQuery(Long.class);
         Root root = query.from(entityType);
 
-        SingularAttribute idAttribute = entityType.getId(Object.class);
-        query.select(cb.count(root.get(idAttribute.getName())));
+        query.select(cb.count(getCountedPath(root)));
         List<Predicate> predicates = field.getArguments().stream().map(it -> cb.equal(root.get(it.getName()), convertValue(environment, it, it.getValue()))).collect(Collectors.toList());
         query.where(predicates.toArray(new Predicate[predicates.size()]));
 
-        return entityManager.createQuery(query);
+        return query;
+    }
+
+    /**
+     * @return The identifier of the given root, or one of its attributes if it is composite: not every database counts
+     *         tuples, and none of the attributes of an identifier is null.
+     */
+    private Path<?> getCountedPath(Root<?> root) {
+        if (!entityType.hasSingleIdAttribute())
+            return root.get(entityType.getIdClassAttributes().iterator().next().getName());
+
+        SingularAttribute<?, ?> idAttribute = entityType.getId(entityType.getIdType().getJavaType());
+        if (idAttribute.getType() instanceof EmbeddableType)
+            return root.get(idAttribute.getName()).get(((EmbeddableType<?>) idAttribute.getType()).getAttributes().iterator().next().getName());
+
+        return root.get(idAttribute.getName());
+    }
+
+    private Map<String, Object> explain(DataFetchingEnvironment environment, PageInformation pageInformation, Optional<Field> contentSelection, boolean totalsSelected) {
+        List<EntityManager> shards = getShardEntityManagers(environment);
+        EntityManager entityManager = shards.get(0);
+        Field field = contentSelection.orElseGet(Field::new);
+        Map<String, Object> result = new LinkedHashMap<>();
+
+        if (contentSelection.isPresent()) {
+            CriteriaQuery<Object> criteria = getCriteriaQuery(environment, field, entityManager);
+            AssociationFetch fetch = getAssociationFetch(environment, field, true);
+            if (fetch != null)
+                fetch.join(criteria);
+
+            TypedQuery<Object> query = entityManager.createQuery(criteria)
+                    .setMaxResults(pageInformation.size)
+                    .setFirstResult((pageInformation.page - 1) * pageInformation.size);
+
+            explain(environment, "query", entityManager, criteria, applyTimeout(environment, query), countRows(environment, shards, it -> getCountCriteriaQuery(environment, field, it)));
+            result.put("content", Collections.emptyList());
+        }
+
+        if (totalsSelected) {
+            CriteriaQuery<Long> criteria = getTotalElementsCriteriaQuery(environment, field, entityManager);
+            explain(environment, "count", entityManager, criteria, applyTimeout(environment, entityManager.createQuery(criteria)), 1);
+            result.put("totalElements", 0L);
+            result.put("totalPages", 0L);
+        }
+
+        return result;
     }
 
     private Optional<Field> getSelectionField(Field field, String fieldName) {
@@ -74,8 +161,7 @@ public class ExtendedJpaDataFetcher extends JpaDataFetcher {
     private PageInformation extractPageInformation(DataFetchingEnvironment environment, Field field) {
         Optional<Argument> paginationRequest = field.getArguments().stream().filter(it -> GraphQLSchemaBuilder.PAGINATION_REQUEST_PARAM_NAME.equals(it.getName())).findFirst();
         if (paginationRequest.isPresent()) {
-            field.getArguments().remove(paginationRequest.get());
-
+            // The document is cached and shared between operations, so it is read but never modified
             ObjectValue paginationValues = (ObjectValue) paginationRequest.get().getValue();
             IntValue page = (IntValue) paginationValues.getObjectFields().stream().filter(it -> "page".equals(it.getName())).findFirst().get().getValue();
             IntValue size = (IntValue) paginationValues.getObjectFields().stream().filter(it -> "size".equals(it.getName())).findFirst().get().getValue();
@@ -0,0 +1,254 @@
+package org.crygier.graphql;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the {@link FetchStrategy} of the associations selected by the operations of a {@link GraphQLExecutor}, based
+ * on the cardinalities observed while executing them. Associations are identified by their path from the entity of
+ * the root field, e.g. 'Human.friends' or 'Human.friends.appearsIn'.
+ * <p>
+ * To-one associations are joined, as that never multiplies the rows of a query. Collections are batch loaded until
+ * enough observations are made; then they are joined if they are small enough, batch loaded if their owners fit a
+ * single batch, and loaded with a subselect otherwise. The choice can be pinned per association, and is always
+ * overruled where it is unsafe: collections are never joined into paginated queries, nor is more than one collection
+ * joined into a query. Only the associations of the root entities can be joined or subselected, deeper associations are
+ * always batch loaded.
+ * <p>
+ * Without a policy, the data fetchers keep loading associations lazily, joining just the required to-one associations.
+ */
+public class FetchPolicy {
+
+    /**
+     * The weight of a new observation in the moving averages, so the choice follows changing data.
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private final Map<String, FetchStrategy> pinned = new ConcurrentHashMap<>();
+    private final Map<String, AssociationStatistics> statistics = new ConcurrentHashMap<>();
+    private double maxJoinFanOut = 4;
+    private long maxJoinRows = 1000;
+    private int maxBatchSize = 100;
+    private int minObservations = 10;
+
+    /**
+     * @param maxJoinFanOut The largest average collection size that is still joined. Defaults to 4.
+     * @return The same policy.
+     */
+    public FetchPolicy maxJoinFanOut(double maxJoinFanOut) {
+        this.maxJoinFanOut = maxJoinFanOut;
+        return this;
+    }
+
+    /**
+     * @param maxJoinRows The largest number of rows a query may be expected to return once a collection is joined.
+     *                    Defaults to 1000.
+     * @return The same policy.
+     */
+    public FetchPolicy maxJoinRows(long maxJoinRows) {
+        this.maxJoinRows = maxJoinRows;
+        return this;
+    }
+
+    /**
+     * @param maxBatchSize The largest number of identifiers in the 'in' clause of a batch. Defaults to 100.
+     * @return The same policy.
+     */
+    public FetchPolicy maxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("The batch size must be positive");
+
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * @param minObservations The number of times a collection has to be loaded before its strategy is chosen from its
+     *                        statistics. Defaults to 10.
+     * @return The same policy.
+     */
+    public FetchPolicy minObservations(int minObservations) {
+        this.minObservations = minObservations;
+        return this;
+    }
+
+    /**
+     * Always uses the given strategy for the given association, unless it is unsafe.
+     *
+     * @param path The path of the association, e.g. 'Human.friends'.
+     * @param strategy The strategy to use, or null to let the policy choose again.
+     * @return The same policy.
+     */
+    public FetchPolicy pin(String path, FetchStrategy strategy) {
+        if (strategy == null)
+            pinned.remove(path);
+        else
+            pinned.put(path, strategy);
+
+        return this;
+    }
+
+    /**
+     * Pins the strategies of the given configuration, mapping association paths to strategy names, e.g.
+     * 'Human.friends=SUBSELECT'.
+     *
+     * @return The same policy.
+     * @throws IllegalArgumentException If a strategy is unknown.
+     */
+    public FetchPolicy pin(Properties configuration) {
+        for (String path : configuration.stringPropertyNames())
+            pin(path, FetchStrategy.valueOf(configuration.getProperty(path).trim().toUpperCase(Locale.ROOT)));
+
+        return this;
+    }
+
+    /**
+     * @return The pinned strategies by association path.
+     */
+    public Map<String, FetchStrategy> getPinned() {
+        return Collections.unmodifiableMap(pinned);
+    }
+
+    /**
+     * @return The strategy the policy prefers for the given association, before considering whether it's safe.
+     */
+    public FetchStrategy getStrategy(String path, boolean collection) {
+        FetchStrategy strategy = pinned.get(path);
+        if (strategy != null)
+            return strategy;
+
+        if (!collection)
+            return FetchStrategy.JOIN;
+
+        AssociationStatistics observed = statistics.get(path);
+        if (observed == null || observed.getObservations() < minObservations)
+            return FetchStrategy.BATCH;
+
+        double fanOut = observed.getAverageFanOut();
+        double owners = observed.getAverageOwners();
+        if (fanOut <= maxJoinFanOut && owners * Math.max(fanOut, 1) <= maxJoinRows)
+            return FetchStrategy.JOIN;
+
+        return owners <= maxBatchSize ? FetchStrategy.BATCH : FetchStrategy.SUBSELECT;
+    }
+
+    /**
+     * @return The statistics of every association observed so far, by path.
+     */
+    public Map<String, AssociationStatistics> getStatistics() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(statistics));
+    }
+
+    /**
+     * @return The statistics of the given association, or null if it hasn't been observed.
+     */
+    public AssociationStatistics getStatistics(String path) {
+        return statistics.get(path);
+    }
+
+    /**
+     * Forgets all observations, the pinned strategies are kept.
+     */
+    public void reset() {
+        statistics.clear();
+    }
+
+    int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Chooses the strategy of the given association, falling back to a safe strategy if the preferred one is not
+     * allowed.
+     */
+    FetchStrategy choose(String path, boolean collection, boolean joinAllowed, boolean subselectAllowed) {
+        FetchStrategy strategy = getStrategy(path, collection);
+        if (strategy == FetchStrategy.JOIN && !joinAllowed) {
+            AssociationStatistics observed = statistics.get(path);
+            strategy = subselectAllowed && observed != null && observed.getAverageOwners() > maxBatchSize ? FetchStrategy.SUBSELECT : FetchStrategy.BATCH;
+        }
+
+        if (strategy == FetchStrategy.SUBSELECT && !subselectAllowed)
+            strategy = FetchStrategy.BATCH;
+
+        return strategy;
+    }
+
+    /**
+     * Records that the given association was loaded for the given number of owners.
+     *
+     * @param owners The number of entities owning the association.
+     * @param targets The total number of values of the association, the sum of the sizes of collections.
+     */
+    void record(String path, long owners, long targets) {
+        statistics.computeIfAbsent(path, it -> new AssociationStatistics()).record(owners, targets);
+    }
+
+    /**
+     * The cardinalities observed for an association.
+     */
+    public static class AssociationStatistics {
+
+        private long observations;
+        private long owners;
+        private long targets;
+        private double averageOwners;
+        private double averageFanOut;
+
+        private synchronized void record(long owners, long targets) {
+            double fanOut = owners > 0 ? targets / (double) owners : 0;
+            if (observations == 0) {
+                averageOwners = owners;
+                averageFanOut = fanOut;
+            } else {
+                averageOwners += SMOOTHING * (owners - averageOwners);
+                averageFanOut += SMOOTHING * (fanOut - averageFanOut);
+            }
+
+            this.observations++;
+            this.owners += owners;
+            this.targets += targets;
+        }
+
+        /**
+         * @return How often the association was loaded.
+         */
+        public synchronized long getObservations() {
+            return observations;
+        }
+
+        /**
+         * @return The total number of entities the association was loaded for.
+         */
+        public synchronized long getOwners() {
+            return owners;
+        }
+
+        /**
+         * @return The total number of values loaded for the association.
+         */
+        public synchronized long getTargets() {
+            return targets;
+        }
+
+        /**
+         * @return The moving average of the number of entities the association is loaded for at once.
+         */
+        public synchronized double getAverageOwners() {
+            return averageOwners;
+        }
+
+        /**
+         * @return The moving average of the number of values per owning entity.
+         */
+        public synchronized double getAverageFanOut() {
+            return averageFanOut;
+        }
+
+    }
+
+}
@@ -0,0 +1,26 @@
+package org.crygier.graphql;
+
+/**
+ * How the entities of an association selected by an operation are loaded, see {@link FetchPolicy}.
+ */
+public enum FetchStrategy {
+
+    /**
+     * Fetches the association with a left join in the query of its owners. Cheapest for to-one associations and small
+     * collections, but multiplies the rows returned by the query with the size of collections.
+     */
+    JOIN,
+
+    /**
+     * Fetches the association for the owners loaded by the query with a second query, restricting the owners to their
+     * identifiers with an 'in' clause. Large numbers of owners are split into several batches.
+     */
+    BATCH,
+
+    /**
+     * Fetches the association with a second query, restricting the owners with the restrictions of the query of the
+     * owners as a subquery. A single query regardless of the number of owners.
+     */
+    SUBSELECT
+
+}
@@ -2,15 +2,35 @@ package org.crygier.graphql;
 
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
 import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.introspection.IntrospectionQuery;
+import graphql.language.AstPrinter;
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
 import graphql.schema.GraphQLSchema;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
 import javax.transaction.Transactional;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * A GraphQL executor capable of constructing a {@link GraphQLSchema} from a JPA {@link EntityManager}. The executor
@@ -23,9 +43,28 @@ public class GraphQLExecutor {
 
     @Resource
     private EntityManager entityManager;
-    private GraphQL graphQL;
-    private GraphQLSchema graphQLSchema;
+    private volatile GraphQL graphQL;
+    private volatile IntrospectionCache introspectionCache;
+    private volatile DocumentCache documentCache;
+    private volatile GraphQLSchema graphQLSchema;
     private GraphQLSchema.Builder builder;
+    private ReplicaRouter replicaRouter;
+    private ShardSet shardSet;
+    private Duration defaultTimeout;
+    private AdmissionController admissionController;
+    private ExecutorMetrics metrics = ExecutorMetrics.NONE;
+    private StatisticsProvider statisticsProvider;
+    private boolean statisticsInExtensions;
+    private QueryExplainer queryExplainer = createQueryExplainer();
+    private SlowOperationLog slowOperationLog;
+    private FetchPolicy fetchPolicy;
+    private ResultBudget resultBudget;
+    private EntityManagerFactory parallelEntityManagerFactory;
+    private ExecutorService parallelExecutorService;
+    private volatile CompletableFuture<WarmUpResult> warmUp;
+    private SingleFlight singleFlight;
+    private final ThreadLocal<Boolean> admitted = new ThreadLocal<>();
+    private final ThreadLocal<Boolean> coalesced = new ThreadLocal<>();
 
     protected GraphQLExecutor() {
         createGraphQL(null);
@@ -54,6 +93,35 @@ public class GraphQLExecutor {
         createGraphQL(attributeMappers);
     }
 
+    /**
+     * Creates a read-only GraphQLExecutor which routes its operations through the given {@link ReplicaRouter}. Queries
+     * are served by the replicas, mutations by the primary. The operations routed to the primary run in a
+     * resource-local transaction of their own, committed once the operation completes, independently of any
+     * transaction of the caller; with a JTA primary, the transactions are up to the container instead.
+     *
+     * @param entityManager The entity manager from which the JPA classes annotated with
+     *                      {@link javax.persistence.Entity} is extracted as {@link GraphQLSchema} objects.
+     * @param replicaRouter The router choosing the database each operation executes against.
+     */
+    public GraphQLExecutor(EntityManager entityManager, ReplicaRouter replicaRouter) {
+        this.entityManager = entityManager;
+        this.replicaRouter = replicaRouter;
+        createGraphQL(null);
+    }
+
+    /**
+     * Creates a read-only GraphQLExecutor whose queries run against all shards of the given {@link ShardSet}.
+     *
+     * @param entityManager The entity manager from which the JPA classes annotated with
+     *                      {@link javax.persistence.Entity} is extracted as {@link GraphQLSchema} objects.
+     * @param shardSet The shards holding the entities.
+     */
+    public GraphQLExecutor(EntityManager entityManager, ShardSet shardSet) {
+        this.entityManager = entityManager;
+        this.shardSet = shardSet;
+        createGraphQL(null);
+    }
+
     @PostConstruct
     protected synchronized void createGraphQL() {
         createGraphQL(null);
@@ -67,10 +135,16 @@ public class GraphQLExecutor {
                 this.builder = new GraphQLSchemaBuilder(entityManager, attributeMappers);
             }
             this.graphQLSchema = builder.build();
-            this.graphQL = GraphQL.newGraphQL(graphQLSchema).build();
+            this.documentCache = new DocumentCache(graphQLSchema);
+            this.graphQL = GraphQL.newGraphQL(graphQLSchema).instrumentation(new OperationInstrumentation()).preparsedDocumentProvider(documentCache).build();
+            this.introspectionCache = new IntrospectionCache(graphQL, documentCache).precompute();
         }
     }
 
+    EntityManager getEntityManager() {
+        return entityManager;
+    }
+
     /**
      * @return The {@link GraphQLSchema} used by this executor.
      */
@@ -80,14 +154,804 @@ public class GraphQLExecutor {
 
     @Transactional
     public ExecutionResult execute(String query) {
-        return graphQL.execute(query);
+        return execute(query, null);
     }
 
     @Transactional
     public ExecutionResult execute(String query, Map<String, Object> arguments) {
-        if (arguments == null)
-            return graphQL.execute(query);
-        return graphQL.execute(ExecutionInput.newExecutionInput().query(query).variables(arguments).build());
+        return execute(query, arguments, createContext(defaultTimeout), false);
+    }
+
+    /**
+     * Executes the given query, fetching no more data once the given timeout has elapsed. The remaining time is passed
+     * on to every JPA query as its query timeout. Fields that could not be fetched in time are returned as null, and
+     * the result contains an error.
+     *
+     * @param query The GraphQL query to execute.
+     * @param arguments The variables of the query, may be null.
+     * @param timeout The maximum duration of the execution, or null for no limit.
+     * @return The (partial) result of the execution.
+     */
+    @Transactional
+    public ExecutionResult execute(String query, Map<String, Object> arguments, Duration timeout) {
+        return execute(query, arguments, createContext(timeout), false);
+    }
+
+    /**
+     * Waits for the {@link AdmissionController} of this executor to admit the given operation, then executes it with
+     * the given execution, which isn't admitted again. The other methods of this executor are transactional, so when
+     * they are called through a transactional proxy, e.g. of Spring, the transaction begins and takes a pooled JDBC
+     * connection before the operation waits for its permit. This method is not transactional: pass an execution
+     * calling the executor through its proxy, so queued operations hold no connection:
+     * <pre>
+     * executor.admit(query, () -&gt; executor.execute(query, variables));
+     * </pre>
+     * Called within a transaction of the caller, the connection is held while waiting all the same.
+     *
+     * @param query The GraphQL query to admit.
+     * @param execution Executes the query once it is admitted.
+     * @return The result of the execution, or a result with an {@link AdmissionRejectedException} if the operation was
+     *         rejected.
+     */
+    public ExecutionResult admit(String query, Supplier<ExecutionResult> execution) {
+        if (admissionController == null || Boolean.TRUE.equals(admitted.get()))
+            return execution.get();
+
+        final AdmissionController.Permit permit;
+        try {
+            permit = admissionController.admit(parse(query), metrics);
+        } catch (AdmissionRejectedException e) {
+            return new ExecutionResultImpl(e);
+        }
+
+        admitted.set(true);
+        try {
+            return execution.get();
+        } finally {
+            admitted.remove();
+            permit.close();
+        }
+    }
+
+    /**
+     * Coalesces the given operation with the identical ones in flight if single-flight is enabled, see
+     * {@link #setSingleFlight(boolean)}, and otherwise admits it like {@link #admit(String, Supplier)} and executes it
+     * with the given execution. The other methods of this executor are transactional, so when they are called through
+     * a transactional proxy, e.g. of Spring, the transaction begins before the operation is coalesced; as its result
+     * could then miss the writes of the transaction, it is executed on its own. This method is not transactional:
+     * pass an execution calling the executor through its proxy, so identical operations share a single execution:
+     * <pre>
+     * executor.coalesce(query, variables, () -&gt; executor.execute(query, variables));
+     * </pre>
+     *
+     * @param query The GraphQL query to coalesce.
+     * @param arguments The variables of the query, may be null.
+     * @param execution Executes the query unless an identical one is in flight, and once it is admitted.
+     * @return The result of the execution, shared with the identical operations in flight, if any.
+     */
+    public ExecutionResult coalesce(String query, Map<String, Object> arguments, Supplier<ExecutionResult> execution) {
+        SingleFlight singleFlight = this.singleFlight;
+        Document document = singleFlight != null ? parse(query) : null;
+        if (document == null || isMutation(document) || !canShareResults())
+            return admit(query, execution);
+
+        return singleFlight.execute(getCoalescingKey(document, null, arguments, resultBudget), () -> {
+            // The execution is coalesced already, and mustn't wait for itself through the proxy
+            coalesced.set(true);
+            try {
+                return admit(query, execution);
+            } finally {
+                coalesced.remove();
+            }
+        }, metrics);
+    }
+
+    /**
+     * Executes the given operations one after another in a single transaction and persistence context, e.g. the
+     * operations a page sends on load. The operations share a memo of their queries too, so a query repeated by
+     * several operations, or an entity selected by identifier that another operation already loaded, costs a single
+     * round trip to the database; associations loaded by one operation are not loaded again by the next.
+     * <p>
+     * The transaction is read-only: if the manager of this executor, or the replica it is routed to, is not joined to
+     * a transaction already, one is started and rolled back once the batch completes. Container-managed managers are
+     * expected to run within the transaction of the caller.
+     *
+     * @param inputs The operations to execute. Their query, operation name and variables are used.
+     * @return The results of the operations, in the order of the given operations.
+     * @throws IllegalArgumentException If any of the operations is a mutation.
+     */
+    @Transactional
+    public List<ExecutionResult> executeBatch(List<ExecutionInput> inputs) {
+        List<Document> documents = new ArrayList<>();
+        for (ExecutionInput input : inputs) {
+            Document document = parse(input.getQuery());
+            if (isMutation(document))
+                throw new IllegalArgumentException("Only queries can be batched");
+
+            documents.add(document);
+        }
+
+        if (replicaRouter == null)
+            return executeBatch(inputs, documents, entityManager);
+
+        try (ReplicaRouter.Lease lease = replicaRouter.acquire(true)) {
+            return executeBatch(inputs, documents, lease.getEntityManager());
+        }
+    }
+
+    private List<ExecutionResult> executeBatch(List<ExecutionInput> inputs, List<Document> documents, EntityManager entityManager) {
+        EntityTransaction transaction = null;
+        try {
+            if (!entityManager.isJoinedToTransaction()) {
+                transaction = entityManager.getTransaction();
+                transaction.begin();
+            }
+        } catch (IllegalStateException e) {
+            // The transactions of JTA and shared managers are up to the container
+            transaction = null;
+        }
+
+        try {
+            OperationMemo memo = new OperationMemo(null);
+            List<ExecutionResult> results = new ArrayList<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                ExecutionInput input = inputs.get(i);
+                OperationContext context = createContext(defaultTimeout)
+                        .document(documents.get(i))
+                        .entityManager(entityManager)
+                        .memo(memo.share(input.getVariables()))
+                        .operationName(input.getOperationName())
+                        .batched(true);
+                results.add(execute(input.getQuery(), input.getVariables(), context, false));
+            }
+
+            return results;
+        } finally {
+            if (transaction != null && transaction.isActive())
+                transaction.rollback();
+        }
+    }
+
+    /**
+     * Executes the given query against the primary database, even if it is read-only and a {@link ReplicaRouter} is
+     * configured. Use this for reads that must observe the latest writes.
+     *
+     * @param query The GraphQL query to execute.
+     * @param arguments The variables of the query, may be null.
+     * @return The result of the execution.
+     */
+    @Transactional
+    public ExecutionResult executeOnPrimary(String query, Map<String, Object> arguments) {
+        return execute(query, arguments, createContext(defaultTimeout), true);
+    }
+
+    /**
+     * Plans the queries the given query would execute, without fetching any entities. Each field resolved by the data
+     * fetchers of this library is planned with the JPQL and SQL of its query, its fetch joins and parameters, and the
+     * number of rows it would return; the latter is determined with a count query. Fields resolved by other data
+     * fetchers are still executed as usual.
+     *
+     * @param query The GraphQL query to explain.
+     * @param arguments The variables of the query, may be null.
+     * @return The plan of the query, including the errors the operation caused, if any.
+     * @throws IllegalArgumentException If the query is a mutation.
+     */
+    @Transactional
+    public QueryPlan explain(String query, Map<String, Object> arguments) {
+        Document document = parse(query);
+        if (isMutation(document))
+            throw new IllegalArgumentException("Only queries can be explained");
+
+        QueryPlan plan = new QueryPlan(queryExplainer);
+        ExecutionResult result = execute(query, arguments, createContext(defaultTimeout).document(document).explain(plan), false);
+        return plan.errors(result.getErrors());
+    }
+
+    /**
+     * Computes the ETag of the result of the given query without loading any entities. Each root field is probed with
+     * a single query using the restrictions of the field: it selects the number of entities the field returns, the sum
+     * of their versions and their greatest identifier, and the same of the associated entities selected below the
+     * field. Every update increments the version of an entity, and thus the sum of the versions, so the ETag changes
+     * whenever any of these entities is added, removed or updated.
+     * <p>
+     * Only results made up of entities with a {@link javax.persistence.Version} attribute can be fingerprinted. The
+     * embedded attributes and element collections of an entity are covered by its version.
+     *
+     * @param query The GraphQL query to fingerprint.
+     * @param arguments The variables of the query, may be null.
+     * @return The (quoted) ETag, or null if the query is a mutation, fails, or selects fields whose result can't be
+     *         fingerprinted, e.g. entities without a version.
+     */
+    @Transactional
+    public String getEtag(String query, Map<String, Object> arguments) {
+        IntrospectionResult introspectionResult = introspectionCache.get(query, null, arguments);
+        if (introspectionResult != null)
+            return introspectionResult.getEtag();
+
+        Document document = parse(query);
+        if (isMutation(document))
+            return null;
+
+        ResultFingerprint fingerprint = new ResultFingerprint(query, arguments);
+        ExecutionResult result = execute(query, arguments, createContext(defaultTimeout).document(document).fingerprint(fingerprint), false);
+        return result.getErrors().isEmpty() ? fingerprint.getEtag() : null;
+    }
+
+    /**
+     * Executes the given query, unless the client already holds its result. Whether it does is decided by the ETag
+     * computed with {@link #getEtag(String, Map)}, without loading any entities. The ETag is computed before the query
+     * is executed, so at worst a client receives a result newer than its ETag, and fetches it again next time.
+     *
+     * @param query The GraphQL query to execute.
+     * @param arguments The variables of the query, may be null.
+     * @param ifNoneMatch The value of the If-None-Match header sent by the client, may be null.
+     * @return The result of the execution, or a result that is not modified, together with the ETag.
+     */
+    @Transactional
+    public ConditionalResult executeIfModified(String query, Map<String, Object> arguments, String ifNoneMatch) {
+        String etag = getEtag(query, arguments);
+        if (ConditionalResult.matches(etag, ifNoneMatch))
+            return new ConditionalResult(null, etag);
+
+        return new ConditionalResult(execute(query, arguments), etag);
+    }
+
+    /**
+     * Primes the caches of this executor by executing the operations of the given warm-up, each with a budget of a few
+     * rows per field. Run it on startup, and have the readiness probe of the application wait for the returned future,
+     * or check {@link #isWarmedUp()}. Like {@link LiveQueryRegistry#refresh()}, run it in the same setting the executor
+     * is used in otherwise, e.g. within a read-only transaction; with an executor of its own, the warm-up runs in
+     * another thread.
+     *
+     * @param warmUp The operations to warm up, and how.
+     * @return The future outcome of the warm-up. Failing operations are reported by the outcome, they don't fail it.
+     */
+    public CompletableFuture<WarmUpResult> warmUp(WarmUp warmUp) {
+        CompletableFuture<WarmUpResult> answer = new CompletableFuture<>();
+        this.warmUp = answer;
+
+        Runnable task = () -> {
+            try {
+                answer.complete(runWarmUp(warmUp));
+            } catch (RuntimeException e) {
+                answer.completeExceptionally(e);
+            }
+        };
+        if (warmUp.getExecutor() != null)
+            warmUp.getExecutor().execute(task);
+        else
+            task.run();
+
+        return answer;
+    }
+
+    /**
+     * @return False while a warm-up started with {@link #warmUp(WarmUp)} is running, true otherwise.
+     */
+    public boolean isWarmedUp() {
+        CompletableFuture<WarmUpResult> warmUp = this.warmUp;
+        return warmUp == null || warmUp.isDone();
+    }
+
+    private WarmUpResult runWarmUp(WarmUp warmUp) {
+        long start = System.nanoTime();
+        ResultBudget budget = new ResultBudget().maxRowsPerField(warmUp.getRowsPerField());
+        Map<String, List<String>> failures = new LinkedHashMap<>();
+        List<ExecutionInput> all = warmUp.getOperations(graphQLSchema);
+        List<ExecutionInput> operations = new ArrayList<>();
+        for (ExecutionInput operation : all) {
+            // The documents are cached, the executions below won't parse them again
+            if (isMutation(parse(operation.getQuery())))
+                failures.put(operation.getQuery(), Collections.singletonList("Only queries can be warmed up"));
+            else
+                operations.add(operation);
+        }
+
+        int executions = 0;
+        for (int i = 0; i < warmUp.getIterations(); i++) {
+            for (ExecutionInput operation : operations) {
+                List<String> errors;
+                try {
+                    OperationContext context = createContext(defaultTimeout).budget(budget.start()).operationName(operation.getOperationName());
+                    ExecutionResult result = execute(operation.getQuery(), operation.getVariables(), context, false);
+                    errors = result.getErrors().stream()
+                            .filter(it -> !(it instanceof ResultBudgetExceededException))
+                            .map(GraphQLError::getMessage)
+                            .collect(Collectors.toList());
+                } catch (RuntimeException e) {
+                    errors = Collections.singletonList(String.valueOf(e.getMessage()));
+                }
+
+                executions++;
+                if (!errors.isEmpty())
+                    failures.putIfAbsent(operation.getQuery(), errors);
+            }
+        }
+
+        return new WarmUpResult(all.size(), executions, failures, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Executes the given query like {@link #execute(String, Map)}, recording the entities it depends on.
+     */
+    ExecutionResult executeLive(String query, Map<String, Object> arguments, LiveQueryDependencies dependencies) {
+        return execute(query, arguments, createContext(defaultTimeout).dependencies(dependencies), false);
+    }
+
+    private static QueryExplainer createQueryExplainer() {
+        try {
+            Class.forName("org.hibernate.Session");
+            return new HibernateQueryExplainer();
+        } catch (ClassNotFoundException | LinkageError e) {
+            return QueryExplainer.NONE;
+        }
+    }
+
+    private OperationContext createContext(Duration timeout) {
+        OperationContext context = new OperationContext().fetchPolicy(fetchPolicy);
+        if (resultBudget != null)
+            context.budget(resultBudget.start());
+        if (timeout != null)
+            context.deadline(System.nanoTime() + timeout.toNanos());
+
+        return context;
+    }
+
+    protected ExecutionResult execute(String query, Map<String, Object> arguments, OperationContext context, boolean primary) {
+        IntrospectionResult introspectionResult = introspectionCache.get(query, context.getOperationName(), arguments);
+        if (introspectionResult != null)
+            return introspectionResult.getExecutionResult();
+
+        if (context.getDocument() == null)
+            context.document(parse(query));
+        Document document = context.getDocument();
+
+        // Explained, fingerprinted, live and batched operations have results of their own, and operations executed
+        // through coalesce(String, Map, Supplier) are coalesced already
+        SingleFlight singleFlight = this.singleFlight;
+        if (singleFlight == null || context.getQueryPlan() != null || context.getFingerprint() != null || context.getDependencies() != null || context.isBatched()
+                || Boolean.TRUE.equals(coalesced.get()))
+            return admit(query, arguments, document, context, primary);
+
+        // Reads on the primary must observe the latest writes, so they can't be served the result of an operation that
+        // started earlier
+        if (document == null || isMutation(document) || primary || !canShareResults())
+            return admit(query, arguments, document, context, primary);
+
+        List<Object> key = getCoalescingKey(document, context.getOperationName(), arguments, context.getBudget() != null ? context.getBudget().getBudget() : null);
+        return singleFlight.execute(key, () -> admit(query, arguments, document, context, primary), metrics);
+    }
+
+    private static List<Object> getCoalescingKey(Document document, String operationName, Map<String, Object> arguments, ResultBudget budget) {
+        // Operations with another budget, i.e. warm-ups, would get another result
+        return Arrays.asList(AstPrinter.printAst(document), operationName, arguments != null ? arguments : Collections.emptyMap(), budget);
+    }
+
+    /**
+     * @return False if the entity manager is joined to a transaction of the caller that isn't read-only or holds
+     *         changes, whose writes the result of another operation would miss.
+     */
+    private boolean canShareResults() {
+        if (!entityManager.isJoinedToTransaction())
+            return true;
+
+        try {
+            return HibernateTransactions.isReadOnlyAndClean(entityManager);
+        } catch (PersistenceException | LinkageError e) {
+            // Other providers don't tell whether the transaction wrote anything
+            return false;
+        }
+    }
+
+    private ExecutionResult admit(String query, Map<String, Object> arguments, Document document, OperationContext context, boolean primary) {
+        // Operations executed through admit(String, Supplier) hold their permit already
+        if (admissionController == null || Boolean.TRUE.equals(admitted.get()))
+            return executeOnReplicas(query, arguments, document, context, primary);
+
+        final AdmissionController.Permit permit;
+        try {
+            permit = admissionController.admit(document, metrics);
+        } catch (AdmissionRejectedException e) {
+            return new ExecutionResultImpl(e);
+        }
+
+        try {
+            return executeOnReplicas(query, arguments, document, context, primary);
+        } finally {
+            permit.close();
+        }
+    }
+
+    private ExecutionResult executeOnReplicas(String query, Map<String, Object> arguments, Document document, OperationContext context, boolean primary) {
+        // The operations of a batch execute against the manager of the batch
+        if (context.isBatched())
+            return executeOnShards(query, arguments, context);
+
+        if (replicaRouter == null)
+            return executeOnShards(query, arguments, context.entityManager(entityManager));
+
+        try (ReplicaRouter.Lease lease = replicaRouter.acquire(!primary && !isMutation(document))) {
+            context.entityManager(lease.getEntityManager());
+            if (!lease.isPrimary())
+                return executeOnShards(query, arguments, context);
+
+            EntityTransaction transaction;
+            try {
+                transaction = lease.getEntityManager().getTransaction();
+                transaction.begin();
+            } catch (IllegalStateException e) {
+                // The transactions of JTA managers are up to the container
+                return executeOnShards(query, arguments, context);
+            }
+
+            try {
+                ExecutionResult result = executeOnShards(query, arguments, context);
+                transaction.commit();
+                return result;
+            } finally {
+                if (transaction.isActive())
+                    transaction.rollback();
+            }
+        }
+    }
+
+    private ExecutionResult executeOnShards(String query, Map<String, Object> arguments, OperationContext context) {
+        if (shardSet == null)
+            return execute(query, arguments, context);
+
+        List<EntityManager> shardEntityManagers = shardSet.createEntityManagers();
+        try {
+            return execute(query, arguments, context.shards(shardSet, shardEntityManagers));
+        } finally {
+            shardEntityManagers.forEach(EntityManager::close);
+        }
+    }
+
+    protected ExecutionResult execute(String query, Map<String, Object> arguments, OperationContext context) {
+        ExecutionInput.Builder input = ExecutionInput.newExecutionInput().query(query).operationName(context.getOperationName()).context(context);
+        if (arguments != null)
+            input.variables(arguments);
+
+        if (context.getMemo() == null)
+            context.memo(new OperationMemo(arguments));
+
+        SlowOperationLog slowOperationLog = this.slowOperationLog;
+        if (slowOperationLog != null)
+            context.trace(new OperationTrace());
+
+        // Explained and sharded operations have managers of their own already, probes are cheap, and batches share one
+        EntityManagerFactory parallelEntityManagerFactory = this.parallelEntityManagerFactory;
+        if (parallelEntityManagerFactory != null && context.getQueryPlan() == null && context.getFingerprint() == null && !context.isBatched() && context.getShardSet() == null && !isMutation(context.getDocument()))
+            context.parallelRootFields(new ParallelRootFields(parallelEntityManagerFactory, parallelExecutorService, statisticsProvider));
+
+        ExecutionResult result;
+        try {
+            result = statisticsProvider != null ? executeWithStatistics(input.build(), context) : graphQL.execute(input.build());
+
+            if (slowOperationLog != null) {
+                // Record while the managers are still open, the SQL is rendered through them
+                long durationNanos = System.nanoTime() - context.getStartNanos();
+                if (slowOperationLog.isSlow(durationNanos))
+                    slowOperationLog.record(query, arguments, durationNanos, context.getTrace(), result.getErrors().size(), context.getStatistics(), queryExplainer);
+            }
+        } finally {
+            if (context.getParallelRootFields() != null)
+                context.getParallelRootFields().close();
+        }
+
+        boolean truncated = context.getBudget() != null && context.getBudget().isTruncated();
+        boolean statistics = context.getStatistics() != null && statisticsInExtensions;
+        if (!truncated && !statistics)
+            return result;
+
+        List<GraphQLError> errors = new ArrayList<>(result.getErrors());
+        Map<Object, Object> extensions = new LinkedHashMap<>();
+        if (result.getExtensions() != null)
+            extensions.putAll(result.getExtensions());
+        if (truncated) {
+            errors.add(new ResultBudgetExceededException(context.getBudget().getTruncations()));
+            extensions.put("truncated", true);
+        }
+        if (statistics)
+            extensions.put("statistics", context.getStatistics().toMap());
+
+        return new ExecutionResultImpl(result.getData(), errors, extensions);
+    }
+
+    private ExecutionResult executeWithStatistics(ExecutionInput input, OperationContext context) {
+        OperationStatistics statistics = new OperationStatistics();
+        List<StatisticsProvider.Recording> recordings = new ArrayList<>();
+        ExecutionResult result;
+        try {
+            // With parallel root fields, the managers of the fields are recorded as they are opened
+            if (context.getEntityManager() != null && context.getParallelRootFields() == null)
+                recordings.add(statisticsProvider.record(context.getEntityManager(), statistics));
+            for (EntityManager shardEntityManager : context.getShardEntityManagers())
+                recordings.add(statisticsProvider.record(shardEntityManager, statistics));
+
+            context.statistics(statistics);
+            result = graphQL.execute(input);
+        } finally {
+            recordings.forEach(StatisticsProvider.Recording::close);
+        }
+
+        metrics.operationCompleted(statistics);
+        return result;
+    }
+
+    /**
+     * @return The parsed document of the given operation, or null if it is no valid GraphQL; invalid documents are
+     *         reported by graphql-java itself. The document is cached, and must not be modified.
+     */
+    Document parse(String query) {
+        return documentCache.parse(query);
+    }
+
+    boolean isMutation(Document document) {
+        return document != null && document.getDefinitions().stream()
+                .filter(it -> it instanceof OperationDefinition)
+                .anyMatch(it -> ((OperationDefinition) it).getOperation() != OperationDefinition.Operation.QUERY);
+    }
+
+    /**
+     * Returns the result of the standard introspection query, as sent by GraphiQL and most client code generators.
+     * The result is computed whenever the schema changes, and served from memory otherwise.
+     *
+     * @return The cached result, including its serialized form and ETag.
+     */
+    public IntrospectionResult getIntrospectionResult() {
+        return introspectionCache.get(IntrospectionQuery.INTROSPECTION_QUERY, null, null);
+    }
+
+    /**
+     * Returns the cached result of the given operation, if it only selects introspection fields such as __schema and
+     * __type. Use the ETag of the result to answer clients revalidating their copy with 'not modified'.
+     *
+     * @param query The GraphQL query to execute.
+     * @param arguments The variables of the query, may be null.
+     * @return The cached result, or null if the operation selects more than introspection fields.
+     */
+    public IntrospectionResult getIntrospectionResult(String query, Map<String, Object> arguments) {
+        return getIntrospectionResult(query, null, arguments);
+    }
+
+    /**
+     * Returns the cached result of the named operation of the given query, if the query only selects introspection
+     * fields such as __schema and __type.
+     *
+     * @param query The GraphQL query to execute.
+     * @param operationName The name of the operation to execute, required if the query has several; may be null.
+     * @param arguments The variables of the query, may be null.
+     * @return The cached result, or null if the query selects more than introspection fields.
+     */
+    public IntrospectionResult getIntrospectionResult(String query, String operationName, Map<String, Object> arguments) {
+        return introspectionCache.get(query, operationName, arguments);
+    }
+
+    /**
+     * @return The router choosing the database each operation executes against, or null if all operations execute
+     *         against the {@link EntityManager} of this executor.
+     */
+    public ReplicaRouter getReplicaRouter() {
+        return replicaRouter;
+    }
+
+    /**
+     * @param replicaRouter The router choosing the database each operation executes against, or null to execute all
+     *                      operations against the {@link EntityManager} of this executor.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setReplicaRouter(ReplicaRouter replicaRouter) {
+        this.replicaRouter = replicaRouter;
+        return this;
+    }
+
+    /**
+     * @return The shards the queries of this executor run against, or null if the executor is not sharded.
+     */
+    public ShardSet getShardSet() {
+        return shardSet;
+    }
+
+    /**
+     * @param shardSet The shards the queries of this executor run against, or null to disable sharding.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setShardSet(ShardSet shardSet) {
+        this.shardSet = shardSet;
+        return this;
+    }
+
+    /**
+     * @return The maximum duration of the operations executed without an explicit timeout, or null for no limit.
+     */
+    public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    /**
+     * @param defaultTimeout The maximum duration of the operations executed without an explicit timeout, or null for
+     *                       no limit.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setDefaultTimeout(Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+        return this;
+    }
+
+    /**
+     * @return The controller bounding the number of concurrently executing operations, or null if unbounded.
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * @param admissionController The controller bounding the number of concurrently executing operations, or null to
+     *                            execute every operation immediately.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+        return this;
+    }
+
+    public ExecutorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param metrics Receives the metrics recorded by this executor.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setMetrics(ExecutorMetrics metrics) {
+        this.metrics = metrics != null ? metrics : ExecutorMetrics.NONE;
+        return this;
+    }
+
+    /**
+     * @return The provider recording the persistence statistics of each operation, or null if none are recorded.
+     */
+    public StatisticsProvider getStatisticsProvider() {
+        return statisticsProvider;
+    }
+
+    /**
+     * @param statisticsProvider The provider recording the persistence statistics of each operation, which are
+     *                           reported to the {@link ExecutorMetrics} of this executor. May be null to record none.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setStatisticsProvider(StatisticsProvider statisticsProvider) {
+        this.statisticsProvider = statisticsProvider;
+        return this;
+    }
+
+    public boolean isStatisticsInExtensions() {
+        return statisticsInExtensions;
+    }
+
+    /**
+     * @param statisticsInExtensions True to add the recorded statistics to the extensions of each result, under the
+     *                               'statistics' key. Only has an effect along with a {@link StatisticsProvider}.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setStatisticsInExtensions(boolean statisticsInExtensions) {
+        this.statisticsInExtensions = statisticsInExtensions;
+        return this;
+    }
+
+    public QueryExplainer getQueryExplainer() {
+        return queryExplainer;
+    }
+
+    /**
+     * @param queryExplainer Renders the queries planned by {@link #explain(String, Map)}. Defaults to a
+     *                       {@link HibernateQueryExplainer} if Hibernate is available.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setQueryExplainer(QueryExplainer queryExplainer) {
+        this.queryExplainer = queryExplainer != null ? queryExplainer : QueryExplainer.NONE;
+        return this;
+    }
+
+    /**
+     * @return The log recording the operations slower than its threshold, or null if none are recorded.
+     */
+    public SlowOperationLog getSlowOperationLog() {
+        return slowOperationLog;
+    }
+
+    /**
+     * @param slowOperationLog The log recording the operations slower than its threshold, or null to record none.
+     *                         While set, the fields and queries of every operation are traced.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setSlowOperationLog(SlowOperationLog slowOperationLog) {
+        this.slowOperationLog = slowOperationLog;
+        return this;
+    }
+
+    /**
+     * @return The policy choosing how associations are loaded, or null if they are loaded lazily.
+     */
+    public FetchPolicy getFetchPolicy() {
+        return fetchPolicy;
+    }
+
+    /**
+     * @param fetchPolicy Chooses how the associations selected by operations are loaded, based on the cardinalities
+     *                    observed so far. Null to load them lazily, joining just the required to-one associations.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setFetchPolicy(FetchPolicy fetchPolicy) {
+        this.fetchPolicy = fetchPolicy;
+        return this;
+    }
+
+    /**
+     * @return The limits of the size of the results of operations, or null if they are unlimited.
+     */
+    public ResultBudget getResultBudget() {
+        return resultBudget;
+    }
+
+    /**
+     * @param resultBudget Limits the rows per field, the objects and the estimated bytes of the result of every
+     *                     operation; operations exceeding it return a truncated result. Null for no limits.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setResultBudget(ResultBudget resultBudget) {
+        this.resultBudget = resultBudget;
+        return this;
+    }
+
+    /**
+     * @return True if identical queries executing at the same time are coalesced.
+     */
+    public boolean isSingleFlight() {
+        return singleFlight != null;
+    }
+
+    /**
+     * @param singleFlight Whether to coalesce identical queries executing at the same time, e.g. a dashboard refreshed
+     *                     by many clients at once: the first one executes, and the others wait for it and share its
+     *                     result, which can't be modified. Queries are identical if their documents, operation names
+     *                     and variables are. A query may thus get a result that started executing before it arrived.
+     *                     Reads on the primary, see {@link #executeOnPrimary(String, Map)}, and queries executing
+     *                     within a transaction that isn't read-only or holds changes are never coalesced; use
+     *                     {@link #coalesce(String, Map, Supplier)} behind a transactional proxy. Every query that
+     *                     waited is reported to {@link ExecutorMetrics#operationCoalesced(long)}.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setSingleFlight(boolean singleFlight) {
+        this.singleFlight = singleFlight ? new SingleFlight() : null;
+        return this;
+    }
+
+    /**
+     * @return True if the root fields of queries are fetched concurrently.
+     */
+    public boolean isParallelRootFields() {
+        return parallelEntityManagerFactory != null;
+    }
+
+    /**
+     * Fetches the root fields of queries concurrently on the given pool, each with an {@link EntityManager} of its own
+     * created by the given factory. The managers run in a transaction which is rolled back once the query completes.
+     * Explained, sharded and mutation operations are not affected.
+     *
+     * @param entityManagerFactory Creates the managers of the root fields, or null to fetch the root fields one by one
+     *                             with the manager of the executor.
+     * @param executorService The pool the root fields are fetched on.
+     * @return The same executor.
+     */
+    public GraphQLExecutor setParallelRootFields(EntityManagerFactory entityManagerFactory, ExecutorService executorService) {
+        if (entityManagerFactory != null && executorService == null)
+            throw new IllegalArgumentException("Parallel root fields need a pool to be fetched on");
+
+        this.parallelEntityManagerFactory = entityManagerFactory;
+        this.parallelExecutorService = executorService;
+        return this;
     }
 
     /**
@@ -134,4 +998,32 @@ public class GraphQLExecutor {
         return this;
     }
 
+    /**
+     * Applies the given changes to the current {@link GraphQLSchemaBuilder}, and replaces the {@link GraphQLSchema}
+     * with the result. Unlike {@link #updateSchema(GraphQLSchema.Builder)}, the entity model isn't scanned again and
+     * only the root types touched by the changes are rebuilt. The standard introspection result is computed on its
+     * first request, rather than as part of the update.
+     * <pre>
+     * executor.updateSchema(builder -&gt; builder.addMutationField(createDroid).removeQueryField("CodeList"));
+     * </pre>
+     *
+     * @param changes Applies the delta, through methods such as {@link GraphQLSchemaBuilder#addQueryField}.
+     * @return The same executor but with a new {@link GraphQL} schema.
+     */
+    public synchronized GraphQLExecutor updateSchema(Consumer<GraphQLSchemaBuilder> changes) {
+        if (!(builder instanceof GraphQLSchemaBuilder))
+            throw new IllegalStateException("Incremental schema updates require a " + GraphQLSchemaBuilder.class.getSimpleName());
+
+        changes.accept((GraphQLSchemaBuilder) builder);
+
+        GraphQLSchema graphQLSchema = builder.build();
+        DocumentCache documentCache = new DocumentCache(graphQLSchema);
+        GraphQL graphQL = GraphQL.newGraphQL(graphQLSchema).instrumentation(new OperationInstrumentation()).preparsedDocumentProvider(documentCache).build();
+        this.introspectionCache = new IntrospectionCache(graphQL, documentCache);
+        this.documentCache = documentCache;
+        this.graphQL = graphQL;
+        this.graphQLSchema = graphQLSchema;
+        return this;
+    }
+
 }
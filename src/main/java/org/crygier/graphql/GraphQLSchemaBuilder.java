@@ -8,6 +8,7 @@ import graphql.schema.GraphQLInputObjectField;
 import graphql.schema.GraphQLInputObjectType;
 import graphql.schema.GraphQLInputType;
 import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLNonNull;
 import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLOutputType;
 import graphql.schema.GraphQLScalarType;
@@ -36,11 +37,15 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -55,6 +60,8 @@ import java.util.stream.Stream;
 public class GraphQLSchemaBuilder extends GraphQLSchema.Builder {
 
     public static final String PAGINATION_REQUEST_PARAM_NAME = "paginationRequest";
+    public static final String ID_PARAM_NAME = "id";
+    public static final String IDS_PARAM_NAME = "ids";
     private static final Logger log = LoggerFactory.getLogger(GraphQLSchemaBuilder.class);
 
     private final EntityManager entityManager;
@@ -62,6 +69,12 @@ public class GraphQLSchemaBuilder extends GraphQLSchema.Builder {
     private final Map<EmbeddableType<?>, GraphQLObjectType> embeddableCache = new HashMap<>();
     private final Map<EntityType, GraphQLObjectType> entityCache = new HashMap<>();
     private final List<AttributeMapper> attributeMappers = new ArrayList<>();
+    private final SchemaDescriptor descriptor = SchemaDescriptor.load(getClassLoader());
+    private final Map<String, GraphQLFieldDefinition> queryFields = new LinkedHashMap<>();
+    private final Map<String, GraphQLFieldDefinition> mutationFields = new LinkedHashMap<>();
+    private final Map<String, GraphQLType> additionalTypes = new LinkedHashMap<>();
+    private GraphQLObjectType queryType;
+    private GraphQLObjectType mutationType;
 
     /**
      * Initialises the builder with the given {@link EntityManager} from which we immediately start to scan for
@@ -73,7 +86,7 @@ public class GraphQLSchemaBuilder extends GraphQLSchema.Builder {
 
         populateStandardAttributeMappers();
 
-        super.query(getQueryType());
+        query(getQueryType());
     }
 
     public GraphQLSchemaBuilder(EntityManager entityManager, Collection<AttributeMapper> attributeMappers) {
@@ -82,7 +95,12 @@ public class GraphQLSchemaBuilder extends GraphQLSchema.Builder {
         this.attributeMappers.addAll(attributeMappers);
         populateStandardAttributeMappers();
 
-        super.query(getQueryType());
+        query(getQueryType());
+    }
+
+    private static ClassLoader getClassLoader() {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return contextClassLoader != null ? contextClassLoader : GraphQLSchemaBuilder.class.getClassLoader();
     }
 
     private void populateStandardAttributeMappers() {
@@ -111,10 +129,151 @@ public class GraphQLSchemaBuilder extends GraphQLSchema.Builder {
         return super.build();
     }
 
+    @Override
+    public GraphQLSchema.Builder query(GraphQLObjectType queryType) {
+        this.queryType = queryType;
+        queryFields.clear();
+        if (queryType != null)
+            queryType.getFieldDefinitions().forEach(it -> queryFields.put(it.getName(), it));
+
+        return super.query(queryType);
+    }
+
+    @Override
+    public GraphQLSchema.Builder mutation(GraphQLObjectType mutationType) {
+        this.mutationType = mutationType;
+        mutationFields.clear();
+        if (mutationType != null)
+            mutationType.getFieldDefinitions().forEach(it -> mutationFields.put(it.getName(), it));
+
+        return super.mutation(mutationType);
+    }
+
+    @Override
+    public GraphQLSchema.Builder additionalTypes(Set<GraphQLType> additionalTypes) {
+        this.additionalTypes.clear();
+        additionalTypes.forEach(it -> this.additionalTypes.put(it.getName(), it));
+
+        return super.additionalTypes(additionalTypes);
+    }
+
+    /**
+     * Adds, or replaces, a field of the query type. Only the query type is rebuilt, all other types are reused.
+     * @param field The field to add.
+     * @return The same builder.
+     */
+    public GraphQLSchemaBuilder addQueryField(GraphQLFieldDefinition field) {
+        queryFields.put(field.getName(), field);
+        super.query(rebuild(queryType, "QueryType_JPA", queryFields));
+        return this;
+    }
+
+    /**
+     * Removes a field from the query type, if present.
+     * @param name The name of the field to remove.
+     * @return The same builder.
+     */
+    public GraphQLSchemaBuilder removeQueryField(String name) {
+        if (queryFields.remove(name) != null)
+            super.query(rebuild(queryType, "QueryType_JPA", queryFields));
+
+        return this;
+    }
+
+    /**
+     * Adds, or replaces, a field of the mutation type, creating the mutation type if the schema doesn't have one yet.
+     * Only the mutation type is rebuilt, all other types are reused.
+     * @param field The field to add.
+     * @return The same builder.
+     */
+    public GraphQLSchemaBuilder addMutationField(GraphQLFieldDefinition field) {
+        mutationFields.put(field.getName(), field);
+        super.mutation(rebuild(mutationType, "MutationType_JPA", mutationFields));
+        return this;
+    }
+
+    /**
+     * Removes a field from the mutation type, if present. The mutation type is removed along with its last field.
+     * @param name The name of the field to remove.
+     * @return The same builder.
+     */
+    public GraphQLSchemaBuilder removeMutationField(String name) {
+        if (mutationFields.remove(name) != null)
+            super.mutation(mutationFields.isEmpty() ? null : rebuild(mutationType, "MutationType_JPA", mutationFields));
+
+        return this;
+    }
+
+    /**
+     * Adds the query fields of the given entity, as they would have been created had the entity been present when this
+     * builder was constructed. The object types of previously seen entities, embeddables and enums are reused.
+     * @param entityType The entity to expose.
+     * @return The same builder.
+     */
+    public GraphQLSchemaBuilder addEntity(EntityType<?> entityType) {
+        queryFields.put(entityType.getName(), getQueryFieldDefinition(entityType));
+        GraphQLFieldDefinition connection = getQueryFieldPageableDefinition(entityType);
+        queryFields.put(connection.getName(), connection);
+        getQueryFieldByIdDefinitions(entityType).forEach(it -> queryFields.put(it.getName(), it));
+        super.query(rebuild(queryType, "QueryType_JPA", queryFields));
+        return this;
+    }
+
+    /**
+     * Removes the query fields of the given entity. The entity type itself stays cached, and remains in the schema as
+     * long as other types refer to it.
+     * @param entityType The entity to hide.
+     * @return The same builder.
+     */
+    public GraphQLSchemaBuilder removeEntity(EntityType<?> entityType) {
+        boolean removed = queryFields.remove(entityType.getName()) != null;
+        removed |= queryFields.remove(entityType.getName() + "Connection") != null;
+        removed |= queryFields.remove(entityType.getName() + "ById") != null;
+        removed |= queryFields.remove(entityType.getName() + "ByIds") != null;
+
+        if (removed)
+            super.query(rebuild(queryType, "QueryType_JPA", queryFields));
+
+        return this;
+    }
+
+    /**
+     * Adds, or replaces, a type that is not reachable from the root types, e.g. an implementation of an interface.
+     * @param type The type to add.
+     * @return The same builder.
+     */
+    public GraphQLSchemaBuilder addType(GraphQLType type) {
+        additionalTypes.put(type.getName(), type);
+        super.additionalTypes(new LinkedHashSet<>(additionalTypes.values()));
+        return this;
+    }
+
+    /**
+     * Removes a type previously added with {@link #addType(GraphQLType)}, if present.
+     * @param name The name of the type to remove.
+     * @return The same builder.
+     */
+    public GraphQLSchemaBuilder removeType(String name) {
+        if (additionalTypes.remove(name) != null)
+            super.additionalTypes(new LinkedHashSet<>(additionalTypes.values()));
+
+        return this;
+    }
+
+    private static GraphQLObjectType rebuild(GraphQLObjectType current, String defaultName, Map<String, GraphQLFieldDefinition> fields) {
+        // The field definitions are reused as-is, so only the root type itself is new
+        return new GraphQLObjectType(
+                current != null ? current.getName() : defaultName,
+                current != null ? current.getDescription() : null,
+                new ArrayList<>(fields.values()),
+                current != null ? current.getInterfaces() : Collections.emptyList());
+    }
+
     GraphQLObjectType getQueryType() {
         GraphQLObjectType.Builder queryType = GraphQLObjectType.newObject().name("QueryType_JPA").description("All encompassing schema for this JPA environment");
         queryType.fields(entityManager.getMetamodel().getEntities().stream().filter(this::isNotIgnored).map(this::getQueryFieldDefinition).collect(Collectors.toList()));
         queryType.fields(entityManager.getMetamodel().getEntities().stream().filter(this::isNotIgnored).map(this::getQueryFieldPageableDefinition).collect(Collectors.toList()));
+        queryType.fields(entityManager.getMetamodel().getEntities().stream().filter(this::isNotIgnored).flatMap(this::getQueryFieldByIdDefinitions).collect(Collectors.toList()));
         queryType.fields(entityManager.getMetamodel().getEmbeddables().stream().filter(this::isNotIgnored).map(this::getQueryEmbeddedFieldDefinition).collect(Collectors.toList()));
 
         return queryType.build();
@@ -158,6 +317,39 @@ public class GraphQLSchemaBuilder extends GraphQLSchema.Builder {
                 .build();
     }
 
+    /**
+     * Returns the fields fetching entities of the given type by identifier, which are served from the persistence
+     * context or the second-level cache if possible: one by its identifier, and a list by theirs. Entities with a
+     * composite identifier have none.
+     */
+    private Stream<GraphQLFieldDefinition> getQueryFieldByIdDefinitions(EntityType<?> entityType) {
+        if (!entityType.hasSingleIdAttribute() || entityType.getIdType().getPersistenceType() != Type.PersistenceType.BASIC)
+            return Stream.empty();
+
+        Optional<GraphQLInputType> idType = getAttributeType(entityType.getId(entityType.getIdType().getJavaType()))
+                .filter(type -> type instanceof GraphQLInputType)
+                .map(type -> (GraphQLInputType) type)
+                .findFirst();
+        if (!idType.isPresent())
+            return Stream.empty();
+
+        return Stream.of(
+                GraphQLFieldDefinition.newFieldDefinition()
+                        .name(entityType.getName() + "ById")
+                        .description("Fetches the " + entityType.getName() + " of the given identifier, or null if there is none.")
+                        .type(getObjectType(entityType))
+                        .dataFetcher(new JpaIdDataFetcher(entityManager, entityType, false))
+                        .argument(GraphQLArgument.newArgument().name(ID_PARAM_NAME).type(new GraphQLNonNull(idType.get())).build())
+                        .build(),
+                GraphQLFieldDefinition.newFieldDefinition()
+                        .name(entityType.getName() + "ByIds")
+                        .description("Fetches the " + entityType.getName() + " of each of the given identifiers, in their order, with null for identifiers without one.")
+                        .type(new GraphQLList(getObjectType(entityType)))
+                        .dataFetcher(new JpaIdDataFetcher(entityManager, entityType, true))
+                        .argument(GraphQLArgument.newArgument().name(IDS_PARAM_NAME).type(new GraphQLNonNull(new GraphQLList(new GraphQLNonNull(idType.get())))).build())
+                        .build());
+    }
+
     private Stream<GraphQLArgument> getArgument(Attribute attribute) {
         return getAttributeType(attribute)
                 .filter(type -> type instanceof GraphQLInputType)
@@ -310,6 +502,9 @@ public class GraphQLSchemaBuilder extends GraphQLSchema.Builder {
     }
 
     private String getSchemaDocumentation(Member member) {
+        if (descriptor.covers(member))
+            return descriptor.getDocumentation(member);
+
         if (member instanceof AnnotatedElement) {
             return getSchemaDocumentation((AnnotatedElement) member);
         }
@@ -318,6 +513,9 @@ public class GraphQLSchemaBuilder extends GraphQLSchema.Builder {
     }
 
     private String getSchemaDocumentation(AnnotatedElement annotatedElement) {
+        if (annotatedElement instanceof Class && descriptor.covers((Class<?>) annotatedElement))
+            return descriptor.getDocumentation((Class<?>) annotatedElement);
+
         if (annotatedElement != null) {
             SchemaDocumentation schemaDocumentation = annotatedElement.getAnnotation(SchemaDocumentation.class);
             return schemaDocumentation != null ? schemaDocumentation.value() : null;
@@ -339,10 +537,16 @@ public class GraphQLSchemaBuilder extends GraphQLSchema.Builder {
     }
 
     private boolean isNotIgnored(Member member) {
+        if (descriptor.covers(member))
+            return !descriptor.isIgnored(member);
+
         return member instanceof AnnotatedElement && isNotIgnored((AnnotatedElement) member);
     }
 
     private boolean isNotIgnored(AnnotatedElement annotatedElement) {
+        if (annotatedElement instanceof Class && descriptor.covers((Class<?>) annotatedElement))
+            return !descriptor.isIgnored((Class<?>) annotatedElement);
+
         if (annotatedElement != null) {
             GraphQLIgnore schemaDocumentation = annotatedElement.getAnnotation(GraphQLIgnore.class);
             return schemaDocumentation == null;
@@ -379,14 +583,26 @@ public class GraphQLSchemaBuilder extends GraphQLSchema.Builder {
      */
     private void setIdentityCoercing(GraphQLType type) {
         try {
-            Field coercing = type.getClass().getDeclaredField("coercing");
-            coercing.setAccessible(true);
-            coercing.set(type, new IdentityCoercing());
+            ENUM_COERCING_FIELD.set(type, new IdentityCoercing());
         } catch (Exception e) {
             log.error("Unable to set coercing for " + type, e);
         }
     }
 
+    // Looked up once, rather than reflecting for every enum of every schema built
+    private static final Field ENUM_COERCING_FIELD = getEnumCoercingField();
+
+    private static Field getEnumCoercingField() {
+        try {
+            Field coercing = GraphQLEnumType.class.getDeclaredField("coercing");
+            coercing.setAccessible(true);
+            return coercing;
+        } catch (Exception e) {
+            log.error("Unable to access the coercing of " + GraphQLEnumType.class, e);
+            return null;
+        }
+    }
+
     private static final GraphQLArgument paginationArgument =
             GraphQLArgument.newArgument()
                     .name(PAGINATION_REQUEST_PARAM_NAME)
@@ -0,0 +1,42 @@
+package org.crygier.graphql;
+
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.HibernateQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders queries through the query plan cache of Hibernate, which translates the JPQL of a query to SQL without
+ * executing it.
+ */
+public class HibernateQueryExplainer implements QueryExplainer {
+
+    @Override
+    public String getJpql(EntityManager entityManager, TypedQuery<?> query) {
+        return query.unwrap(Query.class).getQueryString();
+    }
+
+    @Override
+    public List<String> getSql(EntityManager entityManager, TypedQuery<?> query) {
+        Session session = entityManager.unwrap(Session.class);
+        SessionFactoryImplementor sessionFactory = (SessionFactoryImplementor) session.getSessionFactory();
+
+        return Arrays.asList(sessionFactory.getQueryPlanCache()
+                .getHQLQueryPlan(getJpql(entityManager, query), false, ((SessionImplementor) session).getLoadQueryInfluencers().getEnabledFilters())
+                .getSqlStrings());
+    }
+
+    @Override
+    public Map<String, Object> getParameters(EntityManager entityManager, javax.persistence.Query query) {
+        // Criteria queries hide the parameters Hibernate binds the literals of the criteria to, the JPQL query doesn't
+        return QueryExplainer.super.getParameters(entityManager, query.unwrap(HibernateQuery.class));
+    }
+
+}
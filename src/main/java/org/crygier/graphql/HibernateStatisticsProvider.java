@@ -0,0 +1,114 @@
+package org.crygier.graphql;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+import javax.persistence.EntityManager;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the statistics of an operation through the Hibernate {@link Session} it executes on. Unlike the
+ * {@link org.hibernate.stat.Statistics} of the session factory, which are shared by all sessions, everything is
+ * recorded per session, so concurrent operations don't see each other's work.
+ * <p>
+ * Collections are counted when they are initialized lazily; collections fetched along with their owner are not.
+ */
+public class HibernateStatisticsProvider implements StatisticsProvider {
+
+    // Hibernate accepts only one listener of a kind per session factory, so these are shared by all providers
+    private static final Map<Session, OperationStatistics> recordings = new ConcurrentHashMap<>();
+    private static final Set<SessionFactory> registeredFactories = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private static final Set<Session> listenedSessions = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    @Override
+    public Recording record(EntityManager entityManager, OperationStatistics statistics) {
+        Session session = entityManager.unwrap(Session.class);
+        register(session.getSessionFactory());
+
+        // Sessions can't drop their listeners, so each session gets one for all the operations executing on it
+        if (listenedSessions.add(session))
+            session.addEventListeners(new SessionListener(session));
+
+        recordings.put(session, statistics);
+        return () -> recordings.remove(session, statistics);
+    }
+
+    private static void register(SessionFactory sessionFactory) {
+        if (!registeredFactories.add(sessionFactory))
+            return;
+
+        // Loads and collection initializations are only published to the listeners of the session factory
+        EventListenerRegistry registry = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> {
+            OperationStatistics statistics = recordings.get(event.getSession());
+            if (statistics != null)
+                statistics.entityLoaded();
+        });
+        registry.appendListeners(EventType.INIT_COLLECTION, (InitializeCollectionEventListener) event -> {
+            OperationStatistics statistics = recordings.get(event.getSession());
+            if (statistics != null)
+                statistics.collectionInitialized();
+        });
+    }
+
+    private static class SessionListener extends BaseSessionEventListener {
+
+        // The session holds on to its listeners, which mustn't keep it from being collected in turn
+        private final WeakReference<Session> session;
+        private long statementStart;
+        private long batchStart;
+
+        private SessionListener(Session session) {
+            this.session = new WeakReference<>(session);
+        }
+
+        private OperationStatistics statistics() {
+            Session session = this.session.get();
+            return session != null ? recordings.get(session) : null;
+        }
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            statementStart = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            OperationStatistics statistics = statistics();
+            if (statistics != null)
+                statistics.statementExecuted(System.nanoTime() - statementStart);
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            batchStart = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            OperationStatistics statistics = statistics();
+            if (statistics != null)
+                statistics.statementExecuted(System.nanoTime() - batchStart);
+        }
+
+        @Override
+        public void cacheGetEnd(boolean hit) {
+            OperationStatistics statistics = statistics();
+            if (statistics != null)
+                statistics.cacheAccessed(hit);
+        }
+
+    }
+
+}
@@ -0,0 +1,25 @@
+package org.crygier.graphql;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Inspects the transactions of Hibernate sessions, which JPA itself doesn't expose.
+ */
+final class HibernateTransactions {
+
+    private HibernateTransactions() {
+    }
+
+    /**
+     * @return True if the session of the given manager is read-only, either by default or as its changes are never
+     *         flushed, which is how Spring marks read-only transactions, and holds no changes.
+     */
+    static boolean isReadOnlyAndClean(EntityManager entityManager) {
+        Session session = entityManager.unwrap(Session.class);
+        return (session.isDefaultReadOnly() || session.getFlushMode() == FlushMode.MANUAL) && !session.isDirty();
+    }
+
+}
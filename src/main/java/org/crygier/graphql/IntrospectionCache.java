@@ -0,0 +1,148 @@
+package org.crygier.graphql;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.introspection.IntrospectionQuery;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Caches the results of introspection-only operations against a single schema. Introspection results only depend on
+ * the schema, so a new cache is created whenever the schema of the {@link GraphQLExecutor} changes.
+ */
+class IntrospectionCache {
+
+    private static final int MAX_ENTRIES = 64;
+
+    private final GraphQL graphQL;
+    private final DocumentCache documents;
+    private final Map<List<Object>, IntrospectionResult> results = Collections.synchronizedMap(new LinkedHashMap<List<Object>, IntrospectionResult>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, IntrospectionResult> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    });
+
+    IntrospectionCache(GraphQL graphQL, DocumentCache documents) {
+        this.graphQL = graphQL;
+        this.documents = documents;
+    }
+
+    /**
+     * Eagerly computes the result of the standard introspection query, as sent by GraphiQL and most code generators.
+     */
+    IntrospectionCache precompute() {
+        get(IntrospectionQuery.INTROSPECTION_QUERY, null, null);
+        return this;
+    }
+
+    /**
+     * Returns the cached result of the given operation, executing it on a cache miss.
+     *
+     * @param operationName The name of the operation to execute, required if the query has several; may be null.
+     * @return The result, or null if the query is not an introspection-only operation.
+     */
+    IntrospectionResult get(String query, String operationName, Map<String, Object> variables) {
+        List<Object> key = Arrays.asList(query, operationName, variables != null ? variables : Collections.emptyMap());
+        IntrospectionResult answer = results.get(key);
+        if (answer != null)
+            return answer;
+
+        if (!isIntrospection(query))
+            return null;
+
+        ExecutionInput.Builder input = ExecutionInput.newExecutionInput().query(query).operationName(operationName);
+        if (variables != null)
+            input.variables(variables);
+
+        // Every caller gets the same result, so none of them may modify it
+        ExecutionResult result = ExecutionResults.unmodifiableCopy(graphQL.execute(input.build()));
+        String json = Json.write(result.toSpecification());
+        answer = new IntrospectionResult(result, json, "\"" + hash(json) + "\"");
+
+        // Errors may depend on the variables, or on more than the schema, so don't keep them around
+        if (result.getErrors().isEmpty())
+            results.put(key, answer);
+
+        return answer;
+    }
+
+    /**
+     * @return True if the query only selects introspection fields, such as __schema and __type.
+     */
+    private boolean isIntrospection(String query) {
+        // Cheap check first, most queries don't select a single introspection field
+        if (query == null || !query.contains("__"))
+            return false;
+
+        // The document is cached for the execution of the query, in case it selects more
+        Document document = documents.parse(query);
+        if (document == null)
+            return false;
+
+        Map<String, FragmentDefinition> fragments = new LinkedHashMap<>();
+        document.getDefinitions().stream()
+                .filter(it -> it instanceof FragmentDefinition)
+                .forEach(it -> fragments.put(((FragmentDefinition) it).getName(), (FragmentDefinition) it));
+
+        List<OperationDefinition> operations = document.getDefinitions().stream()
+                .filter(it -> it instanceof OperationDefinition)
+                .map(it -> (OperationDefinition) it)
+                .collect(Collectors.toList());
+
+        return !operations.isEmpty() && operations.stream().allMatch(it ->
+                it.getOperation() == OperationDefinition.Operation.QUERY && isIntrospection(it.getSelectionSet(), fragments, new HashSet<>()));
+    }
+
+    private static boolean isIntrospection(SelectionSet selectionSet, Map<String, FragmentDefinition> fragments, Set<String> visited) {
+        for (Selection selection : selectionSet.getSelections()) {
+            if (selection instanceof Field) {
+                if (!((Field) selection).getName().startsWith("__"))
+                    return false;
+            } else if (selection instanceof InlineFragment) {
+                if (!isIntrospection(((InlineFragment) selection).getSelectionSet(), fragments, visited))
+                    return false;
+            } else if (selection instanceof FragmentSpread) {
+                String name = ((FragmentSpread) selection).getName();
+                FragmentDefinition fragment = fragments.get(name);
+                if (fragment == null || (visited.add(name) && !isIntrospection(fragment.getSelectionSet(), fragments, visited)))
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    static String hash(String json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+            StringBuilder answer = new StringBuilder();
+            for (byte b : digest)
+                answer.append(String.format("%02x", b));
+
+            return answer.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+}
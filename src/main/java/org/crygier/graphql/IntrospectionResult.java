@@ -0,0 +1,47 @@
+package org.crygier.graphql;
+
+import graphql.ExecutionResult;
+
+/**
+ * The cached result of an introspection-only operation, together with its serialized form and an ETag clients can
+ * revalidate their copy with. The result is shared between all callers and MUST NOT be modified.
+ */
+public class IntrospectionResult {
+
+    private final ExecutionResult executionResult;
+    private final String json;
+    private final String etag;
+
+    IntrospectionResult(ExecutionResult executionResult, String json, String etag) {
+        this.executionResult = executionResult;
+        this.json = json;
+        this.etag = etag;
+    }
+
+    public ExecutionResult getExecutionResult() {
+        return executionResult;
+    }
+
+    /**
+     * @return The specification form of the result, serialized as JSON.
+     */
+    public String getJson() {
+        return json;
+    }
+
+    /**
+     * @return The (quoted) entity tag of the result. It changes whenever the schema of the executor changes.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * @param ifNoneMatch The value of the If-None-Match header sent by the client, may be null.
+     * @return True if the client already holds this result, and may be answered with 'not modified'.
+     */
+    public boolean matches(String ifNoneMatch) {
+        return ConditionalResult.matches(etag, ifNoneMatch);
+    }
+
+}
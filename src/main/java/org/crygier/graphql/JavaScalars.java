@@ -8,198 +8,362 @@ import graphql.schema.GraphQLScalarType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigInteger;
-import java.text.DateFormat;
-import java.text.ParseException;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
+import java.time.ZoneId;
+import java.time.chrono.IsoChronology;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.FormatStyle;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.TimeZone;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * The scalar types of the Java types not covered by graphql-java itself. The static fields hold the scalars used by
+ * default, which pass temporal values on as their Java type; create an instance to have them written in another
+ * {@link TemporalFormat} or time zone, and hand its {@link #getAttributeMappers() attribute mappers} to the
+ * {@link GraphQLExecutor}.
+ * <p>
+ * The scalars are immutable and thread-safe: their formatters and time zone are resolved once, as they are created.
+ * Integers are read as seconds since the epoch, unless the format is {@link TemporalFormat#EPOCH_MILLIS}; local values
+ * are converted in the time zone of the scalars. Invalid input is read as null, and logged at most once per
+ * {@link #LOG_INTERVAL_MILLIS} per scalar.
+ */
 public class JavaScalars {
     static final Logger log = LoggerFactory.getLogger(JavaScalars.class);
 
-    public static GraphQLScalarType GraphQLLocalDateTime = new GraphQLScalarType("LocalDateTime", "Date type", new Coercing() {
+    static final long LOG_INTERVAL_MILLIS = 10000;
+
+    /**
+     * How temporal values are written to, and read from, the response.
+     */
+    public enum TemporalFormat {
+        /**
+         * Temporal values are passed on as their Java type, leaving their format to the response encoder; instants
+         * are written as seconds since the epoch.
+         */
+        NATIVE,
+        /**
+         * Temporal values are written as ISO-8601 strings.
+         */
+        ISO,
+        /**
+         * Temporal values are written as milliseconds since the epoch, and integers are read as such.
+         */
+        EPOCH_MILLIS
+    }
+
+    private static final JavaScalars DEFAULT = new JavaScalars(TemporalFormat.NATIVE, ZoneId.systemDefault());
+
+    public static GraphQLScalarType GraphQLLocalDateTime = DEFAULT.localDateTime;
+
+    public static GraphQLScalarType GraphQLInstant = DEFAULT.instant;
+
+    public static GraphQLScalarType GraphQLLocalDate = DEFAULT.localDate;
+
+    public static GraphQLScalarType GraphQLDate = DEFAULT.date;
+
+    public static GraphQLScalarType GraphQLUUID = DEFAULT.uuid;
+
+    private final TemporalFormat format;
+    private final ZoneId zone;
+    private final DateTimeFormatter localizedDateTimeFormatter;
+    private final GraphQLScalarType localDateTime;
+    private final GraphQLScalarType instant;
+    private final GraphQLScalarType localDate;
+    private final GraphQLScalarType date;
+    private final GraphQLScalarType uuid;
+
+    /**
+     * @param format How temporal values are written to, and read from, the response.
+     * @param zone The time zone local values are converted in.
+     */
+    public JavaScalars(TemporalFormat format, ZoneId zone) {
+        this.format = format;
+        this.zone = zone;
+        // The format java.text.DateFormat.getInstance() parsed dates in before
+        this.localizedDateTimeFormatter = DateTimeFormatter.ofPattern(DateTimeFormatterBuilder.getLocalizedDateTimePattern(
+                FormatStyle.SHORT, FormatStyle.SHORT, IsoChronology.INSTANCE, Locale.getDefault()));
+
+        this.localDateTime = new GraphQLScalarType("LocalDateTime", "Date type", new LocalDateTimeCoercing());
+        this.instant = new GraphQLScalarType("Instant", "Date type", new InstantCoercing());
+        this.localDate = new GraphQLScalarType("LocalDate", "Date type", new LocalDateCoercing());
+        this.date = new GraphQLScalarType("Date", "Date type", new DateCoercing());
+        this.uuid = new GraphQLScalarType("UUID", "UUID type", new UUIDCoercing());
+    }
+
+    public TemporalFormat getFormat() {
+        return format;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public GraphQLScalarType getLocalDateTime() {
+        return localDateTime;
+    }
+
+    public GraphQLScalarType getInstant() {
+        return instant;
+    }
+
+    public GraphQLScalarType getLocalDate() {
+        return localDate;
+    }
+
+    public GraphQLScalarType getDate() {
+        return date;
+    }
+
+    public GraphQLScalarType getUUID() {
+        return uuid;
+    }
+
+    /**
+     * @return Mappers of the Java types to the scalars of this instance, to be passed to the {@link GraphQLExecutor}.
+     */
+    public List<AttributeMapper> getAttributeMappers() {
+        return Arrays.asList(
+                mapper(UUID.class, uuid),
+                mapper(Date.class, date),
+                mapper(LocalDateTime.class, localDateTime),
+                mapper(Instant.class, instant),
+                mapper(LocalDate.class, localDate));
+    }
+
+    private static AttributeMapper mapper(Class<?> assignableClass, GraphQLScalarType type) {
+        return javaType -> assignableClass.isAssignableFrom(javaType) ? Optional.of(type) : Optional.empty();
+    }
+
+    private Instant toInstant(long epoch) {
+        return format == TemporalFormat.EPOCH_MILLIS ? Instant.ofEpochMilli(epoch) : Instant.ofEpochSecond(epoch);
+    }
+
+    private class LocalDateTimeCoercing implements Coercing<Object, Object> {
+
+        private final RateLimitedLog invalid = new RateLimitedLog("LocalDateTime");
+
         @Override
         public Object serialize(Object input) {
-            if (input instanceof String) {
-                return parseStringToLocalDateTime((String) input);
-            } else if (input instanceof LocalDateTime) {
-                return input;
-            } else if (input instanceof Long) {
-                return parseLongToLocalDateTime((Long) input);
-            } else if (input instanceof Integer) {
-                return parseLongToLocalDateTime((Integer) input);
-            }
-            return null;
-        }
+            LocalDateTime value = input instanceof LocalDateTime ? (LocalDateTime) input : parseValue(input);
+            if (value == null || format == TemporalFormat.NATIVE)
+                return value;
 
-        @Override
-        public Object parseValue(Object input) {
-            return serialize(input);
+            if (format == TemporalFormat.ISO)
+                return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value);
+
+            return value.atZone(zone).toInstant().toEpochMilli();
         }
 
         @Override
-        public Object parseLiteral(Object input) {
-            if (input instanceof StringValue) {
-                return parseStringToLocalDateTime(((StringValue) input).getValue());
-            } else if (input instanceof IntValue) {
-                BigInteger value = ((IntValue) input).getValue();
-                return parseLongToLocalDateTime(value.longValue());
-            }
+        public LocalDateTime parseValue(Object input) {
+            if (input instanceof LocalDateTime)
+                return (LocalDateTime) input;
+            else if (input instanceof String)
+                return parse((String) input);
+            else if (input instanceof Long || input instanceof Integer)
+                return LocalDateTime.ofInstant(toInstant(((Number) input).longValue()), zone);
+
             return null;
         }
 
-        private LocalDateTime parseLongToLocalDateTime(long input) {
-            return LocalDateTime.ofInstant(Instant.ofEpochSecond(input), TimeZone.getDefault().toZoneId());
+        @Override
+        public LocalDateTime parseLiteral(Object input) {
+            if (input instanceof StringValue)
+                return parse(((StringValue) input).getValue());
+            else if (input instanceof IntValue)
+                return LocalDateTime.ofInstant(toInstant(((IntValue) input).getValue().longValue()), zone);
+
+            return null;
         }
 
-        private LocalDateTime parseStringToLocalDateTime(String input) {
+        private LocalDateTime parse(String input) {
             try {
                 return LocalDateTime.parse(input);
-            } catch (DateTimeParseException e) {
-                log.warn("Failed to parse Date from input: " + input, e);
+            } catch (DateTimeException e) {
+                invalid.warn(input, e);
                 return null;
             }
         }
-    });
+    }
+
+    private class InstantCoercing implements Coercing<Instant, Object> {
 
-    public static GraphQLScalarType GraphQLInstant = new GraphQLScalarType("Instant", "Date type", new Coercing<Instant, Long>() {
+        private final RateLimitedLog invalid = new RateLimitedLog("Instant");
 
         @Override
-        public Long serialize(Object input) {
+        public Object serialize(Object input) {
             if (input instanceof Instant) {
-                return ((Instant) input).getEpochSecond();
+                Instant value = (Instant) input;
+                if (format == TemporalFormat.ISO)
+                    return DateTimeFormatter.ISO_INSTANT.format(value);
+
+                return format == TemporalFormat.EPOCH_MILLIS ? value.toEpochMilli() : value.getEpochSecond();
             }
             throw new CoercingSerializeException(
-                    "Expected type 'Instant' but was '" + input.getClass().getSimpleName() + "'.");
+                    "Expected type 'Instant' but was '" + (input != null ? input.getClass().getSimpleName() : null) + "'.");
         }
 
         @Override
         public Instant parseValue(Object input) {
-            if (input instanceof Long) {
-                return Instant.ofEpochSecond((Long) input);
-            } else if (input instanceof Integer) {
-                return Instant.ofEpochSecond((Integer) input);
+            if (input instanceof Long || input instanceof Integer) {
+                return toInstant(((Number) input).longValue());
+            } else if (input instanceof Instant) {
+                return (Instant) input;
+            } else if (input instanceof String) {
+                return parse((String) input);
             }
             throw new CoercingSerializeException(
-                    "Expected type 'Long' or 'Integer' but was '" + input.getClass().getSimpleName() + "'.");
+                    "Expected type 'Long' or 'Integer' but was '" + (input != null ? input.getClass().getSimpleName() : null) + "'.");
         }
 
         @Override
         public Instant parseLiteral(Object input) {
-            if (input instanceof IntValue) {
-                return Instant.ofEpochSecond(((IntValue) input).getValue().longValue());
-            }
+            if (input instanceof IntValue)
+                return toInstant(((IntValue) input).getValue().longValue());
+            else if (input instanceof StringValue)
+                return parse(((StringValue) input).getValue());
+
             return null;
         }
 
-    });
-
-    public static GraphQLScalarType GraphQLLocalDate = new GraphQLScalarType("LocalDate", "Date type", new Coercing() {
-        @Override
-        public Object serialize(Object input) {
-            if (input instanceof String) {
-                return parseStringToLocalDate((String) input);
-            } else if (input instanceof LocalDate) {
-                return input;
-            } else if (input instanceof Long) {
-                return parseLongToLocalDate((Long) input);
-            } else if (input instanceof Integer) {
-                return parseLongToLocalDate((Integer) input);
+        private Instant parse(String input) {
+            try {
+                return Instant.parse(input);
+            } catch (DateTimeException e) {
+                invalid.warn(input, e);
+                return null;
             }
-            return null;
         }
+    }
+
+    private class LocalDateCoercing implements Coercing<Object, Object> {
+
+        private final RateLimitedLog invalid = new RateLimitedLog("LocalDate");
 
         @Override
-        public Object parseValue(Object input) {
-            return serialize(input);
+        public Object serialize(Object input) {
+            LocalDate value = input instanceof LocalDate ? (LocalDate) input : parseValue(input);
+            if (value == null || format == TemporalFormat.NATIVE)
+                return value;
+
+            if (format == TemporalFormat.ISO)
+                return DateTimeFormatter.ISO_LOCAL_DATE.format(value);
+
+            return value.atStartOfDay(zone).toInstant().toEpochMilli();
         }
 
         @Override
-        public Object parseLiteral(Object input) {
-            if (input instanceof StringValue) {
-                return parseStringToLocalDate(((StringValue) input).getValue());
-            } else if (input instanceof IntValue) {
-                BigInteger value = ((IntValue) input).getValue();
-                return parseLongToLocalDate(value.longValue());
-            }
+        public LocalDate parseValue(Object input) {
+            if (input instanceof LocalDate)
+                return (LocalDate) input;
+            else if (input instanceof String)
+                return parse((String) input);
+            else if (input instanceof Long || input instanceof Integer)
+                return LocalDateTime.ofInstant(toInstant(((Number) input).longValue()), zone).toLocalDate();
+
             return null;
         }
 
-        private LocalDate parseLongToLocalDate(long input) {
-            return LocalDateTime.ofInstant(Instant.ofEpochSecond(input), TimeZone.getDefault().toZoneId()).toLocalDate();
+        @Override
+        public LocalDate parseLiteral(Object input) {
+            if (input instanceof StringValue)
+                return parse(((StringValue) input).getValue());
+            else if (input instanceof IntValue)
+                return LocalDateTime.ofInstant(toInstant(((IntValue) input).getValue().longValue()), zone).toLocalDate();
+
+            return null;
         }
 
-        private LocalDate parseStringToLocalDate(String input) {
+        private LocalDate parse(String input) {
             try {
                 return LocalDate.parse(input);
-            } catch (DateTimeParseException e) {
-                log.warn("Failed to parse Date from input: " + input, e);
+            } catch (DateTimeException e) {
+                invalid.warn(input, e);
                 return null;
             }
         }
-    });
+    }
 
-    public static GraphQLScalarType GraphQLDate = new GraphQLScalarType("Date", "Date type", new Coercing() {
+    private class DateCoercing implements Coercing<Object, Object> {
+
+        private final RateLimitedLog invalid = new RateLimitedLog("Date");
 
         @Override
         public Object serialize(Object input) {
-            if (input instanceof String) {
-                return parseStringToDate((String) input);
-            } else if (input instanceof Date) {
-                return input;
-            } else if (input instanceof Long) {
-                return new Date(((Long) input).longValue());
-            } else if (input instanceof Integer) {
-                return new Date(((Integer) input).longValue());
-            }
-            return null;
+            Date value = input instanceof Date ? (Date) input : parseValue(input);
+            if (value == null || format == TemporalFormat.NATIVE)
+                return value;
+
+            if (format == TemporalFormat.ISO)
+                return DateTimeFormatter.ISO_INSTANT.format(value.toInstant());
+
+            return value.getTime();
         }
 
         @Override
-        public Object parseValue(Object input) {
-            return serialize(input);
+        public Date parseValue(Object input) {
+            if (input instanceof Date)
+                return (Date) input;
+            else if (input instanceof String)
+                return parse((String) input);
+            else if (input instanceof Long || input instanceof Integer)
+                return new Date(((Number) input).longValue());
+
+            return null;
         }
 
         @Override
-        public Object parseLiteral(Object input) {
-            if (input instanceof StringValue) {
-                return parseStringToDate(((StringValue) input).getValue());
-            } else if (input instanceof IntValue) {
-                BigInteger value = ((IntValue) input).getValue();
-                return new Date(value.longValue());
-            }
+        public Date parseLiteral(Object input) {
+            if (input instanceof StringValue)
+                return parse(((StringValue) input).getValue());
+            else if (input instanceof IntValue)
+                return new Date(((IntValue) input).getValue().longValue());
+
             return null;
         }
 
-        private Date parseStringToDate(String input) {
+        private Date parse(String input) {
             try {
-                return DateFormat.getInstance().parse(input);
-            } catch (ParseException e) {
-                log.warn("Failed to parse Date from input: " + input, e);
+                // ISO instants, as written in the ISO format, contain a 'T'; the localized format never does
+                if (input.indexOf('T') >= 0)
+                    return Date.from(Instant.parse(input));
+
+                return Date.from(LocalDateTime.parse(input, localizedDateTimeFormatter).atZone(zone).toInstant());
+            } catch (DateTimeException e) {
+                invalid.warn(input, e);
                 return null;
             }
         }
-    });
+    }
+
+    private static class UUIDCoercing implements Coercing<Object, Object> {
 
-    public static GraphQLScalarType GraphQLUUID = new GraphQLScalarType("UUID", "UUID type", new Coercing() {
+        private final RateLimitedLog invalid = new RateLimitedLog("UUID");
 
         @Override
         public Object serialize(Object input) {
             if (input instanceof UUID) {
-                return  input;
+                return input;
             }
             return null;
         }
 
         @Override
         public Object parseValue(Object input) {
-           if (input instanceof String) {
-                return parseStringToUUID((String) input);
+            if (input instanceof String) {
+                return parse((String) input);
+            } else if (input instanceof UUID) {
+                return input;
             }
             return null;
         }
@@ -207,18 +371,83 @@ public class JavaScalars {
         @Override
         public Object parseLiteral(Object input) {
             if (input instanceof StringValue) {
-                return parseStringToUUID(((StringValue) input).getValue());
+                return parse(((StringValue) input).getValue());
             }
             return null;
         }
 
-        private UUID parseStringToUUID(String input) {
+        private UUID parse(String input) {
+            UUID answer = parseCanonical(input);
+            if (answer != null)
+                return answer;
+
             try {
+                // Non-canonical forms, e.g. without leading zeros
                 return UUID.fromString(input);
             } catch (IllegalArgumentException e) {
-                log.warn("Failed to parse UUID from input: " + input, e);
+                invalid.warn(input, e);
                 return null;
             }
         }
-    });
+
+        /**
+         * Parses the canonical 8-4-4-4-12 form without allocating, unlike {@link UUID#fromString(String)}.
+         *
+         * @return The UUID, or null if the input is not in the canonical form.
+         */
+        private static UUID parseCanonical(String input) {
+            if (input.length() != 36 || input.charAt(8) != '-' || input.charAt(13) != '-' || input.charAt(18) != '-' || input.charAt(23) != '-')
+                return null;
+
+            long mostSignificantBits = 0;
+            long leastSignificantBits = 0;
+            int digits = 0;
+            for (int i = 0; i < 36; i++) {
+                if (i == 8 || i == 13 || i == 18 || i == 23)
+                    continue;
+
+                int digit = Character.digit(input.charAt(i), 16);
+                if (digit < 0)
+                    return null;
+
+                if (digits++ < 16)
+                    mostSignificantBits = (mostSignificantBits << 4) | digit;
+                else
+                    leastSignificantBits = (leastSignificantBits << 4) | digit;
+            }
+
+            return new UUID(mostSignificantBits, leastSignificantBits);
+        }
+    }
+
+    /**
+     * Logs invalid input of a scalar at most once per {@link #LOG_INTERVAL_MILLIS}, without the stack trace, and
+     * reports how many were suppressed meanwhile.
+     */
+    static final class RateLimitedLog {
+
+        private final String scalar;
+        private final AtomicLong nextLogNanos = new AtomicLong(System.nanoTime());
+        private final AtomicLong suppressed = new AtomicLong();
+
+        RateLimitedLog(String scalar) {
+            this.scalar = scalar;
+        }
+
+        /**
+         * @return True if the input was logged, false if it was suppressed.
+         */
+        boolean warn(String input, Exception e) {
+            long now = System.nanoTime();
+            long next = nextLogNanos.get();
+            if (now - next < 0 || !nextLogNanos.compareAndSet(next, now + TimeUnit.MILLISECONDS.toNanos(LOG_INTERVAL_MILLIS))) {
+                suppressed.incrementAndGet();
+                return false;
+            }
+
+            log.warn("Failed to parse {} from input: {} ({}); {} similar failures suppressed", scalar, input, e.getMessage(), suppressed.getAndSet(0));
+            return true;
+        }
+
+    }
 }
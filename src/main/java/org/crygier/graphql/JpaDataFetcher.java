@@ -4,17 +4,27 @@ import graphql.language.*;
 import graphql.schema.*;
 
 import javax.persistence.EntityManager;
+import javax.persistence.QueryTimeoutException;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
 import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.EntityType;
 import javax.persistence.metamodel.PluralAttribute;
 import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+import java.lang.invoke.MethodType;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class JpaDataFetcher implements DataFetcher {
 
+    static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
+
     protected EntityManager entityManager;
     protected EntityType<?> entityType;
 
@@ -25,57 +35,499 @@ public class JpaDataFetcher implements DataFetcher {
 
     @Override
     public Object get(DataFetchingEnvironment environment) {
-        return getQuery(environment, environment.getFields().iterator().next()).getResultList();
+        Field field = environment.getFields().iterator().next();
+        List<EntityManager> shards = getShardEntityManagers(environment);
+        if (isExplaining(environment)) {
+            CriteriaQuery<Object> criteria = getCriteriaQuery(environment, field, shards.get(0));
+            AssociationFetch fetch = getAssociationFetch(environment, field, false);
+            if (fetch != null)
+                fetch.join(criteria);
+
+            explain(environment, "query", shards.get(0), criteria, applyTimeout(environment, shards.get(0).createQuery(criteria)),
+                    countRows(environment, shards, it -> getCountCriteriaQuery(environment, field, it)));
+            return Collections.emptyList();
+        }
+
+        if (isFingerprinting(environment)) {
+            probe(environment, field);
+            return Collections.emptyList();
+        }
+
+        Object entity = getRememberedEntity(environment, field);
+        if (entity != null)
+            return Collections.singletonList(entity);
+
+        Argument idArgument = getIdArgument(field);
+        Object id = idArgument != null && shards.size() == 1 ? getIdValue(environment, idArgument) : null;
+        if (id != null)
+            return remember(environment, "query", field, () -> findById(environment, field, shards.get(0), id));
+
+        int maxResults = getRowLimit(environment, Integer.MAX_VALUE);
+        return remember(environment, "query", field, () -> {
+            if (shards.size() == 1)
+                return getResultList(environment, field, shards.get(0), 0, maxResults);
+
+            List<List<Object>> results = queryShards(environment, shards, it -> getResultList(environment, field, it, 0, maxResults));
+            return ShardedResults.merge(results, getOrderComparator(environment, field), 0, maxResults);
+        });
+    }
+
+    /**
+     * Returns the result of the given query if the operation already ran it for an identical field, and runs and
+     * remembers it otherwise. The entities returned are remembered by identifier too.
+     *
+     * @param kind What the query fetches for the field, e.g. its entities or their number.
+     */
+    protected <T> T remember(DataFetchingEnvironment environment, String kind, Field field, Supplier<T> query) {
+        OperationMemo memo = getMemo(environment);
+        if (memo == null)
+            return query.get();
+
+        String key = memo.getKey(entityType.getName(), kind, field);
+        Object answer = memo.get(key);
+        if (answer == null) {
+            answer = query.get();
+            memo.put(key, answer);
+            if (answer instanceof Collection && entityType.hasSingleIdAttribute())
+                memo.addEntities(entityType.getName(), getEntityManager(environment).getEntityManagerFactory().getPersistenceUnitUtil(), (Collection<?>) answer);
+        }
+
+        return (T) answer;
+    }
+
+    /**
+     * @return The entity selected by the given field if it selects an entity by identifier alone, and the operation
+     *         already loaded it; null otherwise.
+     */
+    private Object getRememberedEntity(DataFetchingEnvironment environment, Field field) {
+        OperationMemo memo = getMemo(environment);
+        if (memo == null || ((OperationContext) environment.getContext()).getShardSet() != null)
+            return null;
+
+        Argument argument = getIdArgument(field);
+        Object id = argument != null ? getIdValue(environment, argument) : null;
+        return id != null ? memo.getEntity(entityType.getName(), id) : null;
+    }
+
+    /**
+     * @return The argument of the given field if it selects an entity by identifier alone, null otherwise.
+     */
+    private Argument getIdArgument(Field field) {
+        if (!entityType.hasSingleIdAttribute() || field.getArguments().size() != 1)
+            return null;
+
+        Argument argument = field.getArguments().get(0);
+        if (!argument.getName().equals(getIdName()))
+            return null;
+
+        return isRestrictedBySelection(field) ? null : argument;
+    }
+
+    /**
+     * @return The identifier the given argument selects, or null if it is not of the type of the identifier.
+     */
+    private Object getIdValue(DataFetchingEnvironment environment, Argument argument) {
+        Object id = convertValue(environment, argument, argument.getValue());
+        return MethodType.methodType(entityType.getIdType().getJavaType()).wrap().returnType().isInstance(id) ? id : null;
+    }
+
+    /**
+     * @return True if arguments of the fields selected below the given field restrict the entities it selects.
+     */
+    boolean isRestrictedBySelection(Field field) {
+        return getSelectedFields(field).stream().anyMatch(selectedField -> selectedField.getArguments().stream().anyMatch(it -> !"orderBy".equals(it.getName())));
+    }
+
+    String getIdName() {
+        return entityType.getId(entityType.getIdType().getJavaType()).getName();
+    }
+
+    /**
+     * Loads the entity of the given identifier with {@link EntityManager#find}, so it is served from the persistence
+     * context or the second-level cache if possible, and the associations selected below the given field as chosen by
+     * the {@link FetchPolicy} of the operation, if any.
+     */
+    private List<Object> findById(DataFetchingEnvironment environment, Field field, EntityManager entityManager, Object id) {
+        Object entity = find(entityManager, id);
+        if (entity == null)
+            return Collections.emptyList();
+
+        List<Object> answer = Collections.singletonList(entity);
+        AssociationFetch fetch = getAssociationFetch(environment, field, false);
+        if (fetch != null)
+            fetch.load(entityManager, answer);
+
+        return answer;
+    }
+
+    /**
+     * @return The entity of the given identifier, or null if there is none of the entity type of this fetcher.
+     */
+    protected Object find(EntityManager entityManager, Object id) {
+        Object answer = entityManager.find(entityType.getJavaType(), id);
+        // The identifier may belong to an entity of another subtype of the same hierarchy
+        return entityType.getJavaType().isInstance(answer) ? answer : null;
+    }
+
+    OperationMemo getMemo(DataFetchingEnvironment environment) {
+        Object context = environment.getContext();
+        return context instanceof OperationContext ? ((OperationContext) context).getMemo() : null;
+    }
+
+    /**
+     * Executes the query of the given field, loading the selected associations as chosen by the {@link FetchPolicy} of
+     * the operation, if any.
+     *
+     * @param firstResult The index of the first entity to return.
+     * @param maxResults The maximum number of entities to return, {@link Integer#MAX_VALUE} for all of them.
+     */
+    protected List<Object> getResultList(DataFetchingEnvironment environment, Field field, EntityManager entityManager, int firstResult, int maxResults) {
+        boolean paginated = firstResult > 0 || maxResults != Integer.MAX_VALUE;
+        AssociationFetch fetch = getAssociationFetch(environment, field, paginated);
+        if (fetch == null) {
+            TypedQuery<Object> query = getQuery(environment, field, entityManager);
+            return paginated ? query.setFirstResult(firstResult).setMaxResults(maxResults).getResultList() : query.getResultList();
+        }
+
+        CriteriaQuery<Object> criteria = getCriteriaQuery(environment, field, entityManager);
+        fetch.join(criteria);
+
+        TypedQuery<Object> query = trace(environment, entityManager, applyTimeout(environment, entityManager.createQuery(criteria)));
+        if (paginated)
+            query.setFirstResult(firstResult).setMaxResults(maxResults);
+
+        List<Object> results = query.getResultList();
+        fetch.load(entityManager, results);
+        return results;
+    }
+
+    /**
+     * @param maxResults The number of rows the query of a field would return without a {@link ResultBudget}.
+     * @return The number of rows the query may return within the budget of the operation, if any.
+     */
+    protected int getRowLimit(DataFetchingEnvironment environment, int maxResults) {
+        Object context = environment.getContext();
+        ResultBudgetUsage budget = context instanceof OperationContext ? ((OperationContext) context).getBudget() : null;
+        return budget != null ? budget.getRowLimit(maxResults) : maxResults;
+    }
+
+    /**
+     * @param paginated Whether the query of the field is paginated.
+     * @return How to fetch the associations selected below the given field, or null if the operation has no
+     *         {@link FetchPolicy}.
+     */
+    AssociationFetch getAssociationFetch(DataFetchingEnvironment environment, Field field, boolean paginated) {
+        FetchPolicy policy = getFetchPolicy(environment);
+        return policy != null ? new AssociationFetch(this, environment, policy, field, paginated) : null;
+    }
+
+    private FetchPolicy getFetchPolicy(DataFetchingEnvironment environment) {
+        Object context = environment.getContext();
+        return context instanceof OperationContext ? ((OperationContext) context).getFetchPolicy() : null;
+    }
+
+    /**
+     * Returns the {@link EntityManager} to execute against for the operation of the given environment. This is the
+     * manager of the {@link OperationContext} if one was given, and the manager this fetcher was created with
+     * otherwise.
+     */
+    protected EntityManager getEntityManager(DataFetchingEnvironment environment) {
+        Object context = environment.getContext();
+        if (context instanceof OperationContext && ((OperationContext) context).getEntityManager() != null)
+            return ((OperationContext) context).getEntityManager();
+
+        return entityManager;
+    }
+
+    /**
+     * Returns the managers the query of the given environment must run against. Unless the operation is sharded, this
+     * is just the manager returned by {@link #getEntityManager(DataFetchingEnvironment)}. For sharded operations it is
+     * either the single shard selected by the {@link ShardRouter}, or all shards.
+     */
+    protected List<EntityManager> getShardEntityManagers(DataFetchingEnvironment environment) {
+        Object context = environment.getContext();
+        if (!(context instanceof OperationContext) || ((OperationContext) context).getShardSet() == null)
+            return Collections.singletonList(getEntityManager(environment));
+
+        OperationContext operationContext = (OperationContext) context;
+        List<EntityManager> shards = operationContext.getShardEntityManagers();
+        OptionalInt shard = operationContext.getShardSet().getRouter().route(entityType, environment.getArguments());
+
+        return shard.isPresent() ? Collections.singletonList(shards.get(shard.getAsInt())) : shards;
+    }
+
+    /**
+     * Runs the given query against each of the given shards in parallel, using the pool of the {@link ShardSet}.
+     *
+     * @return The results of the shards, in the order of the given shards.
+     */
+    protected <T> List<T> queryShards(DataFetchingEnvironment environment, List<EntityManager> shards, Function<EntityManager, T> query) {
+        ExecutorService executorService = ((OperationContext) environment.getContext()).getShardSet().getExecutorService();
+        List<CompletableFuture<T>> results = shards.stream()
+                .map(it -> CompletableFuture.supplyAsync(() -> query.apply(it), executorService))
+                .collect(Collectors.toList());
+
+        try {
+            return results.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a comparator matching the ordering {@link #getQuery(DataFetchingEnvironment, Field)} applies for the
+     * given field on the shards of the operation, or null if the query is unordered.
+     */
+    protected Comparator<Object> getOrderComparator(DataFetchingEnvironment environment, Field field) {
+        Comparator<Object> valueOrder = ((OperationContext) environment.getContext()).getShardSet().getValueOrder();
+        Comparator<Object> comparator = null;
+
+        for (Field selectedField : getSelectedFields(field)) {
+            // Like the query, only the last orderBy argument takes effect
+            Optional<Argument> orderByArgument = selectedField.getArguments().stream().filter(it -> "orderBy".equals(it.getName())).findFirst();
+            if (orderByArgument.isPresent()) {
+                boolean descending = "DESC".equals(((EnumValue) orderByArgument.get().getValue()).getName());
+                comparator = ShardedResults.attributeComparator(entityType.getAttribute(selectedField.getName()), descending, valueOrder);
+            }
+        }
+
+        return comparator;
     }
 
     protected TypedQuery getQuery(DataFetchingEnvironment environment, Field field) {
+        return getQuery(environment, field, getEntityManager(environment));
+    }
+
+    protected TypedQuery getQuery(DataFetchingEnvironment environment, Field field, EntityManager entityManager) {
+        return trace(environment, entityManager, applyTimeout(environment, entityManager.createQuery(getCriteriaQuery(environment, field, entityManager))));
+    }
+
+    /**
+     * Builds the criteria of the query returned by {@link #getQuery(DataFetchingEnvironment, Field, EntityManager)}.
+     */
+    protected CriteriaQuery<Object> getCriteriaQuery(DataFetchingEnvironment environment, Field field, EntityManager entityManager) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Object> query = cb.createQuery((Class) entityType.getJavaType());
         Root root = query.from(entityType);
 
-        List<Argument> arguments = new ArrayList<>();
-
         // Loop through all of the fields being requested
-        field.getSelectionSet().getSelections().forEach(selection -> {
-            if (selection instanceof Field) {
-                Field selectedField = (Field) selection;
-
-                // "__typename" is part of the graphql introspection spec and has to be ignored by jpa
-                if(!"__typename".equals(selectedField.getName())) {
-
-                    Path fieldPath = root.get(selectedField.getName());
-
-                    // Process the orderBy clause
-                    Optional<Argument> orderByArgument = selectedField.getArguments().stream().filter(it -> "orderBy".equals(it.getName())).findFirst();
-                    if (orderByArgument.isPresent()) {
-                        if ("DESC".equals(((EnumValue) orderByArgument.get().getValue()).getName()))
-                            query.orderBy(cb.desc(fieldPath));
-                        else
-                            query.orderBy(cb.asc(fieldPath));
-                    }
-
-                    // Process arguments clauses
-                    arguments.addAll(selectedField.getArguments().stream()
-                            .filter(it -> !"orderBy".equals(it.getName()))
-                            .map(it -> new Argument(selectedField.getName() + "." + it.getName(), it.getValue()))
-                            .collect(Collectors.toList()));
-
-                    // Check if it's an object and the foreign side is One.  Then we can eagerly fetch causing an inner join instead of 2 queries
-                    if (fieldPath.getModel() instanceof SingularAttribute) {
-                        SingularAttribute attribute = (SingularAttribute) fieldPath.getModel();
-                        if (!attribute.isOptional() && (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE || attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.ONE_TO_ONE))
-                            root.fetch(selectedField.getName());
-                    }
-                }
+        getSelectedFields(field).forEach(selectedField -> {
+            Path fieldPath = root.get(selectedField.getName());
+
+            // Process the orderBy clause
+            Optional<Argument> orderByArgument = selectedField.getArguments().stream().filter(it -> "orderBy".equals(it.getName())).findFirst();
+            if (orderByArgument.isPresent()) {
+                if ("DESC".equals(((EnumValue) orderByArgument.get().getValue()).getName()))
+                    query.orderBy(cb.desc(fieldPath));
+                else
+                    query.orderBy(cb.asc(fieldPath));
+            }
+
+            // Check if it's an object and the foreign side is One.  Then we can eagerly fetch causing an inner join instead of 2 queries
+            // Operations with a FetchPolicy leave this to the AssociationFetch
+            if (fieldPath.getModel() instanceof SingularAttribute && getFetchPolicy(environment) == null) {
+                SingularAttribute attribute = (SingularAttribute) fieldPath.getModel();
+                if (!attribute.isOptional() && (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE || attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.ONE_TO_ONE))
+                    root.fetch(selectedField.getName());
             }
         });
 
+        query.where(getPredicates(cb, root, environment, field));
+
+        return query.distinct(true);
+    }
+
+    /**
+     * Builds a query counting the entities {@link #getCriteriaQuery(DataFetchingEnvironment, Field, EntityManager)}
+     * would return.
+     */
+    protected CriteriaQuery<Long> getCountCriteriaQuery(DataFetchingEnvironment environment, Field field, EntityManager entityManager) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root root = query.from(entityType);
+
+        query.select(cb.countDistinct(root));
+        query.where(getPredicates(cb, root, environment, field));
+
+        return query;
+    }
+
+    Predicate[] getPredicates(CriteriaBuilder cb, Root root, DataFetchingEnvironment environment, Field field) {
+        List<Argument> arguments = new ArrayList<>();
+
+        // Arguments of the selected fields restrict the value of that field
+        getSelectedFields(field).forEach(selectedField -> arguments.addAll(selectedField.getArguments().stream()
+                .filter(it -> !"orderBy".equals(it.getName()))
+                .map(it -> new Argument(selectedField.getName() + "." + it.getName(), it.getValue()))
+                .collect(Collectors.toList())));
+
         arguments.addAll(field.getArguments());
 
-        List<Predicate> predicates = arguments.stream().map(it -> getPredicate(cb, root, environment, it)).collect(Collectors.toList());
-        query.where(predicates.toArray(new Predicate[predicates.size()]));
+        return arguments.stream().map(it -> getPredicate(cb, root, environment, it)).toArray(Predicate[]::new);
+    }
+
+    List<Field> getSelectedFields(Field field) {
+        // "__typename" is part of the graphql introspection spec and has to be ignored by jpa
+        return field.getSelectionSet().getSelections().stream()
+                .filter(it -> it instanceof Field)
+                .map(it -> (Field) it)
+                .filter(it -> !"__typename".equals(it.getName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return True if the operation of the given environment is being explained, in which case the data fetcher
+     *         should only plan its queries with {@link #explain}, rather than fetch any entities.
+     */
+    protected boolean isExplaining(DataFetchingEnvironment environment) {
+        Object context = environment.getContext();
+        return context instanceof OperationContext && ((OperationContext) context).getQueryPlan() != null;
+    }
+
+    /**
+     * Adds the given query to the plan of the operation being explained.
+     *
+     * @param kind The kind of query, e.g. 'query' or 'count'.
+     * @param entityManager The manager that created the query.
+     * @param criteria The criteria the query was created from.
+     * @param query The query, which is not executed.
+     * @param rowCount The number of rows matching the restrictions of the query, regardless of its pagination.
+     */
+    protected void explain(DataFetchingEnvironment environment, String kind, EntityManager entityManager, CriteriaQuery<?> criteria, TypedQuery<?> query, long rowCount) {
+        QueryPlan plan = ((OperationContext) environment.getContext()).getQueryPlan();
+        plan.add(environment.getFieldTypeInfo().getPath().toString(), entityType.getName(), kind, entityManager, criteria, query, rowCount);
+    }
+
+    /**
+     * @return True if only the ETag of the operation of the given environment is computed, in which case the data
+     *         fetcher should only {@link #probe} the entities it selects, rather than fetch them.
+     */
+    protected boolean isFingerprinting(DataFetchingEnvironment environment) {
+        Object context = environment.getContext();
+        return context instanceof OperationContext && ((OperationContext) context).getFingerprint() != null;
+    }
+
+    /**
+     * Adds a probe of the entities the given field selects to the fingerprint of the operation: their number, the sum
+     * of their versions and their greatest identifier, and the same of the associated entities selected below the
+     * field. The fingerprint is marked incomplete if any of these entities has no version.
+     */
+    protected void probe(DataFetchingEnvironment environment, Field field) {
+        ResultFingerprint fingerprint = ((OperationContext) environment.getContext()).getFingerprint();
+        List<EntityManager> shards = getShardEntityManagers(environment);
+        List<Object> values = new ArrayList<>();
+        for (EntityManager shard : shards) {
+            CriteriaQuery<Object[]> criteria = getProbeCriteriaQuery(environment, field, shard);
+            if (criteria == null) {
+                fingerprint.incomplete();
+                return;
+            }
+
+            values.addAll(Arrays.asList(trace(environment, shard, applyTimeout(environment, shard.createQuery(criteria))).getSingleResult()));
+        }
+
+        fingerprint.probed(environment.getFieldTypeInfo().getPath().toString(), values);
+    }
+
+    /**
+     * Builds the query probing the entities the given field selects, or returns null if they can't be probed.
+     */
+    private CriteriaQuery<Object[]> getProbeCriteriaQuery(DataFetchingEnvironment environment, Field field, EntityManager entityManager) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root root = query.from(entityType);
+
+        List<javax.persistence.criteria.Selection<?>> selections = new ArrayList<>();
+        selections.add(cb.countDistinct(root));
+        if (!addProbeSelections(cb, root, entityType, field, selections))
+            return null;
+
+        query.multiselect(selections);
+        query.where(getPredicates(cb, root, environment, field));
+
+        return query;
+    }
+
+    private boolean addProbeSelections(CriteriaBuilder cb, From from, EntityType<?> type, Field field, List<javax.persistence.criteria.Selection<?>> selections) {
+        Optional<? extends SingularAttribute<?, ?>> version = type.getSingularAttributes().stream().filter(SingularAttribute::isVersion).findFirst();
+        if (!version.isPresent())
+            return false;
+
+        // Every update increments the version of a single entity, which only changes the sum of the versions. The
+        // greatest timestamp changes as well, and timestamps can't be summed.
+        Path versionPath = from.get(version.get().getName());
+        if (Number.class.isAssignableFrom(versionPath.getJavaType()) || versionPath.getJavaType().isPrimitive())
+            selections.add(cb.sum(versionPath));
+        else
+            selections.add(cb.greatest(versionPath));
+
+        if (type.hasSingleIdAttribute() && type.getIdType().getPersistenceType() == Type.PersistenceType.BASIC)
+            selections.add(cb.greatest(from.get(type.getId(type.getIdType().getJavaType()).getName())));
+
+        for (Field selectedField : getSelectedFields(field)) {
+            // Embedded attributes and element collections are covered by the version of their entity
+            Attribute<?, ?> attribute = type.getAttribute(selectedField.getName());
+            if (!attribute.isAssociation())
+                continue;
+
+            Type<?> target = attribute instanceof PluralAttribute ? ((PluralAttribute<?, ?, ?>) attribute).getElementType() : ((SingularAttribute<?, ?>) attribute).getType();
+            if (!(target instanceof EntityType))
+                return false;
+
+            Join join = from.join(selectedField.getName(), JoinType.LEFT);
+            selections.add(cb.count(join));
+            if (!addProbeSelections(cb, join, (EntityType<?>) target, selectedField, selections))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Executes the given count query against the given shards.
+     *
+     * @return The sum of the counts of all shards.
+     */
+    protected long countRows(DataFetchingEnvironment environment, List<EntityManager> shards, Function<EntityManager, CriteriaQuery<Long>> countQuery) {
+        Function<EntityManager, Long> count = it -> applyTimeout(environment, it.createQuery(countQuery.apply(it))).getSingleResult();
+        if (shards.size() == 1)
+            return count.apply(shards.get(0));
+
+        return queryShards(environment, shards, count).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Limits the execution time of the given query to what is left of the deadline of the operation, if any.
+     *
+     * @throws QueryTimeoutException If the deadline has already passed.
+     */
+    protected <T> TypedQuery<T> applyTimeout(DataFetchingEnvironment environment, TypedQuery<T> query) {
+        Object context = environment.getContext();
+        if (context instanceof OperationContext && ((OperationContext) context).hasDeadline()) {
+            long remainingMillis = ((OperationContext) context).getRemainingMillis();
+            if (remainingMillis <= 0)
+                throw new QueryTimeoutException("The deadline of the operation has passed");
+
+            // Providers commonly round the timeout to whole seconds, so round up to never end up with no timeout at all
+            query.setHint(QUERY_TIMEOUT_HINT, (int) Math.min((remainingMillis + 999) / 1000 * 1000, Integer.MAX_VALUE));
+        }
+
+        return query;
+    }
+
+    /**
+     * Adds the given query to the trace of the operation, if it is traced, so it shows up in the
+     * {@link SlowOperationLog}.
+     */
+    protected <T> TypedQuery<T> trace(DataFetchingEnvironment environment, EntityManager entityManager, TypedQuery<T> query) {
+        Object context = environment.getContext();
+        if (context instanceof OperationContext && ((OperationContext) context).getTrace() != null)
+            ((OperationContext) context).getTrace().queryExecuted(entityManager, query);
 
-        return entityManager.createQuery(query.distinct(true));
+        return query;
     }
 
     private Predicate getPredicate(CriteriaBuilder cb, Root root, DataFetchingEnvironment environment, Argument argument) {
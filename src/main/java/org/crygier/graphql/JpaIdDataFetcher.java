@@ -0,0 +1,152 @@
+package org.crygier.graphql;
+
+import graphql.language.Field;
+import graphql.schema.DataFetchingEnvironment;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Fetches entities by identifier, for the {@code <Entity>ById} and {@code <Entity>ByIds} query fields. Entities the
+ * operation already loaded, entities held by the second-level cache, and single entities are looked up with
+ * {@link EntityManager#find}, so they are served from the persistence context or the cache if possible; the others are
+ * queried in batches of {@link #BATCH_SIZE}. The entities are returned in the order of their identifiers, with null
+ * for identifiers without an entity.
+ */
+public class JpaIdDataFetcher extends JpaDataFetcher {
+
+    /**
+     * The maximum number of identifiers queried at once.
+     */
+    static final int BATCH_SIZE = 100;
+
+    private final boolean multiple;
+
+    /**
+     * @param multiple Whether the field selects a list of entities by the {@value GraphQLSchemaBuilder#IDS_PARAM_NAME}
+     *                 argument, rather than a single entity by the {@value GraphQLSchemaBuilder#ID_PARAM_NAME} argument.
+     */
+    public JpaIdDataFetcher(EntityManager entityManager, EntityType<?> entityType, boolean multiple) {
+        super(entityManager, entityType);
+        this.multiple = multiple;
+    }
+
+    @Override
+    public Object get(DataFetchingEnvironment environment) {
+        Field field = environment.getFields().iterator().next();
+        List<EntityManager> shards = getShardEntityManagers(environment);
+        if (isExplaining(environment)) {
+            CriteriaQuery<Object> criteria = getCriteriaQuery(environment, field, shards.get(0));
+            explain(environment, "query", shards.get(0), criteria, applyTimeout(environment, shards.get(0).createQuery(criteria)),
+                    countRows(environment, shards, it -> getCountCriteriaQuery(environment, field, it)));
+            return multiple ? Collections.emptyList() : null;
+        }
+
+        if (isFingerprinting(environment)) {
+            probe(environment, field);
+            return multiple ? Collections.emptyList() : null;
+        }
+
+        List<Object> ids = getIds(environment);
+        List<Object> entities = remember(environment, "query", field, () -> {
+            if (shards.size() == 1)
+                return load(environment, field, shards.get(0), ids);
+
+            // Every entity lives on a single shard
+            List<List<Object>> results = queryShards(environment, shards, it -> load(environment, field, it, ids));
+            List<Object> answer = new ArrayList<>(results.get(0));
+            for (List<Object> result : results) {
+                for (int i = 0; i < answer.size(); i++) {
+                    if (answer.get(i) == null)
+                        answer.set(i, result.get(i));
+                }
+            }
+
+            return answer;
+        });
+
+        return multiple ? entities : entities.get(0);
+    }
+
+    private List<Object> getIds(DataFetchingEnvironment environment) {
+        if (multiple)
+            return environment.getArgument(GraphQLSchemaBuilder.IDS_PARAM_NAME);
+
+        return Collections.singletonList(environment.getArgument(GraphQLSchemaBuilder.ID_PARAM_NAME));
+    }
+
+    /**
+     * @return The entities of the given identifiers in their order, null for identifiers without an entity.
+     */
+    private List<Object> load(DataFetchingEnvironment environment, Field field, EntityManager entityManager, List<Object> ids) {
+        Object context = environment.getContext();
+        boolean sharded = context instanceof OperationContext && ((OperationContext) context).getShardSet() != null;
+        OperationMemo memo = sharded ? null : getMemo(environment);
+        boolean restricted = isRestrictedBySelection(field);
+
+        List<Object> answer = new ArrayList<>(Collections.nCopies(ids.size(), null));
+        Map<Object, List<Integer>> pending = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object id = ids.get(i);
+            Object entity = memo != null && !restricted ? memo.getEntity(entityType.getName(), id) : null;
+            if (entity != null)
+                answer.set(i, entity);
+            else if (!restricted && (ids.size() == 1 || entityManager.getEntityManagerFactory().getCache().contains(entityType.getJavaType(), id)))
+                answer.set(i, find(entityManager, id));
+            else
+                pending.computeIfAbsent(id, it -> new ArrayList<>()).add(i);
+        }
+
+        PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<Object> pendingIds = new ArrayList<>(pending.keySet());
+        for (int i = 0; i < pendingIds.size(); i += BATCH_SIZE) {
+            IdBatch batch = new IdBatch(field, pendingIds.subList(i, Math.min(i + BATCH_SIZE, pendingIds.size())));
+            List<Object> entities = trace(environment, entityManager, applyTimeout(environment, entityManager.createQuery(getCriteriaQuery(environment, batch, entityManager)))).getResultList();
+            for (Object entity : entities)
+                pending.getOrDefault(util.getIdentifier(entity), Collections.emptyList()).forEach(it -> answer.set(it, entity));
+        }
+
+        AssociationFetch fetch = getAssociationFetch(environment, field, false);
+        if (fetch != null)
+            fetch.load(entityManager, answer.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList()));
+
+        return answer;
+    }
+
+    @Override
+    Predicate[] getPredicates(CriteriaBuilder cb, Root root, DataFetchingEnvironment environment, Field field) {
+        // The selected fields restrict the entities as usual, while the arguments of the field are the identifiers
+        List<Predicate> answer = new ArrayList<>(Arrays.asList(super.getPredicates(cb, root, environment, new Field(field.getName(), field.getSelectionSet()))));
+        answer.add(root.get(getIdName()).in(field instanceof IdBatch ? ((IdBatch) field).ids : getIds(environment)));
+
+        return answer.toArray(new Predicate[0]);
+    }
+
+    /**
+     * The field being fetched, restricted to a batch of its identifiers.
+     */
+    private static class IdBatch extends Field {
+
+        private final List<Object> ids;
+
+        private IdBatch(Field field, List<Object> ids) {
+            super(field.getName(), field.getSelectionSet());
+            this.ids = ids;
+        }
+
+    }
+
+}
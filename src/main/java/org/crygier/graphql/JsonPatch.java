@@ -0,0 +1,76 @@
+package org.crygier.graphql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Computes the JSON Patch (RFC 6902) turning one result of an operation into another. Objects are compared member by
+ * member and arrays element by element, so a changed field is replaced on its own rather than with the object or
+ * array holding it. Elements added to or removed from the end of an array are added or removed one by one.
+ */
+final class JsonPatch {
+
+    private JsonPatch() {
+    }
+
+    /**
+     * @return The operations of the patch, in the order they are to be applied; empty if the values are equal.
+     */
+    static List<Map<String, Object>> diff(Object source, Object target) {
+        List<Map<String, Object>> answer = new ArrayList<>();
+        diff("", source, target, answer);
+        return answer;
+    }
+
+    private static void diff(String path, Object source, Object target, List<Map<String, Object>> patch) {
+        if (Objects.equals(source, target))
+            return;
+
+        if (source instanceof Map && target instanceof Map) {
+            Map<?, ?> sourceMap = (Map<?, ?>) source;
+            Map<?, ?> targetMap = (Map<?, ?>) target;
+            for (Map.Entry<?, ?> entry : sourceMap.entrySet()) {
+                String member = path + '/' + escape(String.valueOf(entry.getKey()));
+                if (!targetMap.containsKey(entry.getKey()))
+                    patch.add(operation("remove", member, null, false));
+                else
+                    diff(member, entry.getValue(), targetMap.get(entry.getKey()), patch);
+            }
+            for (Map.Entry<?, ?> entry : targetMap.entrySet()) {
+                if (!sourceMap.containsKey(entry.getKey()))
+                    patch.add(operation("add", path + '/' + escape(String.valueOf(entry.getKey())), entry.getValue(), true));
+            }
+        } else if (source instanceof List && target instanceof List) {
+            List<?> sourceList = (List<?>) source;
+            List<?> targetList = (List<?>) target;
+            int common = Math.min(sourceList.size(), targetList.size());
+            for (int i = 0; i < common; i++)
+                diff(path + '/' + i, sourceList.get(i), targetList.get(i), patch);
+            // Remove from the end, so the indices of the remaining elements stay valid
+            for (int i = sourceList.size() - 1; i >= common; i--)
+                patch.add(operation("remove", path + '/' + i, null, false));
+            for (int i = common; i < targetList.size(); i++)
+                patch.add(operation("add", path + "/-", targetList.get(i), true));
+        } else {
+            patch.add(operation("replace", path, target, true));
+        }
+    }
+
+    private static Map<String, Object> operation(String op, String path, Object value, boolean hasValue) {
+        Map<String, Object> answer = new LinkedHashMap<>();
+        answer.put("op", op);
+        answer.put("path", path);
+        if (hasValue)
+            answer.put("value", value);
+
+        return answer;
+    }
+
+    private static String escape(String member) {
+        return member.replace("~", "~0").replace("/", "~1");
+    }
+
+}
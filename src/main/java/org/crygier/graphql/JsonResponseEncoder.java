@@ -0,0 +1,35 @@
+package org.crygier.graphql;
+
+import graphql.ExecutionResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes results as UTF-8 encoded JSON. Values of the {@link JavaScalars} are written as their string representation.
+ */
+public class JsonResponseEncoder implements ResponseEncoder {
+
+    @Override
+    public String getContentType() {
+        return "application/json";
+    }
+
+    @Override
+    public void encode(ExecutionResult result, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        try {
+            Json.write(result.toSpecification(), writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        // Flush the writer's buffer only, leaving the stream to the caller
+        writer.flush();
+    }
+
+}
@@ -0,0 +1,73 @@
+package org.crygier.graphql;
+
+import java.util.Map;
+
+/**
+ * An operation registered with a {@link LiveQueryRegistry}. Its result is kept up to date as the entities it depends
+ * on change, and every change is delivered to its {@link LiveQueryTransport}.
+ */
+public class LiveQuery implements AutoCloseable {
+
+    private final LiveQueryRegistry registry;
+    private final String id;
+    private final String query;
+    private final Map<String, Object> variables;
+    private final LiveQueryTransport transport;
+    private volatile Map<String, Object> result;
+    private volatile LiveQueryDependencies dependencies;
+
+    LiveQuery(LiveQueryRegistry registry, String id, String query, Map<String, Object> variables, LiveQueryTransport transport) {
+        this.registry = registry;
+        this.id = id;
+        this.query = query;
+        this.variables = variables;
+        this.transport = transport;
+    }
+
+    /**
+     * @return The identifier of this live query, unique within its registry.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @return The variables of the query, may be null.
+     */
+    public Map<String, Object> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return The result last delivered to the subscriber, in the format of the GraphQL specification.
+     */
+    public Map<String, Object> getResult() {
+        return result;
+    }
+
+    LiveQueryTransport getTransport() {
+        return transport;
+    }
+
+    LiveQueryDependencies getDependencies() {
+        return dependencies;
+    }
+
+    void evaluated(Map<String, Object> result, LiveQueryDependencies dependencies) {
+        this.result = result;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Unregisters this live query, so no more changes are delivered.
+     */
+    @Override
+    public void close() {
+        registry.unregister(this);
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.crygier.graphql;
+
+import graphql.schema.DataFetcher;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the entities an evaluation of a {@link LiveQuery} depends on. The entities fetched by any field are recorded
+ * by identifier; the entity types selected by the root fields are recorded as a whole, as any change to their
+ * entities, including new ones, may change which entities the root fields select.
+ */
+class LiveQueryDependencies {
+
+    private final LiveQueryRegistry registry;
+    private final Set<String> entityTypes = ConcurrentHashMap.newKeySet();
+    private final Set<List<Object>> entities = ConcurrentHashMap.newKeySet();
+
+    LiveQueryDependencies(LiveQueryRegistry registry) {
+        this.registry = registry;
+    }
+
+    void fieldFetched(DataFetcher<?> dataFetcher, boolean root, Object result) {
+        if (root && dataFetcher instanceof JpaDataFetcher)
+            entityTypes.add(((JpaDataFetcher) dataFetcher).entityType.getName());
+
+        if (result instanceof Collection)
+            ((Collection<?>) result).forEach(this::add);
+        else
+            add(result);
+    }
+
+    private void add(Object value) {
+        if (value == null)
+            return;
+
+        List<String> entityNames = registry.getEntityNames(value.getClass());
+        if (!entityNames.isEmpty())
+            entities.add(key(entityNames, registry.getIdentifier(value)));
+    }
+
+    /**
+     * @param entityNames The names of the entity type of the changed entity and its supertypes, the root last.
+     * @param id The identifier of the changed entity.
+     * @return True if the change may change the result of the live query.
+     */
+    boolean isAffectedBy(List<String> entityNames, Object id) {
+        for (String entityName : entityNames) {
+            if (entityTypes.contains(entityName))
+                return true;
+        }
+
+        return entities.contains(key(entityNames, id));
+    }
+
+    Set<String> getEntityTypes() {
+        return entityTypes;
+    }
+
+    Set<List<Object>> getEntities() {
+        return entities;
+    }
+
+    private static List<Object> key(List<String> entityNames, Object id) {
+        // Identifiers are unique within a hierarchy, and proxies may be typed after any of its entity types
+        return Arrays.asList(entityNames.get(entityNames.size() - 1), id);
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.crygier.graphql;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * A JPA entity listener reporting every persisted, updated and removed entity to the open {@link LiveQueryRegistry}
+ * instances. Register it on the entities live queries depend on with {@link javax.persistence.EntityListeners}, or on
+ * all entities as a default entity listener in the orm.xml of the persistence unit.
+ */
+public class LiveQueryListener {
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void entityChanged(Object entity) {
+        LiveQueryRegistry.entityChangedEverywhere(entity);
+    }
+
+}
@@ -0,0 +1,214 @@
+package org.crygier.graphql;
+
+import graphql.ExecutionResult;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the results of registered queries up to date, instead of having clients poll for them. Every evaluation of a
+ * {@link LiveQuery} records the entities it depends on: the entities fetched by its fields, and the entity types
+ * selected by its root fields. Changes to entities are reported through {@link #entityChanged(Object)}, which the
+ * {@link LiveQueryListener} does for the entities it is registered with, and collected until {@link #refresh()} is
+ * called. Only the live queries depending on a changed entity are then executed again, and the differences to their
+ * previous results are delivered to their {@link LiveQueryTransport} as a JSON Patch.
+ * <p>
+ * Call {@link #refresh()} once the changes are committed, e.g. from an after-commit hook or a scheduled task, and in the
+ * same setting the {@link GraphQLExecutor} is used in otherwise, e.g. within a read-only transaction.
+ */
+public class LiveQueryRegistry implements AutoCloseable {
+
+    private static final Set<LiveQueryRegistry> REGISTRIES = new CopyOnWriteArraySet<>();
+
+    private final GraphQLExecutor executor;
+    private final PersistenceUnitUtil persistenceUnitUtil;
+    private final Map<Class<?>, String> entityTypes = new HashMap<>();
+    private final Map<Class<?>, List<String>> entityNames = new ConcurrentHashMap<>();
+    private final Map<String, LiveQuery> liveQueries = new ConcurrentHashMap<>();
+    private final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    /**
+     * Creates a registry executing its live queries with the given executor, and starts listening for changes.
+     *
+     * @param executor The executor of the live queries.
+     */
+    public LiveQueryRegistry(GraphQLExecutor executor) {
+        EntityManager entityManager = executor.getEntityManager();
+        this.executor = executor;
+        this.persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        for (EntityType<?> entityType : entityManager.getMetamodel().getEntities())
+            entityTypes.put(entityType.getJavaType(), entityType.getName());
+
+        REGISTRIES.add(this);
+    }
+
+    /**
+     * Reports a change to the given entity to every open registry.
+     */
+    static void entityChangedEverywhere(Object entity) {
+        for (LiveQueryRegistry registry : REGISTRIES)
+            registry.entityChanged(entity);
+    }
+
+    /**
+     * Executes the given query and delivers its result, then keeps delivering the changes to its result until it is
+     * closed.
+     *
+     * @param query The GraphQL query to keep up to date.
+     * @param variables The variables of the query, may be null.
+     * @param transport Delivers the results to the subscriber.
+     * @return The live query.
+     * @throws IllegalArgumentException If the query is a mutation.
+     */
+    public synchronized LiveQuery register(String query, Map<String, Object> variables, LiveQueryTransport transport) {
+        if (executor.isMutation(executor.parse(query)))
+            throw new IllegalArgumentException("Only queries can be live");
+
+        LiveQuery liveQuery = new LiveQuery(this, Long.toString(ids.incrementAndGet()), query, variables, transport);
+        // Register before evaluating, so changes made meanwhile are picked up by the next refresh
+        liveQueries.put(liveQuery.getId(), liveQuery);
+        try {
+            evaluate(liveQuery);
+            transport.result(liveQuery, liveQuery.getResult());
+        } catch (RuntimeException e) {
+            liveQueries.remove(liveQuery.getId());
+            throw e;
+        }
+
+        return liveQuery;
+    }
+
+    void unregister(LiveQuery liveQuery) {
+        liveQueries.remove(liveQuery.getId());
+    }
+
+    /**
+     * @return The live queries currently registered.
+     */
+    public Collection<LiveQuery> getLiveQueries() {
+        return Collections.unmodifiableCollection(liveQueries.values());
+    }
+
+    /**
+     * Reports a change to the given entity. Nothing is executed until the next {@link #refresh()}, so this is safe to
+     * call from within a flush. Objects that aren't entities of the persistence unit of this registry are ignored.
+     *
+     * @param entity The entity that was persisted, updated or removed.
+     */
+    public void entityChanged(Object entity) {
+        List<String> names = getEntityNames(entity.getClass());
+        if (!names.isEmpty())
+            changes.add(new Change(names, getIdentifier(entity)));
+    }
+
+    /**
+     * Executes the live queries affected by the changes reported since the previous refresh, and delivers the changes
+     * to their results. A live query failing to execute again, or whose transport fails, is closed.
+     *
+     * @return The number of live queries executed.
+     */
+    public synchronized int refresh() {
+        List<Change> pending = new ArrayList<>();
+        for (Change change = changes.poll(); change != null; change = changes.poll())
+            pending.add(change);
+        if (pending.isEmpty())
+            return 0;
+
+        int answer = 0;
+        for (LiveQuery liveQuery : liveQueries.values()) {
+            if (pending.stream().noneMatch(it -> liveQuery.getDependencies().isAffectedBy(it.entityNames, it.id)))
+                continue;
+
+            // The changes are drained already, so a failing live query can't be refreshed later, and mustn't keep the
+            // others from being refreshed now
+            Map<String, Object> previous = liveQuery.getResult();
+            answer++;
+            try {
+                evaluate(liveQuery);
+            } catch (RuntimeException e) {
+                liveQuery.close();
+                continue;
+            }
+
+            List<Map<String, Object>> patch = JsonPatch.diff(previous, liveQuery.getResult());
+            if (patch.isEmpty())
+                continue;
+
+            try {
+                liveQuery.getTransport().patch(liveQuery, patch);
+            } catch (RuntimeException e) {
+                liveQuery.close();
+            }
+        }
+
+        return answer;
+    }
+
+    /**
+     * Stops listening for changes, and unregisters all live queries.
+     */
+    @Override
+    public void close() {
+        REGISTRIES.remove(this);
+        liveQueries.clear();
+        changes.clear();
+    }
+
+    private void evaluate(LiveQuery liveQuery) {
+        LiveQueryDependencies dependencies = new LiveQueryDependencies(this);
+        ExecutionResult result = executor.executeLive(liveQuery.getQuery(), liveQuery.getVariables(), dependencies);
+
+        // The extensions, e.g. the statistics, differ with every execution
+        Map<String, Object> specification = result.toSpecification();
+        specification.remove("extensions");
+        liveQuery.evaluated(specification, dependencies);
+    }
+
+    /**
+     * @return The names of the entity type of the given class and its supertypes, the root last; empty if the class is
+     *         no entity, or a proxy of one, of the persistence unit of this registry.
+     */
+    List<String> getEntityNames(Class<?> type) {
+        return entityNames.computeIfAbsent(type, it -> {
+            List<String> answer = new ArrayList<>();
+            for (Class<?> current = it; current != null; current = current.getSuperclass()) {
+                String name = entityTypes.get(current);
+                if (name != null)
+                    answer.add(name);
+            }
+
+            return answer;
+        });
+    }
+
+    Object getIdentifier(Object entity) {
+        return persistenceUnitUtil.getIdentifier(entity);
+    }
+
+    private static class Change {
+
+        private final List<String> entityNames;
+        private final Object id;
+
+        private Change(List<String> entityNames, Object id) {
+            this.entityNames = entityNames;
+            this.id = id;
+        }
+
+    }
+
+}
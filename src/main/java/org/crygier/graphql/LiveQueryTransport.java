@@ -0,0 +1,28 @@
+package org.crygier.graphql;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers the results of a {@link LiveQuery} to its subscriber, e.g. over a WebSocket or server-sent events. A
+ * subscriber first receives the complete result, then a JSON Patch (RFC 6902) whenever the result changes.
+ */
+public interface LiveQueryTransport {
+
+    /**
+     * Delivers the complete result of the live query, as it is registered.
+     *
+     * @param liveQuery The live query.
+     * @param result The result in the format of the GraphQL specification, i.e. its data and errors.
+     */
+    void result(LiveQuery liveQuery, Map<String, Object> result);
+
+    /**
+     * Delivers the changes to the result of the live query since the previous delivery.
+     *
+     * @param liveQuery The live query.
+     * @param patch The operations of the JSON Patch turning the previous result into the current one.
+     */
+    void patch(LiveQuery liveQuery, List<Map<String, Object>> patch);
+
+}
@@ -0,0 +1,130 @@
+package org.crygier.graphql;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.ZoneId;
+
+/**
+ * Writes results as MessagePack. Integers, strings, arrays and maps are written in their most compact format, and a
+ * {@link java.util.UUID} as a binary of 16 bytes.
+ */
+public class MessagePackResponseEncoder extends BinaryResponseEncoder {
+
+    /**
+     * Creates an encoder converting local values in the default time zone, as the default {@link JavaScalars} do.
+     */
+    public MessagePackResponseEncoder() {
+        this(ZoneId.systemDefault());
+    }
+
+    /**
+     * @param zone The time zone local values are converted in, i.e. the {@link JavaScalars#getZone() zone} of the
+     *             scalars of the executor.
+     */
+    public MessagePackResponseEncoder(ZoneId zone) {
+        super(zone);
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/msgpack";
+    }
+
+    @Override
+    protected void writeNull(DataOutputStream out) throws IOException {
+        out.write(0xc0);
+    }
+
+    @Override
+    protected void writeBoolean(boolean value, DataOutputStream out) throws IOException {
+        out.write(value ? 0xc3 : 0xc2);
+    }
+
+    @Override
+    protected void writeInteger(long value, DataOutputStream out) throws IOException {
+        if (value >= 0 && value < 0x80) {
+            out.write((int) value);
+        } else if (value >= -32 && value < 0) {
+            out.write(0xe0 | (int) (value + 32));
+        } else if (value >= 0 && value < 0x100) {
+            out.write(0xcc);
+            out.write((int) value);
+        } else if (value >= 0 && value < 0x10000) {
+            out.write(0xcd);
+            out.writeShort((int) value);
+        } else if (value >= 0 && value < 0x100000000L) {
+            out.write(0xce);
+            out.writeInt((int) value);
+        } else if (value >= 0) {
+            out.write(0xcf);
+            out.writeLong(value);
+        } else if (value >= Byte.MIN_VALUE) {
+            out.write(0xd0);
+            out.write((int) value);
+        } else if (value >= Short.MIN_VALUE) {
+            out.write(0xd1);
+            out.writeShort((int) value);
+        } else if (value >= Integer.MIN_VALUE) {
+            out.write(0xd2);
+            out.writeInt((int) value);
+        } else {
+            out.write(0xd3);
+            out.writeLong(value);
+        }
+    }
+
+    @Override
+    protected void writeDouble(double value, DataOutputStream out) throws IOException {
+        out.write(0xcb);
+        out.writeDouble(value);
+    }
+
+    @Override
+    protected void writeStringHeader(int length, DataOutputStream out) throws IOException {
+        if (length < 32) {
+            out.write(0xa0 | length);
+        } else if (length < 0x100) {
+            out.write(0xd9);
+            out.write(length);
+        } else if (length < 0x10000) {
+            out.write(0xda);
+            out.writeShort(length);
+        } else {
+            out.write(0xdb);
+            out.writeInt(length);
+        }
+    }
+
+    @Override
+    protected void writeUuid(byte[] bytes, DataOutputStream out) throws IOException {
+        out.write(0xc4);
+        out.write(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    protected void writeArrayHeader(int size, DataOutputStream out) throws IOException {
+        writeContainerHeader(size, 0x90, 0xdc, out);
+    }
+
+    @Override
+    protected void writeMapHeader(int size, DataOutputStream out) throws IOException {
+        writeContainerHeader(size, 0x80, 0xde, out);
+    }
+
+    /**
+     * Writes the header of an array or map, whose 32-bit format follows its 16-bit format.
+     */
+    private static void writeContainerHeader(int size, int fixFormat, int format16, DataOutputStream out) throws IOException {
+        if (size < 16) {
+            out.write(fixFormat | size);
+        } else if (size < 0x10000) {
+            out.write(format16);
+            out.writeShort(size);
+        } else {
+            out.write(format16 + 1);
+            out.writeInt(size);
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.crygier.graphql;
+
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+
+import java.util.Set;
+
+/**
+ * (Functional) Interface used by the {@link AdmissionController} to choose the lane an operation is admitted through.
+ */
+@FunctionalInterface
+public interface OperationClassifier {
+
+    /**
+     * Returns the name of the lane the given operation should wait in. If the lane is unknown to the
+     * {@link AdmissionController}, the default lane is used.
+     *
+     * @param document The parsed operation.
+     * @return The name of a lane.
+     */
+    String classify(Document document);
+
+    /**
+     * Creates a classifier sending operations that select any of the given root fields to the given lane.
+     *
+     * @param lane The lane for the expensive operations.
+     * @param rootFields The names of the expensive root fields.
+     * @return A classifier based on the selected root fields.
+     */
+    static OperationClassifier byRootField(String lane, Set<String> rootFields) {
+        return document -> document.getDefinitions().stream()
+                .filter(it -> it instanceof OperationDefinition)
+                .flatMap(it -> ((OperationDefinition) it).getSelectionSet().getSelections().stream())
+                .anyMatch(it -> it instanceof Field && rootFields.contains(((Field) it).getName())) ? lane : AdmissionController.DEFAULT_LANE;
+    }
+
+    /**
+     * Creates a classifier sending operations whose estimated cost exceeds the given threshold to the given lane. The
+     * cost is estimated as the number of fields selected in the document, so fragments count once no matter how often
+     * they are spread.
+     *
+     * @param lane The lane for the expensive operations.
+     * @param threshold The estimated cost above which an operation is expensive.
+     * @return A classifier based on the estimated cost.
+     */
+    static OperationClassifier byEstimatedCost(String lane, int threshold) {
+        return document -> AdmissionController.estimateCost(document) > threshold ? lane : AdmissionController.DEFAULT_LANE;
+    }
+
+}
@@ -0,0 +1,319 @@
+package org.crygier.graphql;
+
+import graphql.language.Document;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds the state belonging to a single operation executed by the {@link GraphQLExecutor}. An instance is handed to
+ * graphql-java as the execution context, and the data fetchers of this library use it to find the resources they
+ * should execute against.
+ */
+public class OperationContext {
+
+    private EntityManager entityManager;
+    private ShardSet shardSet;
+    private List<EntityManager> shardEntityManagers = Collections.emptyList();
+    private long deadline;
+    private boolean hasDeadline;
+    private final AtomicBoolean deadlineReported;
+    private OperationStatistics statistics;
+    private QueryPlan queryPlan;
+    private OperationTrace trace;
+    private FetchPolicy fetchPolicy;
+    private OperationMemo memo;
+    private ParallelRootFields parallelRootFields;
+    private LiveQueryDependencies dependencies;
+    private ResultFingerprint fingerprint;
+    private ResultBudgetUsage budget;
+    private Document document;
+    private String operationName;
+    private boolean batched;
+    private final long startNanos;
+
+    public OperationContext() {
+        this((EntityManager) null);
+    }
+
+    /**
+     * @param entityManager The {@link EntityManager} the data fetchers should use for this operation. May be null,
+     *                      in which case the data fetchers use the manager they were created with.
+     */
+    public OperationContext(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.deadlineReported = new AtomicBoolean();
+        this.startNanos = System.nanoTime();
+    }
+
+    private OperationContext(OperationContext operation, EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.deadline = operation.deadline;
+        this.hasDeadline = operation.hasDeadline;
+        this.deadlineReported = operation.deadlineReported;
+        this.statistics = operation.statistics;
+        this.trace = operation.trace;
+        this.fetchPolicy = operation.fetchPolicy;
+        this.memo = operation.memo != null ? operation.memo.fork() : null;
+        this.dependencies = operation.dependencies;
+        this.budget = operation.budget;
+        this.startNanos = operation.startNanos;
+    }
+
+    /**
+     * Creates the context of a root field fetched with a manager of its own. It shares the deadline, statistics, trace,
+     * dependencies and result budget of this context, but has a memo of its own, as its entities must not leak to the
+     * other managers.
+     */
+    OperationContext fork(EntityManager entityManager) {
+        return new OperationContext(this, entityManager);
+    }
+
+    /**
+     * @param entityManager The {@link EntityManager} the data fetchers should use for this operation.
+     * @return The same context.
+     */
+    public OperationContext entityManager(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        return this;
+    }
+
+    /**
+     * @return The {@link EntityManager} the data fetchers should use for this operation, or null if unspecified.
+     */
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    /**
+     * Makes the data fetchers query the given shards instead of the {@link EntityManager} of this context.
+     *
+     * @param shardSet The shards of this operation.
+     * @param shardEntityManagers The managers opened for this operation, one per shard in shard index order.
+     * @return The same context.
+     */
+    public OperationContext shards(ShardSet shardSet, List<EntityManager> shardEntityManagers) {
+        this.shardSet = shardSet;
+        this.shardEntityManagers = shardEntityManagers;
+        return this;
+    }
+
+    /**
+     * @return The shards of this operation, or null if the operation is not sharded.
+     */
+    public ShardSet getShardSet() {
+        return shardSet;
+    }
+
+    /**
+     * @return The managers of the shards of this operation, in shard index order.
+     */
+    public List<EntityManager> getShardEntityManagers() {
+        return shardEntityManagers;
+    }
+
+    /**
+     * @param deadline The {@link System#nanoTime()} after which no more data may be fetched for this operation.
+     * @return The same context.
+     */
+    public OperationContext deadline(long deadline) {
+        this.deadline = deadline;
+        this.hasDeadline = true;
+        return this;
+    }
+
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * @return The milliseconds left until the deadline passes, {@link Long#MAX_VALUE} if the operation has none.
+     */
+    public long getRemainingMillis() {
+        if (!hasDeadline)
+            return Long.MAX_VALUE;
+
+        return (deadline - System.nanoTime()) / 1_000_000;
+    }
+
+    public boolean isDeadlineExceeded() {
+        return hasDeadline && deadline - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @param statistics The statistics recording the persistence work of this operation.
+     * @return The same context.
+     */
+    public OperationContext statistics(OperationStatistics statistics) {
+        this.statistics = statistics;
+        return this;
+    }
+
+    /**
+     * @return The statistics of this operation, or null if none are recorded.
+     */
+    public OperationStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Makes the data fetchers add their queries to the given plan, instead of executing them.
+     *
+     * @param queryPlan The plan of this operation.
+     * @return The same context.
+     */
+    public OperationContext explain(QueryPlan queryPlan) {
+        this.queryPlan = queryPlan;
+        return this;
+    }
+
+    /**
+     * @return The plan the data fetchers add their queries to, or null if the operation is executed.
+     */
+    public QueryPlan getQueryPlan() {
+        return queryPlan;
+    }
+
+    /**
+     * @param fetchPolicy Chooses how the data fetchers load the associations selected by this operation.
+     * @return The same context.
+     */
+    public OperationContext fetchPolicy(FetchPolicy fetchPolicy) {
+        this.fetchPolicy = fetchPolicy;
+        return this;
+    }
+
+    /**
+     * @return The policy choosing how associations are loaded, or null if they are loaded lazily.
+     */
+    public FetchPolicy getFetchPolicy() {
+        return fetchPolicy;
+    }
+
+    /**
+     * @return The {@link System#nanoTime()} at which this operation started.
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    OperationContext trace(OperationTrace trace) {
+        this.trace = trace;
+        return this;
+    }
+
+    /**
+     * @return The trace of this operation, or null if the operation is not traced.
+     */
+    OperationTrace getTrace() {
+        return trace;
+    }
+
+    OperationContext parallelRootFields(ParallelRootFields parallelRootFields) {
+        this.parallelRootFields = parallelRootFields;
+        return this;
+    }
+
+    /**
+     * @return Fetches the root fields of this operation concurrently, or null if they are fetched one by one.
+     */
+    ParallelRootFields getParallelRootFields() {
+        return parallelRootFields;
+    }
+
+    OperationContext memo(OperationMemo memo) {
+        this.memo = memo;
+        return this;
+    }
+
+    /**
+     * @return The memo of the queries of this operation, or null if the queries are not remembered.
+     */
+    OperationMemo getMemo() {
+        return memo;
+    }
+
+    OperationContext document(Document document) {
+        this.document = document;
+        return this;
+    }
+
+    /**
+     * @return The parsed operation, or null if it could not be parsed.
+     */
+    Document getDocument() {
+        return document;
+    }
+
+    OperationContext operationName(String operationName) {
+        this.operationName = operationName;
+        return this;
+    }
+
+    /**
+     * @return The name of the operation to execute, or null if the document holds a single operation.
+     */
+    String getOperationName() {
+        return operationName;
+    }
+
+    OperationContext batched(boolean batched) {
+        this.batched = batched;
+        return this;
+    }
+
+    /**
+     * @return True if this operation is part of a batch, sharing its manager and memo with the other operations.
+     */
+    boolean isBatched() {
+        return batched;
+    }
+
+    OperationContext fingerprint(ResultFingerprint fingerprint) {
+        this.fingerprint = fingerprint;
+        return this;
+    }
+
+    /**
+     * @return Collects the probes the ETag of this operation is computed from, or null if the operation is executed.
+     */
+    ResultFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    OperationContext dependencies(LiveQueryDependencies dependencies) {
+        this.dependencies = dependencies;
+        return this;
+    }
+
+    /**
+     * @return Records the entities this operation depends on, or null if it is no {@link LiveQuery}.
+     */
+    LiveQueryDependencies getDependencies() {
+        return dependencies;
+    }
+
+    OperationContext budget(ResultBudgetUsage budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * @return The counters of this operation against its {@link ResultBudget}, or null if it has none.
+     */
+    ResultBudgetUsage getBudget() {
+        return budget;
+    }
+
+    /**
+     * Marks the exceeded deadline as reported, so the error is added to the result only once.
+     *
+     * @return True for the first caller only.
+     */
+    boolean reportDeadlineExceeded() {
+        return deadlineReported.compareAndSet(false, true);
+    }
+
+}
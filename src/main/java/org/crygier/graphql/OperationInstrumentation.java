@@ -0,0 +1,81 @@
+package org.crygier.graphql;
+
+import graphql.execution.instrumentation.NoOpInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingEnvironmentBuilder;
+
+import javax.persistence.QueryTimeoutException;
+
+/**
+ * Applies the per-operation settings of an {@link OperationContext} to every field fetched by graphql-java, including
+ * the fields not resolved by the data fetchers of this library, times them if the operation is traced, counts their
+ * results against the {@link ResultBudget} of the operation, and records the entities they fetch if the operation is a
+ * {@link LiveQuery}. The root fields resolved by this library are handed to the {@link ParallelRootFields} of the
+ * operation, if any.
+ */
+class OperationInstrumentation extends NoOpInstrumentation {
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher, InstrumentationFieldFetchParameters parameters) {
+        return environment -> {
+            Object context = environment.getContext();
+            if (context instanceof OperationContext && ((OperationContext) context).isDeadlineExceeded()) {
+                // Skip the remaining fields, reporting the reason just once
+                if (((OperationContext) context).reportDeadlineExceeded())
+                    throw new QueryTimeoutException("The deadline of the operation has passed");
+
+                return null;
+            }
+
+            // Stop fetching once the budget is spent, the truncation is reported with the result
+            ResultBudgetUsage budget = context instanceof OperationContext ? ((OperationContext) context).getBudget() : null;
+            if (budget != null && budget.isExhausted(environment))
+                return null;
+
+            // Only the root fields of this library can be probed, the results of the others are unknown
+            ResultFingerprint fingerprint = context instanceof OperationContext ? ((OperationContext) context).getFingerprint() : null;
+            if (fingerprint != null && !(dataFetcher instanceof JpaDataFetcher) && environment.getFieldTypeInfo().getPath().toList().size() == 1)
+                fingerprint.incomplete();
+
+            ParallelRootFields parallelRootFields = context instanceof OperationContext ? ((OperationContext) context).getParallelRootFields() : null;
+            if (parallelRootFields != null && dataFetcher instanceof JpaDataFetcher && environment.getFieldTypeInfo().getPath().toList().size() == 1)
+                return parallelRootFields.submit((OperationContext) context, it -> fetch(dataFetcher, DataFetchingEnvironmentBuilder.newDataFetchingEnvironment(environment).context(it).build()));
+
+            return fetch(dataFetcher, environment);
+        };
+    }
+
+    private static Object fetch(DataFetcher<?> dataFetcher, DataFetchingEnvironment environment) {
+        Object context = environment.getContext();
+        Object result = trace(dataFetcher, environment);
+
+        ResultBudgetUsage budget = context instanceof OperationContext ? ((OperationContext) context).getBudget() : null;
+        if (budget != null)
+            result = budget.fieldFetched(environment, result);
+
+        LiveQueryDependencies dependencies = context instanceof OperationContext ? ((OperationContext) context).getDependencies() : null;
+        if (dependencies != null)
+            dependencies.fieldFetched(dataFetcher, environment.getFieldTypeInfo().getPath().toList().size() == 1, result);
+
+        return result;
+    }
+
+    private static Object trace(DataFetcher<?> dataFetcher, DataFetchingEnvironment environment) {
+        Object context = environment.getContext();
+        OperationTrace trace = context instanceof OperationContext ? ((OperationContext) context).getTrace() : null;
+        if (trace == null)
+            return dataFetcher.get(environment);
+
+        long start = System.nanoTime();
+        Object result = null;
+        try {
+            result = dataFetcher.get(environment);
+            return result;
+        } finally {
+            trace.fieldFetched(environment.getFieldTypeInfo().getPath().toString(), System.nanoTime() - start, result);
+        }
+    }
+
+}
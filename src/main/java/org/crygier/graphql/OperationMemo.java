@@ -0,0 +1,171 @@
+package org.crygier.graphql;
+
+import graphql.language.Argument;
+import graphql.language.ArrayValue;
+import graphql.language.AstPrinter;
+import graphql.language.Field;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.ObjectField;
+import graphql.language.ObjectValue;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.language.Value;
+import graphql.language.VariableReference;
+
+import javax.persistence.PersistenceUnitUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Remembers the results of the queries of a single operation, or a batch of operations, so fields repeating a query, e.g. through aliases or
+ * fragments, share a single round trip to the database. Queries are identified by their entity, the values of their
+ * arguments with the variables substituted, and the shape of their selection; aliases are ignored. The loaded
+ * entities are indexed by identifier too, so fields selecting an entity by its identifier alone are answered without a
+ * query once the entity has been loaded.
+ */
+class OperationMemo {
+
+    private final Map<String, Object> variables;
+    private final Map<String, Object> results;
+    private final Map<List<Object>, Object> entities;
+    private final AtomicInteger hits;
+
+    /**
+     * @param variables The variables of the operation, may be null.
+     */
+    OperationMemo(Map<String, Object> variables) {
+        this(variables, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new AtomicInteger());
+    }
+
+    private OperationMemo(Map<String, Object> variables, Map<String, Object> results, Map<List<Object>, Object> entities, AtomicInteger hits) {
+        this.variables = variables != null ? variables : Collections.emptyMap();
+        this.results = results;
+        this.entities = entities;
+        this.hits = hits;
+    }
+
+    /**
+     * @return An empty memo for the same operation.
+     */
+    OperationMemo fork() {
+        return new OperationMemo(variables);
+    }
+
+    /**
+     * @param variables The variables of the other operation, may be null.
+     * @return A memo for another operation executed with the same manager, sharing the results and entities of this
+     *         memo. The queries are keyed with the values of their variables, so they match across operations.
+     */
+    OperationMemo share(Map<String, Object> variables) {
+        return new OperationMemo(variables, results, entities, hits);
+    }
+
+    /**
+     * @param entityName The entity the query selects.
+     * @param kind What the query fetches for the field, e.g. its entities or their number.
+     * @param field The field the query is built from.
+     * @return The key identifying the query.
+     */
+    String getKey(String entityName, String kind, Field field) {
+        StringBuilder key = new StringBuilder(entityName).append('|').append(kind).append('|');
+        key.append(render(field));
+        return key.toString();
+    }
+
+    /**
+     * @return The result remembered for the given key, or null if the query hasn't run yet.
+     */
+    Object get(String key) {
+        Object answer = results.get(key);
+        if (answer != null)
+            hits.incrementAndGet();
+
+        return answer;
+    }
+
+    void put(String key, Object result) {
+        results.put(key, result);
+    }
+
+    /**
+     * Indexes the given entities by their identifier.
+     */
+    void addEntities(String entityName, PersistenceUnitUtil util, Collection<?> loaded) {
+        for (Object entity : loaded) {
+            Object id = entity != null ? util.getIdentifier(entity) : null;
+            if (id != null)
+                entities.putIfAbsent(Arrays.asList(entityName, id), entity);
+        }
+    }
+
+    /**
+     * @return The entity of the given identifier loaded earlier in the operation, or null if it hasn't been loaded.
+     */
+    Object getEntity(String entityName, Object id) {
+        Object answer = entities.get(Arrays.asList(entityName, id));
+        if (answer != null)
+            hits.incrementAndGet();
+
+        return answer;
+    }
+
+    /**
+     * @return The number of queries that were answered from this memo.
+     */
+    int getHits() {
+        return hits.get();
+    }
+
+    private String render(Field field) {
+        StringBuilder answer = new StringBuilder(String.valueOf(field.getName()));
+        if (!field.getArguments().isEmpty()) {
+            List<Argument> arguments = new ArrayList<>(field.getArguments());
+            arguments.sort(Comparator.comparing(Argument::getName));
+            answer.append(arguments.stream().map(it -> it.getName() + ':' + render(it.getValue())).collect(Collectors.joining(",", "(", ")")));
+        }
+
+        return answer.append(render(field.getSelectionSet())).toString();
+    }
+
+    private String render(SelectionSet selectionSet) {
+        if (selectionSet == null)
+            return "";
+
+        List<String> selections = new ArrayList<>();
+        for (Selection selection : selectionSet.getSelections()) {
+            if (selection instanceof Field)
+                selections.add(render((Field) selection));
+            else if (selection instanceof InlineFragment)
+                selections.add("...on " + ((InlineFragment) selection).getTypeCondition().getName() + render(((InlineFragment) selection).getSelectionSet()));
+            else if (selection instanceof FragmentSpread)
+                selections.add("..." + ((FragmentSpread) selection).getName());
+        }
+
+        Collections.sort(selections);
+        return selections.stream().collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private String render(Value value) {
+        if (value instanceof VariableReference)
+            return Json.write(variables.get(((VariableReference) value).getName()));
+        else if (value instanceof ArrayValue)
+            return ((ArrayValue) value).getValues().stream().map(this::render).collect(Collectors.joining(",", "[", "]"));
+        else if (value instanceof ObjectValue)
+            return ((ObjectValue) value).getObjectFields().stream()
+                    .sorted(Comparator.comparing(ObjectField::getName))
+                    .map(it -> it.getName() + ':' + render(it.getValue()))
+                    .collect(Collectors.joining(",", "{", "}"));
+
+        return AstPrinter.printAst(value);
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.crygier.graphql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The persistence statistics of a single operation executed by the {@link GraphQLExecutor}, as recorded by a
+ * {@link StatisticsProvider}. The counters may be updated concurrently, e.g. by the queries of several shards.
+ */
+public class OperationStatistics {
+
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong jdbcNanos = new AtomicLong();
+    private final AtomicLong entitiesLoaded = new AtomicLong();
+    private final AtomicLong collectionsInitialized = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    /**
+     * @param nanos How long the database took to execute the statement, or batch of statements.
+     */
+    public void statementExecuted(long nanos) {
+        statements.incrementAndGet();
+        jdbcNanos.addAndGet(nanos);
+    }
+
+    public void entityLoaded() {
+        entitiesLoaded.incrementAndGet();
+    }
+
+    public void collectionInitialized() {
+        collectionsInitialized.incrementAndGet();
+    }
+
+    /**
+     * @param hit True if the second-level cache contained the requested entry.
+     */
+    public void cacheAccessed(boolean hit) {
+        (hit ? cacheHits : cacheMisses).incrementAndGet();
+    }
+
+    /**
+     * @return The number of JDBC statements, and batches of statements, executed.
+     */
+    public long getStatements() {
+        return statements.get();
+    }
+
+    /**
+     * @return The total time spent executing JDBC statements, in nanoseconds.
+     */
+    public long getJdbcNanos() {
+        return jdbcNanos.get();
+    }
+
+    public long getEntitiesLoaded() {
+        return entitiesLoaded.get();
+    }
+
+    public long getCollectionsInitialized() {
+        return collectionsInitialized.get();
+    }
+
+    public long getSecondLevelCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getSecondLevelCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * @return The statistics in the form added to the extensions of an execution result.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> answer = new LinkedHashMap<>();
+        answer.put("statements", getStatements());
+        answer.put("entitiesLoaded", getEntitiesLoaded());
+        answer.put("collectionsInitialized", getCollectionsInitialized());
+        answer.put("secondLevelCacheHits", getSecondLevelCacheHits());
+        answer.put("secondLevelCacheMisses", getSecondLevelCacheMisses());
+        answer.put("jdbcMillis", TimeUnit.NANOSECONDS.toMillis(getJdbcNanos()));
+        return answer;
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.crygier.graphql;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Traces the fields and queries of a single operation, for the {@link SlowOperationLog}. Whether the operation is slow
+ * is only known once it completes, so everything is traced and only rendered for the slow ones.
+ */
+class OperationTrace {
+
+    private static final Pattern LIST_INDEX = Pattern.compile("\\[\\d+]");
+
+    private final Map<String, FieldTrace> fields = new ConcurrentHashMap<>();
+    private final List<ExecutedQuery> queries = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param path The path of the field, the fields of all list elements are aggregated.
+     * @param nanos How long the data fetcher took.
+     * @param result The value fetched, collections are counted as rows.
+     */
+    void fieldFetched(String path, long nanos, Object result) {
+        FieldTrace field = fields.computeIfAbsent(LIST_INDEX.matcher(path).replaceAll(""), it -> new FieldTrace());
+        field.invocations.increment();
+        field.nanos.add(nanos);
+        if (result instanceof Collection)
+            field.rows.add(((Collection<?>) result).size());
+    }
+
+    void queryExecuted(EntityManager entityManager, TypedQuery<?> query) {
+        queries.add(new ExecutedQuery(entityManager, query));
+    }
+
+    Map<String, FieldTrace> getFields() {
+        return fields;
+    }
+
+    List<ExecutedQuery> getQueries() {
+        return queries;
+    }
+
+    static final class FieldTrace {
+        final LongAdder invocations = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder rows = new LongAdder();
+    }
+
+    static final class ExecutedQuery {
+        final EntityManager entityManager;
+        final TypedQuery<?> query;
+
+        private ExecutedQuery(EntityManager entityManager, TypedQuery<?> query) {
+            this.entityManager = entityManager;
+            this.query = query;
+        }
+    }
+
+}
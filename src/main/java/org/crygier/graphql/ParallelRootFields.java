@@ -0,0 +1,77 @@
+package org.crygier.graphql;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.FlushModeType;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * Fetches the root fields of a single operation concurrently, each with its own {@link EntityManager} and transaction.
+ * The transactions are never committed, so nothing the fields do is written. The managers stay open until the
+ * operation completes, as the entities of a field are still read, and their lazy associations loaded, after it is
+ * fetched.
+ */
+class ParallelRootFields {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ExecutorService executorService;
+    private final StatisticsProvider statisticsProvider;
+    private final List<EntityManager> entityManagers = new CopyOnWriteArrayList<>();
+    private final List<StatisticsProvider.Recording> recordings = new CopyOnWriteArrayList<>();
+
+    ParallelRootFields(EntityManagerFactory entityManagerFactory, ExecutorService executorService, StatisticsProvider statisticsProvider) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.executorService = executorService;
+        this.statisticsProvider = statisticsProvider;
+    }
+
+    /**
+     * Fetches a root field on the pool.
+     *
+     * @param context The context of the operation.
+     * @param fetch Fetches the field given the context of the field, which holds a manager of its own.
+     */
+    CompletableFuture<Object> submit(OperationContext context, Function<OperationContext, Object> fetch) {
+        return CompletableFuture.supplyAsync(() -> fetch.apply(context.fork(open(context))), executorService);
+    }
+
+    private EntityManager open(OperationContext context) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManagers.add(entityManager);
+        entityManager.setFlushMode(FlushModeType.COMMIT);
+        try {
+            entityManager.getTransaction().begin();
+        } catch (IllegalStateException e) {
+            // The transactions of JTA managers are up to the container
+        }
+
+        if (statisticsProvider != null && context.getStatistics() != null)
+            recordings.add(statisticsProvider.record(entityManager, context.getStatistics()));
+
+        return entityManager;
+    }
+
+    /**
+     * Rolls back the transactions and closes the managers of the fields, once the operation completed.
+     */
+    void close() {
+        recordings.forEach(StatisticsProvider.Recording::close);
+        for (EntityManager entityManager : entityManagers) {
+            try {
+                EntityTransaction transaction = entityManager.getTransaction();
+                if (transaction.isActive())
+                    transaction.rollback();
+            } catch (IllegalStateException e) {
+                // The transactions of JTA managers are up to the container
+            } finally {
+                entityManager.close();
+            }
+        }
+    }
+
+}
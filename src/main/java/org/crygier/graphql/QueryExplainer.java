@@ -0,0 +1,50 @@
+package org.crygier.graphql;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Parameter;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders the queries created by the data fetchers for a {@link QueryPlan}. JPA has no standard way to get the query
+ * string of a criteria query, so each persistence provider needs its own implementation; see
+ * {@link HibernateQueryExplainer}.
+ */
+public interface QueryExplainer {
+
+    /**
+     * An explainer that renders nothing.
+     */
+    QueryExplainer NONE = new QueryExplainer() {
+    };
+
+    /**
+     * @return The given query as JPQL, or null if it can't be rendered.
+     */
+    default String getJpql(EntityManager entityManager, TypedQuery<?> query) {
+        return null;
+    }
+
+    /**
+     * @return The SQL statements the given query translates to, or an empty list if they can't be rendered.
+     */
+    default List<String> getSql(EntityManager entityManager, TypedQuery<?> query) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return The parameters bound to the given query by name, or '?' and their position if they are unnamed.
+     */
+    default Map<String, Object> getParameters(EntityManager entityManager, Query query) {
+        Map<String, Object> answer = new LinkedHashMap<>();
+        for (Parameter<?> parameter : query.getParameters())
+            answer.put(parameter.getName() != null ? parameter.getName() : "?" + parameter.getPosition(), query.isBound(parameter) ? query.getParameterValue(parameter) : null);
+
+        return answer;
+    }
+
+}
@@ -0,0 +1,187 @@
+package org.crygier.graphql;
+
+import graphql.GraphQLError;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.FetchParent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * The queries the data fetchers would execute for an operation, as returned by
+ * {@link GraphQLExecutor#explain(String, Map)}. Only the number of rows is queried, the entities themselves aren't
+ * fetched.
+ */
+public class QueryPlan {
+
+    private final QueryExplainer explainer;
+    private final List<FieldPlan> fields = new CopyOnWriteArrayList<>();
+    private List<GraphQLError> errors = Collections.emptyList();
+
+    QueryPlan(QueryExplainer explainer) {
+        this.explainer = explainer;
+    }
+
+    /**
+     * @return The plans of the fields resolved by the data fetchers of this library, in the order they were planned.
+     */
+    public List<FieldPlan> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return The errors of the operation, e.g. validation errors.
+     */
+    public List<GraphQLError> getErrors() {
+        return errors;
+    }
+
+    QueryPlan errors(List<GraphQLError> errors) {
+        this.errors = errors;
+        return this;
+    }
+
+    /**
+     * @return The plan in a form that can be serialized to JSON.
+     */
+    public Map<String, Object> toSpecification() {
+        Map<String, Object> answer = new LinkedHashMap<>();
+        answer.put("fields", fields.stream().map(FieldPlan::toSpecification).collect(Collectors.toList()));
+        if (!errors.isEmpty())
+            answer.put("errors", errors.stream().map(GraphQLError::getMessage).collect(Collectors.toList()));
+
+        return answer;
+    }
+
+    void add(String path, String entity, String kind, EntityManager entityManager, CriteriaQuery<?> criteria, TypedQuery<?> query, long rowCount) {
+        List<String> fetches = new ArrayList<>();
+        criteria.getRoots().forEach(it -> addFetches(it, "", fetches));
+
+        // Like the query would, skip the first results and stop at the maximum
+        long estimatedRows = Math.max(0, Math.min(rowCount - query.getFirstResult(), query.getMaxResults()));
+
+        fields.add(new FieldPlan(path, entity, kind, explainer.getJpql(entityManager, query), explainer.getSql(entityManager, query),
+                fetches, explainer.getParameters(entityManager, query), query.getFirstResult(), query.getMaxResults(), estimatedRows));
+    }
+
+    private static void addFetches(FetchParent<?, ?> parent, String prefix, List<String> fetches) {
+        for (Fetch<?, ?> fetch : parent.getFetches()) {
+            String path = prefix + fetch.getAttribute().getName();
+            fetches.add(path + " (" + fetch.getJoinType() + ")");
+            addFetches(fetch, path + ".", fetches);
+        }
+    }
+
+    /**
+     * The query planned for a single field.
+     */
+    public static class FieldPlan {
+
+        private final String path;
+        private final String entity;
+        private final String kind;
+        private final String jpql;
+        private final List<String> sql;
+        private final List<String> fetches;
+        private final Map<String, Object> parameters;
+        private final int firstResult;
+        private final int maxResults;
+        private final long estimatedRows;
+
+        FieldPlan(String path, String entity, String kind, String jpql, List<String> sql, List<String> fetches, Map<String, Object> parameters, int firstResult, int maxResults, long estimatedRows) {
+            this.path = path;
+            this.entity = entity;
+            this.kind = kind;
+            this.jpql = jpql;
+            this.sql = sql;
+            this.fetches = fetches;
+            this.parameters = parameters;
+            this.firstResult = firstResult;
+            this.maxResults = maxResults;
+            this.estimatedRows = estimatedRows;
+        }
+
+        /**
+         * @return The path of the field in the result, e.g. '/HumanConnection'.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        public String getEntity() {
+            return entity;
+        }
+
+        /**
+         * @return 'query' for queries fetching entities, 'count' for queries counting them.
+         */
+        public String getKind() {
+            return kind;
+        }
+
+        /**
+         * @return The query as JPQL, or null if the {@link QueryExplainer} can't render it.
+         */
+        public String getJpql() {
+            return jpql;
+        }
+
+        /**
+         * @return The SQL statements of the query, or an empty list if the {@link QueryExplainer} can't render them.
+         */
+        public List<String> getSql() {
+            return sql;
+        }
+
+        /**
+         * @return The paths of the associations fetched along with the entities, and their join type.
+         */
+        public List<String> getFetches() {
+            return fetches;
+        }
+
+        public Map<String, Object> getParameters() {
+            return parameters;
+        }
+
+        public int getFirstResult() {
+            return firstResult;
+        }
+
+        public int getMaxResults() {
+            return maxResults;
+        }
+
+        /**
+         * @return The number of rows the query would return, as counted with the same restrictions.
+         */
+        public long getEstimatedRows() {
+            return estimatedRows;
+        }
+
+        public Map<String, Object> toSpecification() {
+            Map<String, Object> answer = new LinkedHashMap<>();
+            answer.put("path", path);
+            answer.put("entity", entity);
+            answer.put("kind", kind);
+            answer.put("jpql", jpql);
+            answer.put("sql", sql);
+            answer.put("fetches", fetches);
+            answer.put("parameters", parameters);
+            answer.put("firstResult", firstResult);
+            answer.put("maxResults", maxResults);
+            answer.put("estimatedRows", estimatedRows);
+            return answer;
+        }
+
+    }
+
+}
@@ -0,0 +1,35 @@
+package org.crygier.graphql;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * (Functional) Interface used by the {@link ReplicaRouter} to decide whether a replica may receive queries.
+ */
+@FunctionalInterface
+public interface ReplicaHealthCheck {
+
+    /**
+     * A health check considering every replica healthy and up to date.
+     */
+    ReplicaHealthCheck ALWAYS_HEALTHY = replica -> true;
+
+    /**
+     * Returns whether the given replica is able to serve queries at all.
+     *
+     * @param replica The replica to check.
+     * @return True if queries may be routed to the replica.
+     */
+    boolean isHealthy(EntityManagerFactory replica);
+
+    /**
+     * Returns how far the given replica lags behind the primary, in milliseconds. Replicas lagging more than the
+     * configured maximum of the {@link ReplicaRouter} are skipped.
+     *
+     * @param replica The replica to check.
+     * @return The replication lag in milliseconds, 0 if unknown.
+     */
+    default long getReplicationLag(EntityManagerFactory replica) {
+        return 0;
+    }
+
+}
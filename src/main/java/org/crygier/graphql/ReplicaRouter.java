@@ -0,0 +1,156 @@
+package org.crygier.graphql;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Routes the operations of a {@link GraphQLExecutor} between a primary database and any number of read replicas.
+ * Read-only operations are spread over the healthy replicas, everything else goes to the primary. If no replica is
+ * available, read-only operations fall back to the primary as well.
+ */
+public class ReplicaRouter {
+
+    private final EntityManagerFactory primary;
+    private final List<Target> replicas = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private ReplicaSelectionStrategy selectionStrategy = ReplicaSelectionStrategy.ROUND_ROBIN;
+    private ReplicaHealthCheck healthCheck = ReplicaHealthCheck.ALWAYS_HEALTHY;
+    private long maxReplicationLag = Long.MAX_VALUE;
+
+    /**
+     * @param primary The factory of the primary database, receiving all writes.
+     * @param replicas The factories of the read replicas.
+     */
+    public ReplicaRouter(EntityManagerFactory primary, List<EntityManagerFactory> replicas) {
+        this.primary = primary;
+        replicas.forEach(it -> this.replicas.add(new Target(it)));
+    }
+
+    /**
+     * @param selectionStrategy How to choose between the healthy replicas. Defaults to round-robin.
+     * @return The same router.
+     */
+    public ReplicaRouter selectionStrategy(ReplicaSelectionStrategy selectionStrategy) {
+        this.selectionStrategy = selectionStrategy;
+        return this;
+    }
+
+    /**
+     * @param healthCheck The check deciding whether a replica may receive queries.
+     * @return The same router.
+     */
+    public ReplicaRouter healthCheck(ReplicaHealthCheck healthCheck) {
+        this.healthCheck = healthCheck;
+        return this;
+    }
+
+    /**
+     * @param maxReplicationLag The lag in milliseconds above which a replica no longer receives queries.
+     * @return The same router.
+     */
+    public ReplicaRouter maxReplicationLag(long maxReplicationLag) {
+        this.maxReplicationLag = maxReplicationLag;
+        return this;
+    }
+
+    public EntityManagerFactory getPrimary() {
+        return primary;
+    }
+
+    public List<EntityManagerFactory> getReplicas() {
+        return Collections.unmodifiableList(replicas.stream().map(it -> it.factory).collect(Collectors.toList()));
+    }
+
+    /**
+     * @param replica One of the replicas of this router.
+     * @return The number of operations currently executing against the given replica.
+     */
+    public int getInFlight(EntityManagerFactory replica) {
+        return replicas.stream().filter(it -> it.factory == replica).findFirst().map(it -> it.inFlight.get()).orElse(0);
+    }
+
+    /**
+     * Opens an {@link EntityManager} for a single operation. The returned lease must be closed once the operation
+     * completes.
+     *
+     * @param readOnly Whether the operation only reads data and thus may be served by a replica.
+     * @return A lease on the {@link EntityManager} to execute the operation with.
+     */
+    public Lease acquire(boolean readOnly) {
+        Target target = readOnly ? selectReplica() : null;
+        if (target == null)
+            return new Lease(null, primary.createEntityManager());
+
+        target.inFlight.incrementAndGet();
+        try {
+            return new Lease(target, target.factory.createEntityManager());
+        } catch (RuntimeException e) {
+            target.inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private Target selectReplica() {
+        List<Target> available = replicas.stream()
+                .filter(it -> healthCheck.isHealthy(it.factory))
+                .filter(it -> healthCheck.getReplicationLag(it.factory) <= maxReplicationLag)
+                .collect(Collectors.toList());
+
+        if (available.isEmpty())
+            return null;
+
+        if (selectionStrategy == ReplicaSelectionStrategy.LEAST_IN_FLIGHT)
+            return available.stream().min((a, b) -> Integer.compare(a.inFlight.get(), b.inFlight.get())).get();
+
+        return available.get(Math.floorMod(nextReplica.getAndIncrement(), available.size()));
+    }
+
+    private static final class Target {
+        private final EntityManagerFactory factory;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Target(EntityManagerFactory factory) {
+            this.factory = factory;
+        }
+    }
+
+    /**
+     * An {@link EntityManager} opened by the router for a single operation.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final Target target;
+        private final EntityManager entityManager;
+
+        private Lease(Target target, EntityManager entityManager) {
+            this.target = target;
+            this.entityManager = entityManager;
+        }
+
+        public EntityManager getEntityManager() {
+            return entityManager;
+        }
+
+        /**
+         * @return True if the lease targets the primary database.
+         */
+        public boolean isPrimary() {
+            return target == null;
+        }
+
+        @Override
+        public void close() {
+            try {
+                entityManager.close();
+            } finally {
+                if (target != null)
+                    target.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,18 @@
+package org.crygier.graphql;
+
+/**
+ * Describes how the {@link ReplicaRouter} chooses between the available replicas.
+ */
+public enum ReplicaSelectionStrategy {
+
+    /**
+     * Replicas take turns in receiving queries.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * The replica currently executing the fewest operations receives the query.
+     */
+    LEAST_IN_FLIGHT
+
+}
@@ -0,0 +1,25 @@
+package org.crygier.graphql;
+
+import graphql.ExecutionResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the results of the {@link GraphQLExecutor} in a particular media type. Use {@link ResponseEncoders} to choose
+ * an encoder through content negotiation.
+ */
+public interface ResponseEncoder {
+
+    /**
+     * @return The media type of the encoded results, e.g. 'application/json'.
+     */
+    String getContentType();
+
+    /**
+     * Writes the given result, in the format of the GraphQL specification, to the given stream. The stream is neither
+     * flushed nor closed.
+     */
+    void encode(ExecutionResult result, OutputStream out) throws IOException;
+
+}
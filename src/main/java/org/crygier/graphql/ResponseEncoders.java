@@ -0,0 +1,127 @@
+package org.crygier.graphql;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Chooses the {@link ResponseEncoder} of a request from the media types its client accepts, i.e. its Accept header.
+ * The first encoder is the default, used when the client accepts any media type, or none of the encoders.
+ */
+public class ResponseEncoders {
+
+    private final List<ResponseEncoder> encoders = new ArrayList<>();
+
+    /**
+     * @param defaultEncoder The encoder used unless the client prefers another one.
+     */
+    public ResponseEncoders(ResponseEncoder defaultEncoder) {
+        encoders.add(defaultEncoder);
+    }
+
+    /**
+     * @return Encoders for JSON, the default, CBOR and MessagePack, for the default {@link JavaScalars}.
+     */
+    public static ResponseEncoders defaults() {
+        return defaults(ZoneId.systemDefault());
+    }
+
+    /**
+     * @param scalars The scalars of the executor, whose time zone local values are converted in.
+     * @return Encoders for JSON, the default, CBOR and MessagePack.
+     */
+    public static ResponseEncoders defaults(JavaScalars scalars) {
+        return defaults(scalars.getZone());
+    }
+
+    private static ResponseEncoders defaults(ZoneId zone) {
+        return new ResponseEncoders(new JsonResponseEncoder())
+                .add(new CborResponseEncoder(zone))
+                .add(new MessagePackResponseEncoder(zone));
+    }
+
+    /**
+     * @param encoder An additional encoder. Encoders added earlier win if the client accepts several with the same
+     *                quality.
+     * @return The same encoders.
+     */
+    public ResponseEncoders add(ResponseEncoder encoder) {
+        encoders.add(encoder);
+        return this;
+    }
+
+    public List<ResponseEncoder> getEncoders() {
+        return encoders;
+    }
+
+    /**
+     * @param accept The value of the Accept header sent by the client, may be null.
+     * @return The encoder of the media type the client prefers, or the default encoder if it accepts none of them.
+     */
+    public ResponseEncoder negotiate(String accept) {
+        if (accept == null || accept.trim().isEmpty())
+            return encoders.get(0);
+
+        List<MediaRange> ranges = new ArrayList<>();
+        for (String candidate : accept.split(",")) {
+            MediaRange range = MediaRange.parse(candidate);
+            if (range != null && range.quality > 0)
+                ranges.add(range);
+        }
+
+        // The sort is stable, so ranges of the same quality keep the order of the client
+        ranges.sort(Comparator.comparingDouble((MediaRange it) -> it.quality).reversed());
+        for (MediaRange range : ranges) {
+            for (ResponseEncoder encoder : encoders) {
+                if (range.matches(encoder.getContentType()))
+                    return encoder;
+            }
+        }
+
+        return encoders.get(0);
+    }
+
+    private static final class MediaRange {
+
+        private final String type;
+        private final double quality;
+
+        private MediaRange(String type, double quality) {
+            this.type = type;
+            this.quality = quality;
+        }
+
+        private static MediaRange parse(String value) {
+            String[] parts = value.split(";");
+            String type = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (type.isEmpty())
+                return null;
+
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+
+            return new MediaRange(type, quality);
+        }
+
+        private boolean matches(String contentType) {
+            String candidate = contentType.toLowerCase(Locale.ROOT);
+            if (type.equals("*/*") || type.equals(candidate))
+                return true;
+
+            return type.endsWith("/*") && candidate.startsWith(type.substring(0, type.length() - 1));
+        }
+
+    }
+
+}
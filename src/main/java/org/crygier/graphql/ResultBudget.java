@@ -0,0 +1,65 @@
+package org.crygier.graphql;
+
+/**
+ * Limits the size of the results of the operations of a {@link GraphQLExecutor}, so a single unbounded operation can't
+ * materialize millions of objects. Operations exceeding their budget stop early: lists are cut off at the budget, no
+ * more objects are fetched once the budget of objects is spent, no more fields at all once the budget of bytes is
+ * spent, and the result contains a {@link ResultBudgetExceededException} and the extension 'truncated'.
+ * <p>
+ * The data fetchers of this library query no more rows than the budget allows; the budget is also applied to the
+ * fields resolved otherwise, e.g. lazily loaded collections, before their elements are resolved.
+ */
+public class ResultBudget {
+
+    private int maxRowsPerField = Integer.MAX_VALUE;
+    private long maxObjects = Long.MAX_VALUE;
+    private long maxResponseBytes = Long.MAX_VALUE;
+
+    /**
+     * @param maxRowsPerField The largest number of elements a single list field may return, at the root or nested.
+     * @return The same budget.
+     */
+    public ResultBudget maxRowsPerField(int maxRowsPerField) {
+        this.maxRowsPerField = maxRowsPerField;
+        return this;
+    }
+
+    /**
+     * @param maxObjects The largest number of objects, i.e. entities and embeddables, a whole operation may return.
+     * @return The same budget.
+     */
+    public ResultBudget maxObjects(long maxObjects) {
+        this.maxObjects = maxObjects;
+        return this;
+    }
+
+    /**
+     * @param maxResponseBytes The largest size of the result of an operation, as estimated from the length of its
+     *                         field names and values when written as JSON.
+     * @return The same budget.
+     */
+    public ResultBudget maxResponseBytes(long maxResponseBytes) {
+        this.maxResponseBytes = maxResponseBytes;
+        return this;
+    }
+
+    public int getMaxRowsPerField() {
+        return maxRowsPerField;
+    }
+
+    public long getMaxObjects() {
+        return maxObjects;
+    }
+
+    public long getMaxResponseBytes() {
+        return maxResponseBytes;
+    }
+
+    /**
+     * @return The running counters of a new operation against this budget.
+     */
+    ResultBudgetUsage start() {
+        return new ResultBudgetUsage(this);
+    }
+
+}
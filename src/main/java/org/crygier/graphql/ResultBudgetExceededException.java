@@ -0,0 +1,31 @@
+package org.crygier.graphql;
+
+import graphql.execution.AbortExecutionException;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Added to the result of an operation that exceeded its {@link ResultBudget}, whose result is therefore truncated.
+ * The exception is also a {@link graphql.GraphQLError}.
+ */
+public class ResultBudgetExceededException extends AbortExecutionException {
+
+    private final Map<String, String> truncations;
+
+    public ResultBudgetExceededException(Map<String, String> truncations) {
+        super("The result was truncated, it exceeded the budget of " + truncations.entrySet().stream()
+                .map(it -> it.getKey() + " at " + it.getValue())
+                .collect(Collectors.joining(" and of ")));
+        this.truncations = truncations;
+    }
+
+    /**
+     * @return The limits that were exceeded, e.g. '100 rows per field', each with the path of the first field that
+     *         exceeded it.
+     */
+    public Map<String, String> getTruncations() {
+        return truncations;
+    }
+
+}
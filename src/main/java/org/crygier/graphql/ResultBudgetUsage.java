@@ -0,0 +1,168 @@
+package org.crygier.graphql;
+
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLEnumType;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLModifiedType;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLScalarType;
+import graphql.schema.GraphQLType;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * The running counters of a single operation against its {@link ResultBudget}. The fields of an operation may be
+ * fetched concurrently, so the counters are atomic; near the limits an operation may therefore be cut off a few
+ * objects early.
+ */
+class ResultBudgetUsage {
+
+    private final ResultBudget budget;
+    private final AtomicLong objects = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Map<String, String> truncations = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile boolean objectsExhausted;
+    private volatile boolean bytesExhausted;
+
+    ResultBudgetUsage(ResultBudget budget) {
+        this.budget = budget;
+    }
+
+    ResultBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * @param maxResults The number of rows the query of a field would return otherwise.
+     * @return The number of rows the query of a field may return: one more than the budget allows, so exceeding it can
+     *         be told apart from fitting it exactly.
+     */
+    int getRowLimit(int maxResults) {
+        long limit = Math.min(budget.getMaxRowsPerField(), budget.getMaxObjects() - objects.get());
+        if (limit >= Integer.MAX_VALUE)
+            return maxResults;
+
+        return (int) Math.min(maxResults, Math.max(limit, 0) + 1);
+    }
+
+    /**
+     * @return True if the given field is no longer fetched: once the operation exceeded its budget of bytes no field
+     *         is, once it exceeded its budget of objects only the scalars of the objects already fetched are.
+     */
+    boolean isExhausted(DataFetchingEnvironment environment) {
+        if (bytesExhausted)
+            return true;
+
+        return objectsExhausted && !(unwrap(environment.getFieldType()) instanceof GraphQLScalarType || unwrap(environment.getFieldType()) instanceof GraphQLEnumType);
+    }
+
+    boolean isTruncated() {
+        return !truncations.isEmpty();
+    }
+
+    /**
+     * @return The limits that were exceeded, each with the path of the first field that exceeded it.
+     */
+    Map<String, String> getTruncations() {
+        synchronized (truncations) {
+            return new LinkedHashMap<>(truncations);
+        }
+    }
+
+    /**
+     * Counts the result of a field against the budget.
+     *
+     * @return The result, cut off at the budget, or null if no part of it fits.
+     */
+    Object fieldFetched(DataFetchingEnvironment environment, Object result) {
+        if (result == null)
+            return null;
+
+        String name = environment.getFields().get(0).getName();
+        GraphQLType type = environment.getFieldType();
+        while (type instanceof GraphQLModifiedType && !(type instanceof GraphQLList))
+            type = ((GraphQLModifiedType) type).getWrappedType();
+
+        if (type instanceof GraphQLList && result instanceof Collection)
+            return listFetched(environment, name, unwrap(type) instanceof GraphQLObjectType, (Collection<?>) result);
+
+        // Wrappers like the connections of paginated fields are maps, their content is counted instead
+        if (type instanceof GraphQLObjectType && !(result instanceof Map) && objects.incrementAndGet() > budget.getMaxObjects()) {
+            objectsExhausted = true;
+            truncated(environment, budget.getMaxObjects() + " objects");
+            return null;
+        }
+
+        if (!addBytes(name.length() + 4 + (type instanceof GraphQLObjectType ? 2 : estimateBytes(result)))) {
+            bytesExhausted = true;
+            truncated(environment, budget.getMaxResponseBytes() + " bytes");
+            return null;
+        }
+
+        return result;
+    }
+
+    private Object listFetched(DataFetchingEnvironment environment, String name, boolean ofObjects, Collection<?> result) {
+        int size = result.size();
+        int allowed = (int) Math.min(size, budget.getMaxRowsPerField());
+        if (allowed < size)
+            truncated(environment, budget.getMaxRowsPerField() + " rows per field");
+
+        if (ofObjects) {
+            long total = objects.addAndGet(allowed);
+            if (total > budget.getMaxObjects()) {
+                allowed = (int) Math.max(0, allowed - (total - budget.getMaxObjects()));
+                objectsExhausted = true;
+                truncated(environment, budget.getMaxObjects() + " objects");
+            }
+        }
+
+        Collection<?> answer = allowed < size ? result.stream().limit(allowed).collect(Collectors.toList()) : result;
+        long listBytes = name.length() + 6;
+        if (!ofObjects) {
+            for (Object element : answer)
+                listBytes += estimateBytes(element) + 1;
+        }
+
+        if (!addBytes(listBytes)) {
+            bytesExhausted = true;
+            truncated(environment, budget.getMaxResponseBytes() + " bytes");
+            return null;
+        }
+
+        return answer;
+    }
+
+    private boolean addBytes(long estimate) {
+        return bytes.addAndGet(estimate) <= budget.getMaxResponseBytes();
+    }
+
+    /**
+     * @return The length of the given scalar or enum value written as JSON, roughly.
+     */
+    private static long estimateBytes(Object value) {
+        if (value == null)
+            return 4;
+        else if (value instanceof Number || value instanceof Boolean)
+            return value.toString().length();
+
+        return value.toString().length() + 2;
+    }
+
+    private void truncated(DataFetchingEnvironment environment, String limit) {
+        truncations.putIfAbsent(limit, environment.getFieldTypeInfo().getPath().toString());
+    }
+
+    private static GraphQLType unwrap(GraphQLType type) {
+        while (type instanceof GraphQLModifiedType)
+            type = ((GraphQLModifiedType) type).getWrappedType();
+
+        return type;
+    }
+
+}
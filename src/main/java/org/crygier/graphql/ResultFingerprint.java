@@ -0,0 +1,54 @@
+package org.crygier.graphql;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Collects the probes of the root fields of an operation, from which the ETag of its result is computed. A probe
+ * holds the number of entities a root field selects, the sum of their versions and their greatest identifier, and the
+ * same of the associated entities selected below the field. Every update increments the version of an entity, and
+ * thus the sum of the versions, so a probe changes whenever an entity is added, removed or updated.
+ */
+class ResultFingerprint {
+
+    private final String query;
+    private final Map<String, Object> variables;
+    private final Map<String, List<Object>> probes = new ConcurrentSkipListMap<>();
+    private volatile boolean incomplete;
+
+    /**
+     * @param variables The variables of the operation, may be null.
+     */
+    ResultFingerprint(String query, Map<String, Object> variables) {
+        this.query = query;
+        this.variables = variables != null ? variables : Collections.emptyMap();
+    }
+
+    /**
+     * @param path The path of the root field.
+     * @param values The values the probe of the field returned.
+     */
+    void probed(String path, List<Object> values) {
+        probes.put(path, values);
+    }
+
+    /**
+     * Marks the result as impossible to fingerprint, e.g. as a field selects entities without a version.
+     */
+    void incomplete() {
+        incomplete = true;
+    }
+
+    /**
+     * @return The (quoted) ETag of the result, or null if it can't be fingerprinted.
+     */
+    String getEtag() {
+        if (incomplete || probes.isEmpty())
+            return null;
+
+        return "\"" + IntrospectionCache.hash(query + '\n' + Json.write(variables) + '\n' + Json.write(probes)) + "\"";
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.crygier.graphql;
+
+import org.crygier.graphql.processor.SchemaDescriptorProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.Properties;
+
+/**
+ * The schema annotations recorded at build time by the {@link SchemaDescriptorProcessor}. Classes that were not
+ * processed are not covered by the descriptor, and their annotations have to be read through reflection instead.
+ */
+class SchemaDescriptor {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaDescriptor.class);
+
+    private final Properties entries = new Properties();
+
+    /**
+     * Loads and merges all descriptors found on the classpath of the given class loader.
+     */
+    static SchemaDescriptor load(ClassLoader classLoader) {
+        SchemaDescriptor answer = new SchemaDescriptor();
+        if (classLoader == null)
+            return answer;
+
+        try {
+            Enumeration<URL> resources = classLoader.getResources(SchemaDescriptorProcessor.DESCRIPTOR_LOCATION);
+            while (resources.hasMoreElements()) {
+                try (InputStream in = resources.nextElement().openStream()) {
+                    answer.entries.load(in);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read " + SchemaDescriptorProcessor.DESCRIPTOR_LOCATION + ", falling back to reflection", e);
+            answer.entries.clear();
+        }
+
+        return answer;
+    }
+
+    /**
+     * @return True if the annotations of the given class, and of the fields it declares, are known to the descriptor.
+     */
+    boolean covers(Class<?> type) {
+        return entries.containsKey("type." + type.getName());
+    }
+
+    /**
+     * @return True if the given member is covered by the descriptor, in which case it can be queried with
+     *         {@link #isIgnored(Member)} and {@link #getDocumentation(Member)}.
+     */
+    boolean covers(Member member) {
+        return member instanceof Field && covers(member.getDeclaringClass());
+    }
+
+    boolean isIgnored(Class<?> type) {
+        return entries.containsKey("ignored." + type.getName());
+    }
+
+    boolean isIgnored(Member member) {
+        return entries.containsKey("ignored." + key(member));
+    }
+
+    String getDocumentation(Class<?> type) {
+        return entries.getProperty("doc." + type.getName());
+    }
+
+    String getDocumentation(Member member) {
+        return entries.getProperty("doc." + key(member));
+    }
+
+    private static String key(Member member) {
+        return member.getDeclaringClass().getName() + "#" + member.getName();
+    }
+
+}
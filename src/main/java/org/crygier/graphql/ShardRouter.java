@@ -0,0 +1,45 @@
+package org.crygier.graphql;
+
+import javax.persistence.metamodel.EntityType;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * (Functional) Interface used by sharded data fetchers to send a query to a single shard instead of all of them.
+ */
+@FunctionalInterface
+public interface ShardRouter {
+
+    /**
+     * A router sending every query to all shards.
+     */
+    ShardRouter FAN_OUT = (entityType, arguments) -> OptionalInt.empty();
+
+    /**
+     * Returns the shard holding every result of the given query. If the arguments do not contain a shard key, this
+     * MUST return an empty OptionalInt, causing the query to run against all shards.
+     *
+     * @param entityType The entity being queried.
+     * @param arguments The arguments of the queried field.
+     * @return The index of the shard to query, or empty to query all shards.
+     */
+    OptionalInt route(EntityType<?> entityType, Map<String, Object> arguments);
+
+    /**
+     * Creates a router which hashes the value of the given argument to select a shard.
+     *
+     * @param argumentName The name of the argument holding the shard key.
+     * @param shardCount The number of shards.
+     * @return A router routing queries with the shard key argument to a single shard.
+     */
+    static ShardRouter byArgument(String argumentName, int shardCount) {
+        return (entityType, arguments) -> {
+            Object shardKey = arguments.get(argumentName);
+            if (shardKey == null)
+                return OptionalInt.empty();
+
+            return OptionalInt.of(Math.floorMod(shardKey.hashCode(), shardCount));
+        };
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.crygier.graphql;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The databases a {@link GraphQLExecutor} spreads its entities over. Every shard has the same schema, and each
+ * query runs against all shards in parallel unless the {@link ShardRouter} selects a single one. The results of the
+ * shards are merged honouring the requested ordering, and pagination is applied on the merged results.
+ * <p>
+ * The merge relies on every shard returning its results in the {@link #valueOrder(Comparator) value order} of the
+ * shard set. By default that is the order of H2: nulls first when ascending, and strings compared by their characters.
+ * Other databases place nulls last, and most collations order strings differently; if the order of the databases and
+ * the value order disagree, the results are interleaved wrongly and pages are cut at the wrong rows.
+ */
+public class ShardSet {
+
+    private final List<EntityManagerFactory> shards;
+    private final ExecutorService executorService;
+    private ShardRouter router = ShardRouter.FAN_OUT;
+    private Comparator<Object> valueOrder = databaseOrder(null, true);
+
+    /**
+     * @param shards The factories of the shard databases, in shard index order.
+     * @param executorService The pool used to query the shards in parallel.
+     */
+    public ShardSet(List<EntityManagerFactory> shards, ExecutorService executorService) {
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.executorService = executorService;
+    }
+
+    /**
+     * @param router The router selecting a single shard for queries containing a shard key.
+     * @return The same shard set.
+     */
+    public ShardSet router(ShardRouter router) {
+        this.router = router;
+        return this;
+    }
+
+    /**
+     * @param valueOrder The order the shard databases sort the values of an attribute in when ascending, including
+     *                   null values, e.g. {@link #databaseOrder(Collator, boolean)}. It is reversed when descending.
+     * @return The same shard set.
+     */
+    public ShardSet valueOrder(Comparator<Object> valueOrder) {
+        this.valueOrder = valueOrder;
+        return this;
+    }
+
+    /**
+     * Creates the order of a database sorting strings with the given collator, and other values by their natural order.
+     *
+     * @param collator The collator matching the collation of the databases, or null to compare strings by their
+     *                 characters.
+     * @param nullsFirst True if the databases sort null values first when ascending, like H2, MySQL and SQL Server;
+     *                   false if they sort them last, like PostgreSQL and Oracle.
+     * @return The order of values ascending.
+     */
+    @SuppressWarnings("unchecked")
+    public static Comparator<Object> databaseOrder(Collator collator, boolean nullsFirst) {
+        Comparator<Object> values = (a, b) -> collator != null && a instanceof String && b instanceof String
+                ? collator.compare(a, b)
+                : ((Comparable<Object>) a).compareTo(b);
+
+        return nullsFirst ? Comparator.nullsFirst(values) : Comparator.nullsLast(values);
+    }
+
+    public List<EntityManagerFactory> getShards() {
+        return shards;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    public ShardRouter getRouter() {
+        return router;
+    }
+
+    public Comparator<Object> getValueOrder() {
+        return valueOrder;
+    }
+
+    /**
+     * Opens one {@link EntityManager} per shard for a single operation. The caller is responsible for closing them.
+     *
+     * @return The opened managers, in shard index order.
+     */
+    public List<EntityManager> createEntityManagers() {
+        List<EntityManager> entityManagers = new ArrayList<>(shards.size());
+        try {
+            shards.forEach(it -> entityManagers.add(it.createEntityManager()));
+        } catch (RuntimeException e) {
+            entityManagers.forEach(EntityManager::close);
+            throw e;
+        }
+
+        return entityManagers;
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.crygier.graphql;
+
+import javax.persistence.metamodel.Attribute;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges the results of a query executed against several shards.
+ */
+final class ShardedResults {
+
+    private ShardedResults() {
+    }
+
+    /**
+     * Merges the given shard results into one list, and applies pagination on the merged list. Each shard result must
+     * already be ordered by the given comparator.
+     *
+     * @param results The results of the individual shards.
+     * @param comparator The ordering of the results, or null if unordered.
+     * @param firstResult The position of the first result to return.
+     * @param maxResults The maximum number of results to return.
+     * @return The requested page of the merged results.
+     */
+    static List<Object> merge(List<List<Object>> results, Comparator<Object> comparator, int firstResult, int maxResults) {
+        List<Object> answer = new ArrayList<>();
+        Iterator<Object> merged = comparator == null ? concat(results) : mergeOrdered(results, comparator);
+
+        for (int skipped = 0; skipped < firstResult && merged.hasNext(); skipped++)
+            merged.next();
+
+        while (answer.size() < maxResults && merged.hasNext())
+            answer.add(merged.next());
+
+        return answer;
+    }
+
+    private static Iterator<Object> concat(List<List<Object>> results) {
+        return results.stream().flatMap(List::stream).iterator();
+    }
+
+    private static Iterator<Object> mergeOrdered(List<List<Object>> results, Comparator<Object> comparator) {
+        PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> {
+            int order = comparator.compare(a.value, b.value);
+            return order != 0 ? order : Integer.compare(a.shard, b.shard);
+        });
+
+        for (int shard = 0; shard < results.size(); shard++) {
+            Iterator<Object> iterator = results.get(shard).iterator();
+            if (iterator.hasNext())
+                heads.add(new Head(shard, iterator.next(), iterator));
+        }
+
+        return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Object next() {
+                Head head = heads.poll();
+                if (head.remaining.hasNext())
+                    heads.add(new Head(head.shard, head.remaining.next(), head.remaining));
+
+                return head.value;
+            }
+        };
+    }
+
+    /**
+     * Creates a comparator ordering entities by the value of the given attribute.
+     *
+     * @param valueOrder The order of the values ascending, see {@link ShardSet#valueOrder(Comparator)}.
+     */
+    static Comparator<Object> attributeComparator(Attribute<?, ?> attribute, boolean descending, Comparator<Object> valueOrder) {
+        Member member = attribute.getJavaMember();
+        if (member instanceof AccessibleObject)
+            ((AccessibleObject) member).setAccessible(true);
+
+        Comparator<Object> byAttribute = Comparator.comparing(it -> getValue(member, it), valueOrder);
+
+        return descending ? byAttribute.reversed() : byAttribute;
+    }
+
+    private static Object getValue(Member member, Object entity) {
+        try {
+            if (member instanceof Field)
+                return ((Field) member).get(entity);
+            else if (member instanceof Method)
+                return ((Method) member).invoke(entity);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to read '" + member.getName() + "' to order sharded results", e);
+        }
+
+        throw new IllegalStateException("Unable to read '" + member.getName() + "' to order sharded results");
+    }
+
+    private static final class Head {
+        private final int shard;
+        private final Object value;
+        private final Iterator<Object> remaining;
+
+        private Head(int shard, Object value, Iterator<Object> remaining) {
+            this.shard = shard;
+            this.value = value;
+            this.remaining = remaining;
+        }
+    }
+
+}
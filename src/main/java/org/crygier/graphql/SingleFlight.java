@@ -0,0 +1,81 @@
+package org.crygier.graphql;
+
+import graphql.ExecutionResult;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical operations executing at the same time: the first one executes, the others wait for it and share
+ * its result. Nothing is kept once the execution completes, so an operation arriving a moment later executes again.
+ * This is no cache, yet the operations waiting may get a result read from a snapshot taken before they arrived, i.e.
+ * missing writes committed meanwhile; operations that must observe the latest writes can't be coalesced.
+ */
+class SingleFlight {
+
+    private final Map<Object, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * @param key Identifies the operation, e.g. its normalized document and its variables.
+     * @param execution Executes the operation if no identical one is in flight.
+     * @param metrics Is told about every operation that waited for an identical one.
+     * @return The result of the operation, shared with the identical operations in flight, if any. A shared result
+     *         can't be modified.
+     */
+    ExecutionResult execute(Object key, Supplier<ExecutionResult> execution, ExecutorMetrics metrics) {
+        Flight flight = new Flight();
+        Flight leader = flights.putIfAbsent(key, flight);
+        if (leader != null && leader.followers.getAndIncrement() >= 0)
+            return leader.await(metrics);
+
+        // The leader completed just now, execute again rather than miss the result
+        if (leader != null)
+            return execute(key, execution, metrics);
+
+        try {
+            ExecutionResult result = execution.get();
+            // Once it left the map, no more operations follow this one
+            flights.remove(key, flight);
+            if (flight.followers.getAndSet(Integer.MIN_VALUE) > 0)
+                result = ExecutionResults.unmodifiableCopy(result);
+
+            flight.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, flight);
+            flight.followers.set(Integer.MIN_VALUE);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static class Flight {
+
+        private final CompletableFuture<ExecutionResult> result = new CompletableFuture<>();
+        // Negative once the leader completed and no longer accepts followers
+        private final AtomicInteger followers = new AtomicInteger();
+
+        private ExecutionResult await(ExecutorMetrics metrics) {
+            long start = System.nanoTime();
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                // Fail like the leader did
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                if (e.getCause() instanceof Error)
+                    throw (Error) e.getCause();
+
+                throw e;
+            } finally {
+                metrics.operationCoalesced(System.nanoTime() - start);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,169 @@
+package org.crygier.graphql;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * An operation recorded by the {@link SlowOperationLog}. None of the values sent by the client are kept: literals are
+ * stripped from the operation, and only the shape of the variables is recorded.
+ */
+public class SlowOperation {
+
+    private final Instant timestamp;
+    private final long durationNanos;
+    private final String operation;
+    private final Map<String, Object> variableShapes;
+    private final List<FieldTiming> fields;
+    private final Map<String, Integer> sql;
+    private final int errorCount;
+    private final OperationStatistics statistics;
+
+    SlowOperation(Instant timestamp, long durationNanos, String operation, Map<String, Object> variableShapes, List<FieldTiming> fields, Map<String, Integer> sql, int errorCount, OperationStatistics statistics) {
+        this.timestamp = timestamp;
+        this.durationNanos = durationNanos;
+        this.operation = operation;
+        this.variableShapes = variableShapes;
+        this.fields = fields;
+        this.sql = sql;
+        this.errorCount = errorCount;
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return When the operation completed.
+     */
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    /**
+     * @return The operation with its literals replaced by placeholders, so operations differing only in their literals
+     *         are recorded the same.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return The type names of the variables; objects are mapped to the shapes of their fields, lists to the shape of
+     *         their first element.
+     */
+    public Map<String, Object> getVariableShapes() {
+        return variableShapes;
+    }
+
+    /**
+     * @return The timings of the fields of the operation, the slowest first. The fields of all elements of a list are
+     *         aggregated.
+     */
+    public List<FieldTiming> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return The SQL of the queries executed by the data fetchers of this library, and how often each was executed.
+     *         Statements issued by the persistence provider itself, e.g. to initialize lazy associations, are not
+     *         included; see {@link #getStatistics()} for their number.
+     */
+    public Map<String, Integer> getSql() {
+        return sql;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return The statistics of the operation, or null if the executor has no {@link StatisticsProvider}.
+     */
+    public OperationStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return The record in a form that can be serialized to JSON.
+     */
+    public Map<String, Object> toSpecification() {
+        Map<String, Object> answer = new LinkedHashMap<>();
+        answer.put("timestamp", timestamp.toString());
+        answer.put("durationMillis", getDurationMillis());
+        answer.put("operation", operation);
+        answer.put("variables", variableShapes);
+        answer.put("fields", fields.stream().map(FieldTiming::toSpecification).collect(Collectors.toList()));
+        answer.put("sql", sql);
+        answer.put("errors", errorCount);
+        if (statistics != null)
+            answer.put("statistics", statistics.toMap());
+
+        return answer;
+    }
+
+    /**
+     * The time spent fetching a field.
+     */
+    public static class FieldTiming {
+
+        private final String path;
+        private final long invocations;
+        private final long nanos;
+        private final long rows;
+
+        FieldTiming(String path, long invocations, long nanos, long rows) {
+            this.path = path;
+            this.invocations = invocations;
+            this.nanos = nanos;
+            this.rows = rows;
+        }
+
+        /**
+         * @return The path of the field, without list indices, e.g. '/Human/friends'.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return How often the field was fetched, e.g. once for every element of a list.
+         */
+        public long getInvocations() {
+            return invocations;
+        }
+
+        /**
+         * @return The total time spent in the data fetcher of the field, excluding its sub-fields.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return The total number of list elements returned for the field.
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        public Map<String, Object> toSpecification() {
+            Map<String, Object> answer = new LinkedHashMap<>();
+            answer.put("path", path);
+            answer.put("invocations", invocations);
+            answer.put("micros", TimeUnit.NANOSECONDS.toMicros(nanos));
+            answer.put("rows", rows);
+            return answer;
+        }
+
+    }
+
+}
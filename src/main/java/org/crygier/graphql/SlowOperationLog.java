@@ -0,0 +1,277 @@
+package org.crygier.graphql;
+
+import graphql.language.Argument;
+import graphql.language.ArrayValue;
+import graphql.language.AstPrinter;
+import graphql.language.Directive;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.FloatValue;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.IntValue;
+import graphql.language.ObjectValue;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.language.StringValue;
+import graphql.language.Value;
+import graphql.parser.Parser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Records the operations of a {@link GraphQLExecutor} taking longer than a threshold, along with the timings of their
+ * fields and the SQL they executed. The most recent records are kept in memory, and can optionally be appended to a
+ * file as JSON lines.
+ */
+public class SlowOperationLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowOperationLog.class);
+
+    private final long thresholdNanos;
+    private final SlowOperation[] records;
+    private int next;
+    private int size;
+    private Path file;
+
+    /**
+     * @param threshold The duration above which operations are recorded.
+     * @param capacity The number of records to keep in memory, older records are discarded.
+     */
+    public SlowOperationLog(Duration threshold, int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("The capacity must be positive");
+
+        this.thresholdNanos = threshold.toNanos();
+        this.records = new SlowOperation[capacity];
+    }
+
+    /**
+     * @param file The file to append every record to as a line of JSON, or null to keep the records in memory only.
+     * @return The same log.
+     */
+    public SlowOperationLog fileSink(Path file) {
+        this.file = file;
+        return this;
+    }
+
+    public Duration getThreshold() {
+        return Duration.ofNanos(thresholdNanos);
+    }
+
+    /**
+     * @return The records kept in memory, the most recent first.
+     */
+    public synchronized List<SlowOperation> getRecords() {
+        List<SlowOperation> answer = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++)
+            answer.add(records[(next - i + records.length) % records.length]);
+
+        return answer;
+    }
+
+    /**
+     * @return The records kept in memory matching the given filter, the most recent first.
+     */
+    public List<SlowOperation> getRecords(Predicate<SlowOperation> filter) {
+        return getRecords().stream().filter(filter).collect(Collectors.toList());
+    }
+
+    /**
+     * @return The given number of slowest records kept in memory, the slowest first.
+     */
+    public List<SlowOperation> getSlowest(int count) {
+        return getRecords().stream()
+                .sorted(Comparator.comparingLong(SlowOperation::getDurationNanos).reversed())
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    public synchronized void clear() {
+        next = 0;
+        size = 0;
+        Arrays.fill(records, null);
+    }
+
+    boolean isSlow(long durationNanos) {
+        return durationNanos > thresholdNanos;
+    }
+
+    /**
+     * Records a slow operation, rendering the SQL of the queries it executed with the given explainer.
+     */
+    void record(String query, Map<String, Object> variables, long durationNanos, OperationTrace trace, int errorCount, OperationStatistics statistics, QueryExplainer explainer) {
+        List<SlowOperation.FieldTiming> fields = trace.getFields().entrySet().stream()
+                .map(it -> new SlowOperation.FieldTiming(it.getKey(), it.getValue().invocations.sum(), it.getValue().nanos.sum(), it.getValue().rows.sum()))
+                .sorted(Comparator.comparingLong(SlowOperation.FieldTiming::getNanos).reversed())
+                .collect(Collectors.toList());
+
+        Map<String, Integer> sql = new LinkedHashMap<>();
+        for (OperationTrace.ExecutedQuery executed : trace.getQueries())
+            render(executed, explainer).forEach(it -> sql.merge(it, 1, Integer::sum));
+
+        add(new SlowOperation(Instant.now(), durationNanos, normalize(query), getShape(variables), fields, sql, errorCount, statistics));
+    }
+
+    private static List<String> render(OperationTrace.ExecutedQuery executed, QueryExplainer explainer) {
+        try {
+            List<String> sql = explainer.getSql(executed.entityManager, executed.query);
+            if (!sql.isEmpty())
+                return sql;
+
+            String jpql = explainer.getJpql(executed.entityManager, executed.query);
+            return Collections.singletonList(jpql != null ? jpql : executed.query.toString());
+        } catch (RuntimeException e) {
+            return Collections.singletonList(executed.query.toString());
+        }
+    }
+
+    private void add(SlowOperation record) {
+        Path file;
+        synchronized (this) {
+            records[next] = record;
+            next = (next + 1) % records.length;
+            size = Math.min(size + 1, records.length);
+            file = this.file;
+        }
+
+        if (file != null)
+            append(file, record);
+    }
+
+    private static void append(Path file, SlowOperation record) {
+        String line = Json.write(record.toSpecification()) + System.lineSeparator();
+        synchronized (SlowOperationLog.class) {
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(line);
+            } catch (IOException e) {
+                log.warn("Unable to append slow operation to " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Replaces the literals of the given operation with placeholders: strings with "?", numbers with 0, lists with []
+     * and objects with {}. Variables, booleans and enum values are kept, as they hardly ever identify anything.
+     */
+    static String normalize(String query) {
+        Document document;
+        try {
+            document = new Parser().parseDocument(query);
+        } catch (RuntimeException e) {
+            // Never record the literals, not even of invalid operations
+            return "<unparsable>";
+        }
+
+        document.getDefinitions().forEach(it -> {
+            if (it instanceof OperationDefinition) {
+                OperationDefinition operation = (OperationDefinition) it;
+                operation.getVariableDefinitions().forEach(variable -> {
+                    if (variable.getDefaultValue() != null)
+                        variable.setDefaultValue(strip(variable.getDefaultValue()));
+                });
+                strip(operation.getDirectives());
+                strip(operation.getSelectionSet());
+            } else if (it instanceof FragmentDefinition) {
+                strip(((FragmentDefinition) it).getDirectives());
+                strip(((FragmentDefinition) it).getSelectionSet());
+            }
+        });
+
+        return AstPrinter.printAst(document);
+    }
+
+    private static void strip(SelectionSet selectionSet) {
+        if (selectionSet == null)
+            return;
+
+        for (Selection selection : selectionSet.getSelections()) {
+            if (selection instanceof Field) {
+                Field field = (Field) selection;
+                field.setArguments(stripArguments(field.getArguments()));
+                strip(field.getDirectives());
+                strip(field.getSelectionSet());
+            } else if (selection instanceof InlineFragment) {
+                strip(((InlineFragment) selection).getDirectives());
+                strip(((InlineFragment) selection).getSelectionSet());
+            } else if (selection instanceof FragmentSpread) {
+                strip(((FragmentSpread) selection).getDirectives());
+            }
+        }
+    }
+
+    private static void strip(List<Directive> directives) {
+        for (int i = 0; i < directives.size(); i++)
+            directives.set(i, new Directive(directives.get(i).getName(), stripArguments(directives.get(i).getArguments())));
+    }
+
+    private static List<Argument> stripArguments(List<Argument> arguments) {
+        return arguments.stream().map(it -> new Argument(it.getName(), strip(it.getValue()))).collect(Collectors.toList());
+    }
+
+    private static Value strip(Value value) {
+        if (value instanceof StringValue)
+            return new StringValue("?");
+        else if (value instanceof IntValue)
+            return new IntValue(BigInteger.ZERO);
+        else if (value instanceof FloatValue)
+            return new FloatValue(BigDecimal.ZERO);
+        else if (value instanceof ArrayValue)
+            return new ArrayValue();
+        else if (value instanceof ObjectValue)
+            return new ObjectValue();
+
+        return value;
+    }
+
+    /**
+     * @return The shape of the given variable value: the simple type name of scalars, the shapes of the entries of
+     *         maps, and the shape of the first element of lists.
+     */
+    static Object getShape(Object value) {
+        if (value == null)
+            return null;
+
+        if (value instanceof Map) {
+            Map<String, Object> answer = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((key, entry) -> answer.put(String.valueOf(key), getShape(entry)));
+            return answer;
+        }
+
+        if (value instanceof Iterable) {
+            Iterator<?> elements = ((Iterable<?>) value).iterator();
+            return elements.hasNext() ? Collections.singletonList(getShape(elements.next())) : Collections.emptyList();
+        }
+
+        return value.getClass().getSimpleName();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getShape(Map<String, Object> variables) {
+        return variables != null ? (Map<String, Object>) getShape((Object) variables) : Collections.emptyMap();
+    }
+
+}
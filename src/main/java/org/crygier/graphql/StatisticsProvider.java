@@ -0,0 +1,29 @@
+package org.crygier.graphql;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Records what the persistence provider does on behalf of a single operation. JPA has no standard way to observe
+ * this, so each provider needs its own implementation; see {@link HibernateStatisticsProvider}.
+ */
+public interface StatisticsProvider {
+
+    /**
+     * Starts recording the work done through the given {@link EntityManager} into the given statistics, until the
+     * returned recording is closed. Work done through other managers, e.g. by concurrent operations, must not be
+     * recorded.
+     *
+     * @param entityManager The manager used by the operation.
+     * @param statistics The statistics of the operation.
+     * @return The recording, which is closed once the operation completes.
+     */
+    Recording record(EntityManager entityManager, OperationStatistics statistics);
+
+    interface Recording extends AutoCloseable {
+
+        @Override
+        void close();
+
+    }
+
+}
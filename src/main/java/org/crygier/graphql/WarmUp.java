@@ -0,0 +1,165 @@
+package org.crygier.graphql;
+
+import graphql.ExecutionInput;
+import graphql.schema.GraphQLArgument;
+import graphql.schema.GraphQLEnumType;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLModifiedType;
+import graphql.schema.GraphQLNonNull;
+import graphql.schema.GraphQLScalarType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * The operations {@link GraphQLExecutor#warmUp(WarmUp)} executes to prime the caches of an executor right after a
+ * deploy: the validation of graphql-java, the translation of criteria queries, the query plan cache of the persistence
+ * provider, the prepared statements of the connection pool, and the compiled code of all of these. Each operation is
+ * executed like any other, but with a {@link ResultBudget} of a single row per field, so it is cheap regardless of the
+ * size of the database.
+ * <p>
+ * Register the operations clients are known to send, e.g. the persisted operations of an application. Without
+ * registered operations, one is synthesized per root field resolved by this library, selecting the scalars of its
+ * entities and of their associations. Root fields with required arguments, such as the lookups by identifier, can't be
+ * synthesized.
+ */
+public class WarmUp {
+
+    private final List<ExecutionInput> operations = new ArrayList<>();
+    private int iterations = 10;
+    private int rowsPerField = 1;
+    private Executor executor;
+
+    /**
+     * @param query An operation to warm up.
+     * @return The same warm-up.
+     */
+    public WarmUp operation(String query) {
+        return operation(query, null);
+    }
+
+    /**
+     * @param query An operation to warm up.
+     * @param variables The variables of the operation, may be null.
+     * @return The same warm-up.
+     */
+    public WarmUp operation(String query, Map<String, Object> variables) {
+        ExecutionInput.Builder input = ExecutionInput.newExecutionInput().query(query);
+        if (variables != null)
+            input.variables(variables);
+
+        operations.add(input.build());
+        return this;
+    }
+
+    /**
+     * @param iterations How often every operation is executed, as compilers only optimize code run repeatedly.
+     * @return The same warm-up.
+     */
+    public WarmUp iterations(int iterations) {
+        this.iterations = iterations;
+        return this;
+    }
+
+    /**
+     * @param rowsPerField The number of rows every list field returns, 0 to only execute the root fields.
+     * @return The same warm-up.
+     */
+    public WarmUp rowsPerField(int rowsPerField) {
+        this.rowsPerField = rowsPerField;
+        return this;
+    }
+
+    /**
+     * @param executor Runs the warm-up in the background, e.g. so the application can start serving health checks
+     *                 meanwhile. Without one, the warm-up runs on the calling thread.
+     * @return The same warm-up.
+     */
+    public WarmUp executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getRowsPerField() {
+        return rowsPerField;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return The registered operations, or the operations synthesized for the given schema if there are none.
+     */
+    List<ExecutionInput> getOperations(GraphQLSchema schema) {
+        if (!operations.isEmpty())
+            return operations;
+
+        return synthesize(schema).stream().map(it -> ExecutionInput.newExecutionInput().query(it).build()).collect(Collectors.toList());
+    }
+
+    /**
+     * @return An operation per root field of the given schema resolved by this library, unless it has required
+     *         arguments.
+     */
+    static List<String> synthesize(GraphQLSchema schema) {
+        List<String> answer = new ArrayList<>();
+        for (GraphQLFieldDefinition field : schema.getQueryType().getFieldDefinitions()) {
+            if (field.getDataFetcher() instanceof JpaDataFetcher && !hasRequiredArguments(field))
+                answer.add("{ " + field.getName() + select(field.getType(), 0) + " }");
+        }
+
+        return answer;
+    }
+
+    /**
+     * @return The selection of the scalars of the given type, and of the scalars of its associations, or an empty
+     *         string if the type is a scalar.
+     */
+    private static String select(GraphQLType type, int depth) {
+        GraphQLType unwrapped = unwrap(type);
+        if (!(unwrapped instanceof GraphQLFieldsContainer))
+            return "";
+
+        List<String> selections = new ArrayList<>();
+        for (GraphQLFieldDefinition field : ((GraphQLFieldsContainer) unwrapped).getFieldDefinitions()) {
+            if (hasRequiredArguments(field))
+                continue;
+
+            GraphQLType fieldType = unwrap(field.getType());
+            if (fieldType instanceof GraphQLScalarType || fieldType instanceof GraphQLEnumType)
+                selections.add(field.getName());
+            else if (fieldType instanceof GraphQLFieldsContainer && depth == 0)
+                selections.add(field.getName() + select(fieldType, depth + 1));
+        }
+
+        // Every object needs a selection, the type name is always there
+        if (selections.isEmpty())
+            selections = Collections.singletonList("__typename");
+
+        return " { " + String.join(" ", selections) + " }";
+    }
+
+    private static boolean hasRequiredArguments(GraphQLFieldDefinition field) {
+        return field.getArguments().stream().map(GraphQLArgument::getType).anyMatch(it -> it instanceof GraphQLNonNull);
+    }
+
+    private static GraphQLType unwrap(GraphQLType type) {
+        while (type instanceof GraphQLModifiedType)
+            type = ((GraphQLModifiedType) type).getWrappedType();
+
+        return type;
+    }
+
+}
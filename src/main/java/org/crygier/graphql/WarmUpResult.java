@@ -0,0 +1,54 @@
+package org.crygier.graphql;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of a {@link WarmUp}, once every operation was executed.
+ */
+public class WarmUpResult {
+
+    private final int operations;
+    private final int executions;
+    private final Map<String, List<String>> failures;
+    private final Duration duration;
+
+    WarmUpResult(int operations, int executions, Map<String, List<String>> failures, Duration duration) {
+        this.operations = operations;
+        this.executions = executions;
+        this.failures = Collections.unmodifiableMap(failures);
+        this.duration = duration;
+    }
+
+    /**
+     * @return The number of operations, registered or synthesized.
+     */
+    public int getOperations() {
+        return operations;
+    }
+
+    /**
+     * @return The number of executions of all operations, over all iterations.
+     */
+    public int getExecutions() {
+        return executions;
+    }
+
+    /**
+     * @return The operations that failed, e.g. because they are invalid or are mutations, with the messages of the
+     *         errors of their first failure. A result truncated by the budget of the warm-up is no failure.
+     */
+    public Map<String, List<String>> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return How long the warm-up took.
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.crygier.graphql.processor;
+
+import org.crygier.graphql.annotation.GraphQLIgnore;
+import org.crygier.graphql.annotation.SchemaDocumentation;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An annotation processor recording the {@link GraphQLIgnore} and {@link SchemaDocumentation} annotations of all JPA
+ * entities, embeddables and mapped superclasses at build time. The result is written to
+ * {@value #DESCRIPTOR_LOCATION}, from where the {@link org.crygier.graphql.GraphQLSchemaBuilder} reads it instead of
+ * reflecting over the classes at startup.
+ * <p>
+ * Enable it by adding this library to the annotation processor path of the module containing the entities, and
+ * passing {@code -processor org.crygier.graphql.processor.SchemaDescriptorProcessor} to javac.
+ */
+@SupportedAnnotationTypes({"javax.persistence.Entity", "javax.persistence.Embeddable", "javax.persistence.MappedSuperclass"})
+public class SchemaDescriptorProcessor extends AbstractProcessor {
+
+    public static final String DESCRIPTOR_LOCATION = "META-INF/graphql-jpa/schema-descriptor.properties";
+
+    private final Map<String, String> entries = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS)
+                    record((TypeElement) element);
+            }
+        }
+
+        if (roundEnv.processingOver() && !entries.isEmpty())
+            write();
+
+        return false;
+    }
+
+    private void record(TypeElement type) {
+        String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+
+        entries.put("type." + name, "");
+        record(name, type);
+
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.FIELD)
+                record(name + "#" + member.getSimpleName(), member);
+        }
+    }
+
+    private void record(String key, Element element) {
+        if (element.getAnnotation(GraphQLIgnore.class) != null)
+            entries.put("ignored." + key, "");
+
+        SchemaDocumentation documentation = element.getAnnotation(SchemaDocumentation.class);
+        if (documentation != null)
+            entries.put("doc." + key, documentation.value());
+    }
+
+    private void write() {
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", DESCRIPTOR_LOCATION);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.ISO_8859_1)) {
+                writer.write("# Generated by " + getClass().getName() + ", do not edit\n");
+                for (Map.Entry<String, String> entry : entries.entrySet())
+                    writer.write(escape(entry.getKey(), true) + "=" + escape(entry.getValue(), false) + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write " + DESCRIPTOR_LOCATION + ": " + e);
+        }
+    }
+
+    /**
+     * Escapes the given key or value according to the format read by {@link java.util.Properties#load(java.io.Reader)}.
+     */
+    private static String escape(String value, boolean key) {
+        StringBuilder answer = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': answer.append("\\\\"); break;
+                case '\n': answer.append("\\n"); break;
+                case '\r': answer.append("\\r"); break;
+                case '\t': answer.append("\\t"); break;
+                case '\f': answer.append("\\f"); break;
+                case '=': case ':': case '#': case '!':
+                    answer.append('\\').append(c);
+                    break;
+                case ' ':
+                    answer.append(key || i == 0 ? "\\ " : " ");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e)
+                        answer.append(String.format("\\u%04x", (int) c));
+                    else
+                        answer.append(c);
+            }
+        }
+
+        return answer.toString();
+    }
+
+}
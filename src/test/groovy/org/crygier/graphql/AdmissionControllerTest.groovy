@@ -0,0 +1,189 @@
+package org.crygier.graphql
+
+import graphql.Scalars
+import graphql.parser.Parser
+import graphql.schema.DataFetcher
+import graphql.schema.GraphQLFieldDefinition
+import org.crygier.graphql.model.uuid.Thing
+import org.springframework.jdbc.datasource.DelegatingDataSource
+import org.springframework.orm.jpa.JpaTransactionManager
+import org.springframework.orm.jpa.SharedEntityManagerCreator
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.sql.DataSource
+import java.lang.reflect.InvocationHandler
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.lang.reflect.Proxy
+import java.sql.Connection
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class AdmissionControllerTest extends Specification {
+
+    private final def document = new Parser().parseDocument('{ Human { name } }')
+
+    def 'Rejects immediately once the queue is full'() {
+        given:
+        def controller = new AdmissionController(1, 1, Duration.ofSeconds(30))
+        def permit = controller.admit(document, ExecutorMetrics.NONE)
+        def queued = CompletableFuture.supplyAsync { controller.admit(document, ExecutorMetrics.NONE) }
+        waitForQueueDepth(controller, 1)
+
+        when:
+        controller.admit(document, ExecutorMetrics.NONE)
+
+        then:
+        AdmissionRejectedException e = thrown()
+        e.lane == AdmissionController.DEFAULT_LANE
+
+        when: "The running operation completes"
+        permit.close()
+
+        then: "The queued operation is admitted"
+        queued.get(5, TimeUnit.SECONDS).lane == AdmissionController.DEFAULT_LANE
+        controller.getInFlight(AdmissionController.DEFAULT_LANE) == 1
+    }
+
+    def 'Rejects queued operations after the queue timeout'() {
+        given:
+        def waits = []
+        def metrics = new ExecutorMetrics() {
+            void operationRejected(String lane, long waitNanos) { waits << waitNanos }
+        }
+        def controller = new AdmissionController(1, 5, Duration.ofMillis(50))
+        controller.admit(document, metrics)
+
+        when:
+        controller.admit(document, metrics)
+
+        then:
+        thrown(AdmissionRejectedException)
+        waits.size() == 1
+        waits[0] >= TimeUnit.MILLISECONDS.toNanos(50)
+        controller.getQueueDepth(AdmissionController.DEFAULT_LANE) == 0
+    }
+
+    def 'Classifies operations into separate lanes'() {
+        given:
+        def controller = new AdmissionController(1, 0, Duration.ZERO)
+                .lane('expensive', 1, 0, Duration.ZERO)
+                .classifier(OperationClassifier.byRootField('expensive', ['Human'] as Set))
+        controller.admit(document, ExecutorMetrics.NONE)
+
+        when: "The expensive lane is saturated"
+        controller.admit(document, ExecutorMetrics.NONE)
+
+        then:
+        thrown(AdmissionRejectedException)
+
+        when: "Cheap operations still get through"
+        def permit = controller.admit(new Parser().parseDocument('{ Droid { name } }'), ExecutorMetrics.NONE)
+
+        then:
+        permit.lane == AdmissionController.DEFAULT_LANE
+    }
+
+    def 'Estimates the cost by the number of selected fields'() {
+        given:
+        def classifier = OperationClassifier.byEstimatedCost('expensive', 3)
+
+        expect:
+        classifier.classify(new Parser().parseDocument('{ Human { name } }')) == AdmissionController.DEFAULT_LANE
+        classifier.classify(new Parser().parseDocument('{ Human { name friends { name } } }')) == 'expensive'
+    }
+
+    def 'Rejects unknown lanes when monitored'() {
+        given:
+        def controller = new AdmissionController(1, 1, Duration.ofSeconds(1))
+
+        when:
+        controller."$getter"('reports')
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Unknown lane 'reports'"
+
+        where:
+        getter << ['getQueueDepth', 'getInFlight']
+    }
+
+    def 'Operations admitted before their transaction hold no connection while queued'() {
+        given:
+        def connections = new CountingDataSource(TestDatabases.createDataSource('admission'))
+        def factory = TestDatabases.create('admission', [new Thing(id: UUID.randomUUID(), type: 'Thing1')], [:], connections)
+        def transactions = new TransactionTemplate(new JpaTransactionManager(factory))
+        def fetching = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def slow = GraphQLFieldDefinition.newFieldDefinition().name('slow').type(Scalars.GraphQLString).dataFetcher({
+            fetching.countDown()
+            release.await(10, TimeUnit.SECONDS)
+            return 'done'
+        } as DataFetcher).build()
+        def controller = new AdmissionController(1, 5, Duration.ofSeconds(10))
+        def executor = new GraphQLExecutor(SharedEntityManagerCreator.createSharedEntityManager(factory)).setAdmissionController(controller)
+        executor.updateSchema { it.addQueryField(slow) }
+        def execute = { executor.admit('{ slow Thing { type } }') { transactions.execute { executor.execute('{ slow Thing { type } }') } } }
+
+        when:
+        def running = CompletableFuture.supplyAsync(execute)
+        fetching.await(10, TimeUnit.SECONDS)
+        def queued = CompletableFuture.supplyAsync(execute)
+        waitForQueueDepth(controller, 1)
+
+        then:
+        controller.getQueueDepth(AdmissionController.DEFAULT_LANE) == 1
+        connections.open.get() == 1
+
+        when:
+        release.countDown()
+
+        then:
+        [running, queued]*.get(10, TimeUnit.SECONDS).every { it.errors.empty && it.data.Thing[0].type == 'Thing1' }
+        connections.open.get() == 0
+
+        cleanup:
+        factory?.close()
+    }
+
+    private static void waitForQueueDepth(AdmissionController controller, int depth) {
+        long deadline = System.currentTimeMillis() + 5000
+        while (controller.getQueueDepth(AdmissionController.DEFAULT_LANE) != depth && System.currentTimeMillis() < deadline)
+            Thread.sleep(5)
+    }
+
+    /**
+     * Counts the connections currently open.
+     */
+    private static class CountingDataSource extends DelegatingDataSource {
+
+        final AtomicInteger open = new AtomicInteger()
+
+        CountingDataSource(DataSource dataSource) {
+            super(dataSource)
+        }
+
+        @Override
+        Connection getConnection() {
+            Connection connection = super.getConnection()
+            open.incrementAndGet()
+            return (Connection) Proxy.newProxyInstance(Connection.classLoader, [Connection] as Class[], { proxy, Method method, Object[] args ->
+                if (method.name == 'close' && !connection.isClosed())
+                    open.decrementAndGet()
+
+                try {
+                    return method.invoke(connection, args)
+                } catch (InvocationTargetException e) {
+                    throw e.cause
+                }
+            } as InvocationHandler)
+        }
+
+    }
+
+}
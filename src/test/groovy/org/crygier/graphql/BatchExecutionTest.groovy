@@ -0,0 +1,121 @@
+package org.crygier.graphql
+
+import graphql.ExecutionInput
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+import javax.persistence.EntityManagerFactory
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class BatchExecutionTest extends Specification {
+
+    @Autowired
+    private EntityManager entityManager
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory
+
+    @Autowired
+    private PlatformTransactionManager transactionManager
+
+    def 'Returns the results of the operations in order'() {
+        given:
+        def queries = [
+                '{ Human(homePlanet: "Tatooine") { name(orderBy: ASC) friends { name } } }',
+                '{ Droid { name(orderBy: ASC) primaryFunction } }',
+                '{ HumanConnection(paginationRequest: { page: 1, size: 2 }) { totalElements content { name(orderBy: ASC) } } }'
+        ]
+        def executor = new GraphQLExecutor(entityManager)
+        def expected = queries.collect { query -> new TransactionTemplate(transactionManager).execute { executor.execute(query) } }
+
+        when:
+        def results = new TransactionTemplate(transactionManager).execute { executor.executeBatch(queries.collect { input(it) }) }
+
+        then:
+        results*.errors.every { it.empty }
+        results*.data == expected*.data
+    }
+
+    def 'Shares queries and entities between the operations'() {
+        given:
+        def executor = new GraphQLExecutor(entityManager)
+                .setStatisticsProvider(new HibernateStatisticsProvider())
+                .setStatisticsInExtensions(true)
+
+        when:
+        def results = new TransactionTemplate(transactionManager).execute {
+            executor.executeBatch([
+                    input('{ Human { name } }'),
+                    input('query luke($id: String) { Human(id: $id) { name friends { name } } }', [id: '1000']),
+                    input('{ Human(id: "1000") { name friends { name } } }'),
+                    input('{ Human(id: "1003") { name } }')
+            ])
+        }
+
+        then:
+        results*.errors.every { it.empty }
+        results[1].data == results[2].data
+        results[1].data.Human[0].friends.size() == 4
+        results[0].extensions.statistics.statements > 0
+        // Luke is loaded already, only his friends are queried
+        results[1].extensions.statistics.statements == 1
+        results[2].extensions.statistics.statements == 0
+        results[3].extensions.statistics.statements == 0
+    }
+
+    def 'Selects the named operations'() {
+        given:
+        def document = '''
+            query humans { Human(homePlanet: "Alderaan") { name } }
+            query droids { Droid(name: "R2-D2") { primaryFunction } }
+        '''
+
+        when:
+        def results = new TransactionTemplate(transactionManager).execute {
+            new GraphQLExecutor(entityManager).executeBatch([input(document, null, 'droids'), input(document, null, 'humans')])
+        }
+
+        then:
+        results*.data == [[Droid: [[primaryFunction: 'Astromech']]], [Human: [[name: 'Leia Organa']]]]
+    }
+
+    def 'Runs in a transaction of its own, which is rolled back'() {
+        given:
+        def applicationManaged = entityManagerFactory.createEntityManager()
+
+        when:
+        def results = new GraphQLExecutor(applicationManaged).executeBatch([input('{ Human(id: "1000") { name friends { name } } }')])
+
+        then:
+        results[0].errors.empty
+        results[0].data.Human[0].friends.size() == 4
+        !applicationManaged.transaction.active
+
+        cleanup:
+        applicationManaged.close()
+    }
+
+    def 'Rejects mutations'() {
+        when:
+        new GraphQLExecutor(entityManager).executeBatch([input('{ Human { name } }'), input('mutation { Human { name } }')])
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    private static ExecutionInput input(String query, Map<String, Object> variables = null, String operationName = null) {
+        def builder = ExecutionInput.newExecutionInput().query(query).operationName(operationName)
+        if (variables != null)
+            builder.variables(variables)
+
+        return builder.build()
+    }
+
+}
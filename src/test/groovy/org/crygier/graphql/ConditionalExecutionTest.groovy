@@ -0,0 +1,123 @@
+package org.crygier.graphql
+
+import org.crygier.graphql.model.versions.Author
+import org.crygier.graphql.model.versions.Book
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+import javax.persistence.EntityManagerFactory
+
+class ConditionalExecutionTest extends Specification {
+
+    private static final String QUERY = '{ Book(genre: "novel") { title(orderBy: ASC) author { name } } }'
+
+    private EntityManagerFactory entityManagerFactory
+
+    private EntityManager entityManager
+
+    private GraphQLExecutor executor
+
+    void setup() {
+        // The changes are made to a database of its own, so the other tests are not affected by them
+        def tolstoy = new Author(id: 1, name: 'Leo Tolstoy')
+        def austen = new Author(id: 2, name: 'Jane Austen')
+        entityManagerFactory = TestDatabases.create('versions', [
+                tolstoy,
+                austen,
+                new Book(id: 1, title: 'War and Peace', genre: 'novel', author: tolstoy),
+                new Book(id: 2, title: 'Anna Karenina', genre: 'novel', author: tolstoy),
+                new Book(id: 3, title: 'Emma', genre: 'novel', author: austen),
+                new Book(id: 4, title: 'The Kingdom of God Is Within You', genre: 'essay', author: tolstoy)
+        ])
+        entityManager = entityManagerFactory.createEntityManager()
+        executor = new GraphQLExecutor(entityManager)
+    }
+
+    void cleanup() {
+        entityManager.close()
+        entityManagerFactory.close()
+    }
+
+    def 'Answers clients holding the current result without executing the query'() {
+        given:
+        def executed = executor.executeIfModified(QUERY, null, null)
+
+        when:
+        def result = executor.executeIfModified(QUERY, null, 'W/' + executed.etag)
+
+        then:
+        !executed.notModified
+        executed.executionResult.data.Book*.title == ['Anna Karenina', 'Emma', 'War and Peace']
+        executed.etag ==~ /"[0-9a-f]{64}"/
+        result.notModified
+        result.executionResult == null
+        result.etag == executed.etag
+    }
+
+    def 'Changes the ETag with the selected entities'() {
+        given:
+        def etag = executor.getEtag(QUERY, null)
+
+        when:
+        transaction(change)
+
+        then:
+        (executor.getEtag(QUERY, null) != etag) == modified
+
+        where:
+        change                                                                   || modified
+        { EntityManager it -> it.find(Book, 1L).title = 'War & Peace' }          || true
+        { EntityManager it -> it.find(Book, 4L).title = 'The Kingdom of God' }   || false
+        { EntityManager it -> it.find(Author, 2L).name = 'J. Austen' }           || true
+        { EntityManager it -> it.persist(new Book(id: 5, genre: 'novel')) }      || true
+        { EntityManager it -> it.remove(it.find(Book, 3L)) }                     || true
+        { EntityManager it -> it.find(Book, 3L).genre = 'romance' }              || true
+    }
+
+    def 'Changes the ETag with updates to entities older than the latest one'() {
+        given:
+        def etags = [executor.getEtag(QUERY, null)]
+
+        when:
+        transaction { EntityManager it -> it.find(Book, 1L).title = 'War & Peace' }
+        etags << executor.getEtag(QUERY, null)
+        // Anna Karenina is still at a lower version than War and Peace, and stays at no greater one
+        transaction { EntityManager it -> it.find(Book, 2L).title = 'Anna' }
+        etags << executor.getEtag(QUERY, null)
+
+        then:
+        etags.every { it != null }
+        etags.unique(false).size() == 3
+    }
+
+    def 'Probes connections across their pages'() {
+        given:
+        def query = '{ BookConnection(paginationRequest: { page: 1, size: 2 }) { totalElements content { title(orderBy: ASC) } } }'
+        def etag = executor.getEtag(query, null)
+
+        when:
+        transaction { EntityManager it -> it.find(Book, 4L).title = 'A Confession' }
+
+        then:
+        etag != null
+        executor.getEtag(query, null) != etag
+        executor.executeIfModified(query, null, etag).executionResult.data.BookConnection.content*.title == ['A Confession', 'Anna Karenina']
+    }
+
+    def 'Always executes queries selecting entities without a version'() {
+        when:
+        def result = executor.executeIfModified('{ Human { name } }', null, '*')
+
+        then:
+        result.etag == null
+        !result.notModified
+        result.executionResult.errors.empty
+    }
+
+    private void transaction(Closure<?> work) {
+        entityManager.transaction.begin()
+        work(entityManager)
+        entityManager.transaction.commit()
+    }
+
+}
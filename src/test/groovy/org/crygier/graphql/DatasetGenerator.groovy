@@ -0,0 +1,221 @@
+package org.crygier.graphql
+
+import org.hibernate.Session
+import org.hibernate.jdbc.Work
+
+import javax.persistence.EntityManager
+import javax.persistence.EntityManagerFactory
+import java.nio.ByteBuffer
+import java.sql.Connection
+import java.sql.PreparedStatement
+
+/**
+ * Expands the Star Wars and Thing models to a configurable size, in a separate in-memory H2 database. Rows are inserted
+ * with JDBC batches rather than through the entity manager, so millions of characters take minutes, not hours.
+ * <p>
+ * The friend graph is skewed: most characters have a few friends, a few have up to {@code maxFriends}, and friends are
+ * mostly picked from the first, popular, characters. The data only depends on the seed.
+ */
+class DatasetGenerator {
+
+    private static final int BATCH_SIZE = 10000
+    private static final long THING_ID_PREFIX = 0x5EEDL
+
+    int humans = 1000
+    int droids = 200
+    int things = 500
+    int maxFriends = 50
+    long seed = 42
+
+    /**
+     * Creates a generator sized by the {@code workload.characters}, {@code workload.things},
+     * {@code workload.maxFriends} and {@code workload.seed} system properties, a tenth of the characters being droids.
+     */
+    static DatasetGenerator fromSystemProperties() {
+        int characters = Integer.getInteger('workload.characters', 1200)
+        return new DatasetGenerator(
+                humans: characters - characters.intdiv(10),
+                droids: characters.intdiv(10),
+                things: Integer.getInteger('workload.things', 500),
+                maxFriends: Integer.getInteger('workload.maxFriends', 50),
+                seed: Long.getLong('workload.seed', 42))
+    }
+
+    Dataset generate(String name) {
+        // Name the tables and columns as Spring Boot does, the same as data.sql
+        EntityManagerFactory factory = TestDatabases.create(name, [], [
+                'hibernate.implicit_naming_strategy': 'org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy',
+                'hibernate.physical_naming_strategy': 'org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy'])
+
+        EntityManager entityManager = factory.createEntityManager()
+        try {
+            entityManager.unwrap(Session).doWork({ Connection connection ->
+                connection.autoCommit = false
+                insertCodeLists(connection)
+                insertCharacters(connection)
+                insertFriends(connection)
+                insertThings(connection)
+            } as Work)
+        } finally {
+            entityManager.close()
+        }
+
+        return new Dataset(factory, this)
+    }
+
+    private void insertCodeLists(Connection connection) {
+        insert(connection, 'insert into code_list (id, type, code, description, sequence, active) values (?, ?, ?, ?, ?, ?)', 2) { PreparedStatement statement, int i ->
+            String code = i == 0 ? 'Male' : 'Female'
+            statement.setLong(1, i)
+            statement.setString(2, 'org.crygier.graphql.model.starwars.Gender')
+            statement.setString(3, code)
+            statement.setString(4, code)
+            statement.setInt(5, i + 1)
+            statement.setBoolean(6, true)
+        }
+    }
+
+    private void insertCharacters(Connection connection) {
+        Random random = new Random(seed)
+        String[] functions = ['Protocol', 'Astromech', 'Medical', 'Battle']
+        insert(connection, 'insert into character (id, name, primary_function, dtype) values (?, ?, ?, \'Droid\')', droids) { PreparedStatement statement, int i ->
+            statement.setString(1, Dataset.droidId(humans, i))
+            statement.setString(2, "Droid ${i}")
+            statement.setString(3, functions[random.nextInt(functions.length)])
+        }
+
+        // After the droids, as humans refer to their favorite one
+        String[] planets = ['Tatooine', 'Alderaan', 'Naboo', 'Hoth', null]
+        insert(connection, 'insert into character (id, name, home_planet, favorite_droid_id, gender_code_id, dtype) values (?, ?, ?, ?, ?, \'Human\')', humans) { PreparedStatement statement, int i ->
+            statement.setString(1, Dataset.humanId(i))
+            statement.setString(2, "Human ${i}")
+            statement.setString(3, planets[random.nextInt(planets.length)])
+            statement.setString(4, droids > 0 && random.nextInt(4) == 0 ? Dataset.droidId(humans, random.nextInt(droids)) : null)
+            statement.setLong(5, random.nextInt(2))
+        }
+
+        insert(connection, 'insert into character_appears_in (character_id, appears_in) values (?, ?)', humans + droids) { PreparedStatement statement, int i ->
+            statement.setString(1, String.valueOf(Dataset.FIRST_ID + i))
+            statement.setInt(2, 3 + random.nextInt(3))
+        }
+    }
+
+    private void insertFriends(Connection connection) {
+        Random random = new Random(seed + 1)
+        int characters = humans + droids
+        PreparedStatement statement = connection.prepareStatement('insert into character_friends (source_id, friend_id) values (?, ?)')
+        try {
+            int pending = 0
+            for (int source = 0; source < characters; source++) {
+                // Cubing a uniform number gives few characters many friends
+                int count = (int) (maxFriends * Math.pow(random.nextDouble(), 3))
+                Set<Integer> friends = new HashSet<>()
+                for (int attempt = 0; attempt < count * 2 && friends.size() < count; attempt++) {
+                    int friend = Dataset.skewed(random, characters)
+                    if (friend != source && friends.add(friend)) {
+                        statement.setString(1, String.valueOf(Dataset.FIRST_ID + source))
+                        statement.setString(2, String.valueOf(Dataset.FIRST_ID + friend))
+                        statement.addBatch()
+                        if (++pending % BATCH_SIZE == 0)
+                            flush(connection, statement)
+                    }
+                }
+            }
+            flush(connection, statement)
+        } finally {
+            statement.close()
+        }
+    }
+
+    private void insertThings(Connection connection) {
+        Random random = new Random(seed + 2)
+        insert(connection, 'insert into thing (id, type) values (?, ?)', things) { PreparedStatement statement, int i ->
+            UUID id = Dataset.thingId(i)
+            statement.setBytes(1, ByteBuffer.allocate(16).putLong(id.mostSignificantBits).putLong(id.leastSignificantBits).array())
+            statement.setString(2, "Thing${random.nextInt(10)}")
+        }
+    }
+
+    private static void insert(Connection connection, String sql, int rows, Closure bind) {
+        PreparedStatement statement = connection.prepareStatement(sql)
+        try {
+            for (int i = 0; i < rows; i++) {
+                bind(statement, i)
+                statement.addBatch()
+                if ((i + 1) % BATCH_SIZE == 0)
+                    flush(connection, statement)
+            }
+            flush(connection, statement)
+        } finally {
+            statement.close()
+        }
+    }
+
+    private static void flush(Connection connection, PreparedStatement statement) {
+        statement.executeBatch()
+        connection.commit()
+    }
+
+    /**
+     * A generated database, and the identifiers of its entities.
+     */
+    static class Dataset {
+
+        static final long FIRST_ID = 1000000
+
+        final EntityManagerFactory factory
+        final int humans
+        final int droids
+        final int things
+
+        private Dataset(EntityManagerFactory factory, DatasetGenerator generator) {
+            this.factory = factory
+            this.humans = generator.humans
+            this.droids = generator.droids
+            this.things = generator.things
+        }
+
+        static String humanId(int index) {
+            return String.valueOf(FIRST_ID + index)
+        }
+
+        static String droidId(int humans, int index) {
+            return String.valueOf(FIRST_ID + humans + index)
+        }
+
+        static UUID thingId(int index) {
+            return new UUID(THING_ID_PREFIX, index)
+        }
+
+        /**
+         * @return An index below the given bound, the lower ones picked far more often.
+         */
+        static int skewed(Random random, int bound) {
+            double uniform = random.nextDouble()
+            return (int) (bound * uniform * uniform)
+        }
+
+        /**
+         * @return The value of the given variable of a recorded operation, with placeholders like {@code $human}
+         *         replaced by the identifier of a random, mostly popular, entity.
+         */
+        Object resolve(Object value, Random random) {
+            switch (value) {
+                case '$human': return humanId(skewed(random, humans))
+                case '$droid': return droidId(humans, skewed(random, droids))
+                case '$thing': return thingId(skewed(random, things)).toString()
+                default: return value
+            }
+        }
+
+        int getCharacters() {
+            return humans + droids
+        }
+
+        void close() {
+            factory.close()
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.crygier.graphql
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import spock.lang.Specification
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class ExplainQueryExecutorTest extends Specification {
+
+    @Autowired
+    private GraphQLExecutor executor
+
+    def 'Explains the query of a field without fetching its entities'() {
+        when:
+        def plan = executor.explain('{ Human(homePlanet: "Tatooine") { name(orderBy: ASC) gender { description } } }', null)
+        def field = plan.fields[0]
+
+        then:
+        plan.errors.empty
+        plan.fields.size() == 1
+        field.path == '/Human'
+        field.entity == 'Human'
+        field.kind == 'query'
+        field.jpql.toLowerCase().contains('order by')
+        field.sql.size() == 1
+        field.sql[0].toLowerCase().startsWith('select')
+        field.parameters.values().toList() == ['Tatooine']
+        field.fetches == []
+        field.estimatedRows == 2
+    }
+
+    def 'Explains the content and count queries of a connection'() {
+        given:
+        def query = '''
+        {
+            HumanConnection(paginationRequest: { page: 2, size: 3 }) {
+                totalElements
+                content { name }
+            }
+        }
+        '''
+
+        when:
+        def plan = executor.explain(query, null)
+
+        then:
+        plan.fields*.kind == ['query', 'count']
+        plan.fields*.path == ['/HumanConnection', '/HumanConnection']
+        plan.fields[0].firstResult == 3
+        plan.fields[0].maxResults == 3
+        plan.fields[0].estimatedRows == 2
+        plan.fields[1].jpql.toLowerCase().contains('count(')
+    }
+
+    def 'Reports the errors of invalid operations'() {
+        when:
+        def plan = executor.explain('{ Human { unknown } }', null)
+
+        then:
+        plan.fields.empty
+        !plan.errors.empty
+    }
+
+    def 'Refuses to explain mutations'() {
+        when:
+        executor.explain('mutation { anything }', null)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+}
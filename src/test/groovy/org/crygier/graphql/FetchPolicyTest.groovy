@@ -0,0 +1,139 @@
+package org.crygier.graphql
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class FetchPolicyTest extends Specification {
+
+    private static final String QUERY = '{ Human { name(orderBy: ASC) friends { name appearsIn } } }'
+
+    @Autowired
+    private EntityManager entityManager
+
+    @Autowired
+    private PlatformTransactionManager transactionManager
+
+    def 'Loads the selected collections without initializing them lazily'() {
+        given:
+        def expected = execute(null, QUERY)
+
+        when:
+        def result = execute(new FetchPolicy(), QUERY)
+
+        then:
+        // Collections are unordered, so their elements may be loaded in any order
+        normalize(result.data) == normalize(expected.data)
+        result.extensions.statistics.collectionsInitialized == 0
+        result.extensions.statistics.statements < expected.extensions.statistics.statements
+        expected.extensions.statistics.collectionsInitialized > 0
+    }
+
+    def 'Records the cardinalities of the associations'() {
+        given:
+        def policy = new FetchPolicy()
+
+        when:
+        execute(policy, QUERY)
+
+        then:
+        policy.getStatistics('Human.friends').observations == 1
+        policy.getStatistics('Human.friends').owners == 5
+        policy.getStatistics('Human.friends').targets == 13
+        policy.getStatistics('Human.friends.appearsIn').owners == 7
+        policy.statistics.keySet() == ['Human.friends', 'Human.friends.appearsIn'] as Set
+    }
+
+    def 'Chooses the strategy of collections from their cardinalities'() {
+        given:
+        def policy = new FetchPolicy().minObservations(2).maxJoinFanOut(maxJoinFanOut).maxBatchSize(maxBatchSize)
+
+        when:
+        def strategies = (1..3).collect {
+            def result = execute(policy, QUERY)
+            assert result.errors.empty
+            assert result.data.Human.find { it.name == 'Luke Skywalker' }.friends.size() == 4
+            policy.getStrategy('Human.friends', true)
+        }
+
+        then:
+        strategies == [FetchStrategy.BATCH, expected, expected]
+        policy.getStrategy('Human.favoriteDroid', false) == FetchStrategy.JOIN
+
+        where:
+        maxJoinFanOut | maxBatchSize || expected
+        4             | 100          || FetchStrategy.JOIN
+        1             | 100          || FetchStrategy.BATCH
+        1             | 2            || FetchStrategy.SUBSELECT
+    }
+
+    def 'Pins strategies through configuration'() {
+        given:
+        def configuration = new Properties()
+        configuration.setProperty('Human.friends', strategy)
+        def policy = new FetchPolicy().pin(configuration)
+
+        when:
+        def result = execute(policy, '{ Human(homePlanet: "Tatooine") { name(orderBy: ASC) friends { name } } }')
+
+        then:
+        policy.pinned == ['Human.friends': FetchStrategy.valueOf(strategy.toUpperCase())]
+        result.errors.empty
+        result.data.Human*.name == ['Darth Vader', 'Luke Skywalker']
+        result.data.Human*.friends*.size() == [1, 4]
+        result.extensions.statistics.collectionsInitialized == 0
+
+        where:
+        strategy << ['join', 'BATCH', 'Subselect']
+    }
+
+    def 'Never joins collections into paginated queries'() {
+        given:
+        def policy = new FetchPolicy().pin('Human.friends', FetchStrategy.JOIN)
+
+        when:
+        def result = execute(policy, '{ HumanConnection(paginationRequest: { page: 2, size: 2 }) { totalElements content { name(orderBy: ASC) friends { name } } } }')
+
+        then:
+        result.errors.empty
+        result.data.HumanConnection.totalElements == 5
+        result.data.HumanConnection.content*.name == ['Leia Organa', 'Luke Skywalker']
+        result.data.HumanConnection.content*.friends*.size() == [4, 4]
+        result.extensions.statistics.collectionsInitialized == 0
+    }
+
+    def 'Rejects unknown strategies'() {
+        when:
+        new FetchPolicy().pin(['Human.friends': 'EAGER'] as Properties)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    private static def normalize(value) {
+        if (value instanceof Map)
+            return value.collectEntries { key, entry -> [key, normalize(entry)] }
+        if (value instanceof Collection)
+            return value.collect { normalize(it) }.sort { it.toString() }
+
+        return value
+    }
+
+    private def execute(FetchPolicy policy, String query) {
+        def executor = new GraphQLExecutor(entityManager)
+                .setFetchPolicy(policy)
+                .setStatisticsProvider(new HibernateStatisticsProvider())
+                .setStatisticsInExtensions(true)
+
+        return new TransactionTemplate(transactionManager).execute { executor.execute(query) }
+    }
+
+}
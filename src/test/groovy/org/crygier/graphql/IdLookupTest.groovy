@@ -0,0 +1,114 @@
+package org.crygier.graphql
+
+import graphql.Scalars
+import graphql.schema.GraphQLList
+import graphql.schema.GraphQLNonNull
+import org.crygier.graphql.model.starwars.Human
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class IdLookupTest extends Specification {
+
+    @Autowired
+    private EntityManager entityManager
+
+    @Autowired
+    private PlatformTransactionManager transactionManager
+
+    private GraphQLExecutor executor
+
+    void setup() {
+        executor = new GraphQLExecutor(entityManager).setStatisticsProvider(new HibernateStatisticsProvider()).setStatisticsInExtensions(true)
+    }
+
+    def 'Generates fields fetching entities by identifier'() {
+        when:
+        def queryType = executor.graphQLSchema.queryType
+
+        then:
+        queryType.getFieldDefinition('HumanById').type.name == 'Human'
+        queryType.getFieldDefinition('HumanById').getArgument('id').type == new GraphQLNonNull(Scalars.GraphQLString)
+        queryType.getFieldDefinition('CodeListById').getArgument('id').type == new GraphQLNonNull(Scalars.GraphQLLong)
+        queryType.getFieldDefinition('ThingByIds').getArgument('ids').type == new GraphQLNonNull(new GraphQLList(new GraphQLNonNull(JavaScalars.GraphQLUUID)))
+        queryType.getFieldDefinition('EmbeddingTestById') == null
+    }
+
+    def 'Fetches an entity by identifier'() {
+        when:
+        def result = inTransaction { executor.execute('''{
+            luke: HumanById(id: "1000") { name friends { name } }
+            droid: HumanById(id: "2000") { name }
+            missing: HumanById(id: "9999") { name }
+            thing: ThingById(id: "2d1ebc5b-7d27-4197-9cf0-e84451c5bbb1") { type }
+        }''') }
+
+        then:
+        result.errors.empty
+        result.data.luke.name == 'Luke Skywalker'
+        result.data.luke.friends*.name as Set == ['Han Solo', 'Leia Organa', 'C-3PO', 'R2-D2'] as Set
+        result.data.droid == null
+        result.data.missing == null
+        result.data.thing.type == 'Thing1'
+    }
+
+    def 'Fetches entities by identifiers in their order'() {
+        when:
+        def result = inTransaction { executor.execute('''{
+            CharacterByIds(ids: ["1003", "2001", "9999", "1000", "1003"]) { name }
+            DroidByIds(ids: ["2001", "1000", "2000", "2001"]) { name }
+        }''') }
+
+        then:
+        result.errors.empty
+        result.data.CharacterByIds*.name == ['Leia Organa', 'R2-D2', null, 'Luke Skywalker', 'Leia Organa']
+        result.data.DroidByIds*.name == ['R2-D2', null, 'C-3PO', 'R2-D2']
+        // A batch of each, and the genders of the humans
+        result.extensions.statistics.statements == 4
+    }
+
+    def 'Finds entities selected by identifier alone in the persistence context'() {
+        when:
+        def result = inTransaction {
+            entityManager.find(Human, '1000')
+            entityManager.find(Human, '1003')
+            executor.execute('''{
+                Human(id: "1000") { name }
+                HumanByIds(ids: ["1003", "1000"]) { name }
+            }''')
+        }
+
+        then:
+        result.errors.empty
+        result.data.Human*.name == ['Luke Skywalker']
+        result.data.HumanByIds*.name == ['Leia Organa', 'Luke Skywalker']
+        // The identifiers are not in the second-level cache, so the list is queried in a batch nonetheless
+        result.extensions.statistics.statements == 1
+    }
+
+    def 'Queries entities restricted beyond their identifier'() {
+        when:
+        def result = inTransaction { executor.execute('''{
+            byIds: HumanByIds(ids: ["1000", "1003"]) { name gender(code: "Male") { code } }
+            byId: Human(id: "1003") { name gender(code: "Male") { code } }
+        }''') }
+
+        then:
+        result.errors.empty
+        result.data.byIds == [[name: 'Luke Skywalker', gender: [code: 'Male']], null]
+        result.data.byId == []
+    }
+
+    private <T> T inTransaction(Closure<T> closure) {
+        return new TransactionTemplate(transactionManager).execute { closure() }
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.crygier.graphql
+
+import graphql.schema.GraphQLFieldDefinition
+import graphql.schema.GraphQLObjectType
+import graphql.schema.StaticDataFetcher
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+
+import static graphql.Scalars.GraphQLString
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class IncrementalSchemaUpdateTest extends Specification {
+
+    @Autowired
+    private EntityManager entityManager
+
+    private GraphQLExecutor executor
+
+    void setup() {
+        executor = new GraphQLExecutor(entityManager)
+    }
+
+    def 'Adds a mutation field without rebuilding the entity types'() {
+        given:
+        def droidType = executor.schema.getType('Droid')
+        def field = GraphQLFieldDefinition.newFieldDefinition()
+                .name('createDroid')
+                .type(GraphQLString)
+                .dataFetcher(new StaticDataFetcher('R5-D4'))
+                .build()
+
+        when:
+        executor.updateSchema { it.addMutationField(field) }
+
+        then:
+        executor.schema.mutationType.name == 'MutationType_JPA'
+        executor.execute('mutation { createDroid }').data == [createDroid: 'R5-D4']
+        executor.schema.getType('Droid').is(droidType)
+
+        when:
+        executor.updateSchema { it.removeMutationField('createDroid') }
+
+        then:
+        executor.schema.mutationType == null
+    }
+
+    def 'Removes and re-adds the query fields of an entity'() {
+        given:
+        def codeList = entityManager.metamodel.entities.find { it.name == 'CodeList' }
+        def fieldCount = executor.schema.queryType.fieldDefinitions.size()
+
+        when:
+        executor.updateSchema { it.removeEntity(codeList) }
+
+        then:
+        executor.schema.queryType.getFieldDefinition('CodeList') == null
+        executor.schema.queryType.getFieldDefinition('CodeListConnection') == null
+        executor.execute('{ CodeList { code } }').errors
+
+        when:
+        executor.updateSchema { it.addEntity(codeList) }
+
+        then:
+        executor.schema.queryType.fieldDefinitions.size() == fieldCount
+        executor.execute("{ CodeList(code: \"Male\") { code } }").data == [CodeList: [[code: 'Male']]]
+    }
+
+    def 'Keeps the fields of a mutation type set through the builder'() {
+        given:
+        def droidMutation = GraphQLObjectType.newObject()
+                .name('CreateDroidMutation')
+                .field(GraphQLFieldDefinition.newFieldDefinition().name('name').type(GraphQLString))
+                .build()
+        executor.updateSchema(executor.builder.mutation(droidMutation))
+
+        when:
+        executor.updateSchema { it.addMutationField(GraphQLFieldDefinition.newFieldDefinition().name('model').type(GraphQLString).build()) }
+
+        then:
+        executor.schema.mutationType.name == 'CreateDroidMutation'
+        executor.schema.mutationType.fieldDefinitions*.name == ['name', 'model']
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.crygier.graphql
+
+import graphql.ExecutionInput
+import graphql.introspection.IntrospectionQuery
+import graphql.schema.GraphQLObjectType
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+
+import static graphql.Scalars.GraphQLString
+import static graphql.schema.GraphQLFieldDefinition.newFieldDefinition
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class IntrospectionQueryExecutorTest extends Specification {
+
+    @Autowired
+    private EntityManager entityManager
+
+    def 'Serves the standard introspection query from the cache'() {
+        given:
+        def executor = new GraphQLExecutor(entityManager)
+
+        when:
+        def cached = executor.getIntrospectionResult()
+
+        then:
+        executor.execute(IntrospectionQuery.INTROSPECTION_QUERY).is(cached.executionResult)
+        cached.json.startsWith('{"data":{"__schema":')
+        cached.matches(cached.etag)
+        !cached.matches('"stale"')
+
+        when:
+        cached.executionResult.data.__schema.types.clear()
+
+        then:
+        thrown(UnsupportedOperationException)
+        !executor.execute(IntrospectionQuery.INTROSPECTION_QUERY).data.__schema.types.empty
+    }
+
+    def 'Caches introspection-only operations, including fragments'() {
+        given:
+        def executor = new GraphQLExecutor(entityManager)
+        def query = '''
+        query { ...types }
+        fragment types on QueryType_JPA { __type(name: "Droid") { name } }
+        '''
+
+        when:
+        def result = executor.getIntrospectionResult(query, null)
+
+        then:
+        result.executionResult.data == [ __type: [ name: 'Droid' ] ]
+        executor.getIntrospectionResult(query, null).is(result)
+    }
+
+    def 'Caches the operations of a query by their names'() {
+        given:
+        def executor = new GraphQLExecutor(entityManager)
+        def query = '''
+        query A { __type(name: "Droid") { name } }
+        query B { __type(name: "Human") { name } }
+        '''
+
+        when:
+        def a = executor.getIntrospectionResult(query, 'A', null)
+        def b = executor.getIntrospectionResult(query, 'B', null)
+        def batched = executor.executeBatch([
+                ExecutionInput.newExecutionInput().query(query).operationName('B').build(),
+                ExecutionInput.newExecutionInput().query(query).operationName('A').build()
+        ])
+
+        then:
+        a.executionResult.data == [ __type: [ name: 'Droid' ] ]
+        b.executionResult.data == [ __type: [ name: 'Human' ] ]
+        batched*.data == [ [ __type: [ name: 'Human' ] ], [ __type: [ name: 'Droid' ] ] ]
+        executor.getIntrospectionResult(query, 'A', null).is(a)
+    }
+
+    def 'Does not cache operations selecting data'() {
+        given:
+        def executor = new GraphQLExecutor(entityManager)
+
+        expect:
+        executor.getIntrospectionResult('{ __schema { queryType { name } } Droid { name } }', null) == null
+    }
+
+    def 'Changes the ETag when the schema changes'() {
+        given:
+        def executor = new GraphQLExecutor(entityManager)
+        def etag = executor.getIntrospectionResult().etag
+        def mutation = GraphQLObjectType.newObject().name('Mutation').field(newFieldDefinition().name('name').type(GraphQLString)).build()
+
+        when:
+        executor.updateSchema(executor.getBuilder().mutation(mutation))
+
+        then:
+        executor.getIntrospectionResult().etag != etag
+    }
+
+}
@@ -8,6 +8,7 @@ import java.time.LocalDate
 import java.time.LocalDateTime
 import java.time.Month
 import java.time.ZoneId
+import java.time.ZoneOffset
 
 class JavaScalarsTest extends Specification {
 
@@ -96,4 +97,54 @@ class JavaScalarsTest extends Specification {
         result.month == Month.FEBRUARY
         result.year == 2017
     }
+
+    def 'ISO format'() {
+        given:
+        JavaScalars scalars = new JavaScalars(JavaScalars.TemporalFormat.ISO, ZoneOffset.UTC)
+
+        expect:
+        scalars.localDateTime.coercing.serialize(LocalDateTime.of(2017, 02, 02, 12, 30, 15)) == '2017-02-02T12:30:15'
+        scalars.localDate.coercing.serialize(LocalDate.of(2017, 02, 02)) == '2017-02-02'
+        scalars.instant.coercing.serialize(Instant.ofEpochSecond(1486038615)) == '2017-02-02T12:30:15Z'
+        scalars.instant.coercing.parseValue('2017-02-02T12:30:15Z') == Instant.ofEpochSecond(1486038615)
+        scalars.date.coercing.serialize(new Date(1486038615000)) == '2017-02-02T12:30:15Z'
+        scalars.date.coercing.parseValue('2017-02-02T12:30:15Z') == new Date(1486038615000)
+    }
+
+    def 'Epoch millis format'() {
+        given:
+        JavaScalars scalars = new JavaScalars(JavaScalars.TemporalFormat.EPOCH_MILLIS, ZoneOffset.ofHours(1))
+
+        expect:
+        scalars.localDateTime.coercing.serialize(LocalDateTime.of(2017, 02, 02, 13, 30, 15)) == 1486038615000
+        scalars.localDateTime.coercing.parseValue(1486038615000) == LocalDateTime.of(2017, 02, 02, 13, 30, 15)
+        scalars.localDate.coercing.serialize(LocalDate.of(2017, 02, 02)) == 1485990000000
+        scalars.instant.coercing.serialize(Instant.ofEpochSecond(1486038615)) == 1486038615000
+        scalars.instant.coercing.parseValue(1486038615000) == Instant.ofEpochSecond(1486038615)
+    }
+
+    def 'String to UUID'() {
+        given:
+        Coercing coercing = JavaScalars.GraphQLUUID.getCoercing()
+
+        expect:
+        coercing.parseValue(input) == (expected != null ? UUID.fromString(expected) : null)
+
+        where:
+        input                                  | expected
+        '123e4567-e89b-12d3-a456-426655440000' | '123e4567-e89b-12d3-a456-426655440000'
+        'FFFFFFFF-FFFF-FFFF-FFFF-FFFFFFFFFFFF' | 'ffffffff-ffff-ffff-ffff-ffffffffffff'
+        '1-2-3-4-5'                            | '00000001-0002-0003-0004-000000000005'
+        'not-a-uuid'                           | null
+    }
+
+    def 'Invalid input is logged once per interval'() {
+        given:
+        JavaScalars.RateLimitedLog log = new JavaScalars.RateLimitedLog('UUID')
+
+        expect:
+        log.warn('a', new IllegalArgumentException())
+        !log.warn('b', new IllegalArgumentException())
+        !log.warn('c', new IllegalArgumentException())
+    }
 }
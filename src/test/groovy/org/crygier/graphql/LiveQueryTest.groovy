@@ -0,0 +1,192 @@
+package org.crygier.graphql
+
+import graphql.ExecutionResult
+import org.crygier.graphql.model.starwars.Droid
+import org.crygier.graphql.model.starwars.Human
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+import javax.persistence.EntityManagerFactory
+
+class LiveQueryTest extends Specification {
+
+    private EntityManagerFactory entityManagerFactory
+
+    private EntityManager entityManager
+
+    private LiveQueryRegistry registry
+
+    private List<List<Object>> delivered = []
+
+    private LiveQueryTransport transport = new LiveQueryTransport() {
+        @Override
+        void result(LiveQuery liveQuery, Map<String, Object> result) {
+            delivered << [liveQuery.id, 'result', result]
+        }
+
+        @Override
+        void patch(LiveQuery liveQuery, List<Map<String, Object>> patch) {
+            delivered << [liveQuery.id, 'patch', patch]
+        }
+    }
+
+    void setup() {
+        // The changes are made to a database of its own, so the other tests are not affected by them
+        def luke = new Human(id: '1000', name: 'Luke Skywalker', homePlanet: 'Tatooine')
+        def leia = new Human(id: '1003', name: 'Leia Organa', homePlanet: 'Alderaan')
+        entityManagerFactory = TestDatabases.create('liveQueries', [
+                luke,
+                leia,
+                new Human(id: '1001', name: 'Darth Vader', homePlanet: 'Tatooine'),
+                new Human(id: '1004', name: 'Wilhuff Tarkin'),
+                new Droid(id: '2001', name: 'R2-D2', friends: [luke, leia])
+        ])
+        entityManager = entityManagerFactory.createEntityManager()
+        registry = new LiveQueryRegistry(new GraphQLExecutor(entityManager))
+    }
+
+    void cleanup() {
+        registry.close()
+        entityManager.close()
+        entityManagerFactory.close()
+    }
+
+    def 'Delivers the changed fields as a patch'() {
+        given:
+        def liveQuery = register('{ Human(homePlanet: "Tatooine") { name(orderBy: ASC) } }')
+
+        when:
+        rename('1000', 'Luke')
+        def executed = registry.refresh()
+        rename('1000', 'Luke Skywalker')
+        registry.refresh()
+
+        then:
+        executed == 1
+        delivered == [
+                [liveQuery.id, 'result', [data: [Human: [[name: 'Darth Vader'], [name: 'Luke Skywalker']]]]],
+                [liveQuery.id, 'patch', [[op: 'replace', path: '/data/Human/1/name', value: 'Luke']]],
+                [liveQuery.id, 'patch', [[op: 'replace', path: '/data/Human/1/name', value: 'Luke Skywalker']]]
+        ]
+        liveQuery.result == delivered[0][2]
+    }
+
+    def 'Executes only the live queries depending on a changed entity'() {
+        given:
+        def humans = register('{ Human(homePlanet: "Alderaan") { name } }')
+        def droid = register('{ Droid(id: "2001") { name friends { name } } }')
+
+        when:
+        rename('1004', 'Grand Moff Tarkin')
+        def unrelated = registry.refresh()
+        rename('1003', 'Princess Leia')
+        def related = registry.refresh()
+
+        then:
+        // Tarkin is a human, but no friend of R2-D2
+        unrelated == 1
+        related == 2
+        delivered.findAll { it[1] == 'patch' } == [
+                [humans.id, 'patch', [[op: 'replace', path: '/data/Human/0/name', value: 'Princess Leia']]],
+                [droid.id, 'patch', [[op: 'replace', path: '/data/Droid/0/friends/1/name', value: 'Princess Leia']]]
+        ]
+    }
+
+    def 'Delivers new and removed entities of the selected types'() {
+        given:
+        def liveQuery = register('{ Human(homePlanet: "Tatooine") { name(orderBy: ASC) } }')
+
+        when:
+        transaction { entityManager.persist(new Human(id: '1005', name: 'Owen Lars', homePlanet: 'Tatooine')) }
+        registry.refresh()
+        transaction { entityManager.remove(entityManager.find(Human, '1005')) }
+        registry.refresh()
+
+        then:
+        delivered*.getAt(0).unique() == [liveQuery.id]
+        delivered*.getAt(2).tail() == [
+                [[op: 'add', path: '/data/Human/-', value: [name: 'Owen Lars']]],
+                [[op: 'remove', path: '/data/Human/2']]
+        ]
+    }
+
+    def 'Stops delivering to closed live queries'() {
+        given:
+        def liveQuery = register('{ Human(id: "1000") { name } }')
+
+        when:
+        liveQuery.close()
+        rename('1000', 'Luke')
+        def executed = registry.refresh()
+
+        then:
+        executed == 0
+        delivered.size() == 1
+        registry.liveQueries.empty
+    }
+
+    def 'Closes live queries failing to execute, and refreshes the others'() {
+        given:
+        registry.close()
+        def failing = false
+        registry = new LiveQueryRegistry(new GraphQLExecutor(entityManager) {
+            @Override
+            ExecutionResult executeLive(String query, Map<String, Object> arguments, LiveQueryDependencies dependencies) {
+                if (failing && query.contains('Droid'))
+                    throw new IllegalStateException('Failed')
+
+                return super.executeLive(query, arguments, dependencies)
+            }
+        })
+        def droid = register('{ Droid(id: "2001") { name friends { name } } }')
+        def humans = register('{ Human(homePlanet: "Alderaan") { name } }')
+
+        when:
+        failing = true
+        rename('1003', 'Princess Leia')
+        def executed = registry.refresh()
+
+        then:
+        executed == 2
+        delivered.findAll { it[1] == 'patch' } == [
+                [humans.id, 'patch', [[op: 'replace', path: '/data/Human/0/name', value: 'Princess Leia']]]
+        ]
+        registry.liveQueries as List == [humans]
+    }
+
+    def 'Rejects mutations'() {
+        when:
+        registry.register('mutation { Human { name } }', null, transport)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def 'Computes minimal patches'() {
+        expect:
+        JsonPatch.diff(source, target) == patch
+
+        where:
+        source                       | target                   || patch
+        [a: 1, b: [1, 2, 3]]         | [a: 1, b: [1, 2, 3]]     || []
+        [a: 1, b: [1, 2, 3]]         | [a: 2, b: [1]]           || [[op: 'replace', path: '/a', value: 2], [op: 'remove', path: '/b/2'], [op: 'remove', path: '/b/1']]
+        [a: [x: 1]]                  | [a: [x: 1, y: null]]     || [[op: 'add', path: '/a/y', value: null]]
+        ['a/b': 1, 'c~': 2]          | ['c~': 2]                || [[op: 'remove', path: '/a~1b']]
+        [a: null]                    | [a: [1]]                 || [[op: 'replace', path: '/a', value: [1]]]
+    }
+
+    private LiveQuery register(String query) {
+        return registry.register(query, null, transport)
+    }
+
+    private void rename(String id, String name) {
+        transaction { entityManager.find(Human, id).name = name }
+    }
+
+    private void transaction(Closure<?> work) {
+        entityManager.transaction.begin()
+        work()
+        entityManager.transaction.commit()
+    }
+
+}
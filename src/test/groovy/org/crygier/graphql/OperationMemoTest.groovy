@@ -0,0 +1,117 @@
+package org.crygier.graphql
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class OperationMemoTest extends Specification {
+
+    @Autowired
+    private EntityManager entityManager
+
+    @Autowired
+    private PlatformTransactionManager transactionManager
+
+    def 'Runs repeated queries once per operation'() {
+        given:
+        def single = execute('{ Human(homePlanet: "Tatooine") { name } }')
+
+        when:
+        def result = execute('''
+            query tatooine($planet: String) {
+                a: Human(homePlanet: "Tatooine") { name }
+                b: Human(homePlanet: $planet) { name }
+                ...humans
+            }
+            fragment humans on QueryType_JPA { Human(homePlanet: "Tatooine") { name } }
+        ''', [planet: 'Tatooine'])
+
+        then:
+        result.errors.empty
+        result.data.a == single.data.Human
+        result.data.b == single.data.Human
+        result.data.Human == single.data.Human
+        result.extensions.statistics.statements == single.extensions.statistics.statements
+    }
+
+    def 'Keeps apart queries differing in their arguments or selection'() {
+        when:
+        def result = execute('''
+            {
+                a: Human(homePlanet: "Tatooine") { name }
+                b: Human(homePlanet: "Alderaan") { name }
+                c: Human(homePlanet: "Tatooine") { name(orderBy: DESC) }
+                d: Human(homePlanet: "Tatooine") { name(orderBy: ASC) }
+            }
+        ''')
+
+        then:
+        result.errors.empty
+        result.data.a*.name as Set == ['Luke Skywalker', 'Darth Vader'] as Set
+        result.data.b*.name == ['Leia Organa']
+        result.data.c*.name == ['Luke Skywalker', 'Darth Vader']
+        result.data.d*.name == ['Darth Vader', 'Luke Skywalker']
+    }
+
+    def 'Serves entities loaded earlier in the operation by identifier'() {
+        given:
+        def single = execute('{ Human { name } }')
+
+        when:
+        def result = execute('''
+            {
+                Human { name }
+                luke: Human(id: "1000") { name friends { name } }
+                leia: Human(id: "1003") { name }
+            }
+        ''')
+
+        then:
+        result.errors.empty
+        result.data.luke*.name == ['Luke Skywalker']
+        result.data.luke[0].friends.size() == 4
+        result.data.leia*.name == ['Leia Organa']
+        // Only the friends of Luke are loaded on top of the humans
+        result.extensions.statistics.statements == single.extensions.statistics.statements + 1
+    }
+
+    def 'Shares the pages and counts of connections'() {
+        given:
+        def single = execute('{ HumanConnection(paginationRequest: { page: 1, size: 2 }) { totalElements content { name(orderBy: ASC) } } }')
+
+        when:
+        def result = execute('''
+            {
+                a: HumanConnection(paginationRequest: { page: 1, size: 2 }) { totalElements content { name(orderBy: ASC) } }
+                b: HumanConnection(paginationRequest: { page: 1, size: 2 }) { totalPages content { name(orderBy: ASC) } }
+                c: HumanConnection(paginationRequest: { page: 2, size: 2 }) { content { name(orderBy: ASC) } }
+            }
+        ''')
+
+        then:
+        result.errors.empty
+        result.data.a == single.data.HumanConnection
+        result.data.b.content == single.data.HumanConnection.content
+        result.data.b.totalPages == 3
+        result.data.c.content*.name == ['Leia Organa', 'Luke Skywalker']
+        // Only the second page is queried on top of the first, and the eagerly loaded gender of Leia
+        result.extensions.statistics.statements == single.extensions.statistics.statements + 2
+    }
+
+    private def execute(String query, Map<String, Object> variables = null) {
+        def executor = new GraphQLExecutor(entityManager)
+                .setStatisticsProvider(new HibernateStatisticsProvider())
+                .setStatisticsInExtensions(true)
+
+        return new TransactionTemplate(transactionManager).execute { executor.execute(query, variables) }
+    }
+
+}
@@ -0,0 +1,97 @@
+package org.crygier.graphql
+
+import org.hibernate.Session
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class OperationStatisticsTest extends Specification {
+
+    private static final String QUERY = '{ Human { name friends { name } } }'
+
+    @Autowired
+    private EntityManager entityManager
+
+    @Autowired
+    private PlatformTransactionManager transactionManager
+
+    private final def recorded = new CopyOnWriteArrayList<OperationStatistics>()
+    private GraphQLExecutor executor
+
+    void setup() {
+        executor = new GraphQLExecutor(entityManager)
+                .setStatisticsProvider(new HibernateStatisticsProvider())
+                .setMetrics(new ExecutorMetrics() {
+                    void operationCompleted(OperationStatistics statistics) { recorded << statistics }
+                })
+    }
+
+    def 'Adds the statistics of the operation to the extensions'() {
+        when:
+        def result = inTransaction { executor.setStatisticsInExtensions(true).execute(QUERY) }
+        def statistics = result.extensions.statistics
+
+        then:
+        result.errors.empty
+        statistics.statements > 1
+        statistics.entitiesLoaded >= result.data.Human.size()
+        statistics.collectionsInitialized == result.data.Human.size()
+        statistics.keySet() == ['statements', 'entitiesLoaded', 'collectionsInitialized', 'secondLevelCacheHits', 'secondLevelCacheMisses', 'jdbcMillis'] as Set
+        recorded.size() == 1
+        recorded[0].toMap() == statistics
+    }
+
+    def 'Leaves the extensions alone unless asked'() {
+        when:
+        def result = inTransaction { executor.execute(QUERY) }
+
+        then:
+        result.extensions == null
+        recorded.size() == 1
+        recorded[0].statements > 1
+    }
+
+    def 'Records concurrent operations separately'() {
+        given:
+        inTransaction { executor.execute(QUERY) }
+        def expected = recorded[0].toMap().findAll { it.key != 'jdbcMillis' }
+        recorded.clear()
+
+        when:
+        (1..4).collect { CompletableFuture.runAsync { inTransaction { executor.execute(QUERY) } } }*.join()
+
+        then:
+        recorded.size() == 4
+        recorded.every { it.toMap().findAll { it.key != 'jdbcMillis' } == expected }
+    }
+
+    def 'Listens to every session once, however many operations it executes'() {
+        when:
+        def listeners = inTransaction {
+            def session = entityManager.unwrap(Session)
+            def before = session.eventListenerManager.@listenerList?.size() ?: 0
+            3.times { executor.execute(QUERY) }
+            return session.eventListenerManager.@listenerList.size() - before
+        }
+
+        then:
+        listeners == 1
+        recorded.size() == 3
+        recorded.every { it.statements > 0 }
+    }
+
+    private <T> T inTransaction(Closure<T> closure) {
+        return new TransactionTemplate(transactionManager).execute { closure() }
+    }
+
+}
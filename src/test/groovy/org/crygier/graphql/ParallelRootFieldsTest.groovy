@@ -0,0 +1,119 @@
+package org.crygier.graphql
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+import javax.persistence.EntityManagerFactory
+import java.lang.reflect.InvocationHandler
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.lang.reflect.Proxy
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class ParallelRootFieldsTest extends Specification {
+
+    private static final String QUERY = '''
+        {
+            Human(homePlanet: "Tatooine") { name(orderBy: ASC) friends { name } }
+            Droid { name(orderBy: ASC) primaryFunction }
+            HumanConnection(paginationRequest: { page: 1, size: 2 }) { totalElements content { name(orderBy: ASC) gender { code } } }
+        }
+    '''
+
+    @Autowired
+    private EntityManager entityManager
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory
+
+    @Autowired
+    private PlatformTransactionManager transactionManager
+
+    private ExecutorService pool = Executors.newFixedThreadPool(4)
+
+    void cleanup() {
+        pool.shutdown()
+    }
+
+    def 'Fetches every root field with a manager of its own'() {
+        given:
+        def expected = new TransactionTemplate(transactionManager).execute { new GraphQLExecutor(entityManager).execute(QUERY) }
+        def managers = new AtomicInteger()
+        def executor = new GraphQLExecutor(entityManager).setParallelRootFields(counting(entityManagerFactory, managers), pool)
+
+        when:
+        def result = executor.execute(QUERY)
+
+        then:
+        result.errors.empty
+        result.data == expected.data
+        result.data.Human*.friends*.size() == [1, 4]
+        managers.get() == 3
+    }
+
+    def 'Records the statistics of every root field'() {
+        given:
+        def executor = new GraphQLExecutor(entityManager)
+                .setParallelRootFields(entityManagerFactory, pool)
+                .setStatisticsProvider(new HibernateStatisticsProvider())
+                .setStatisticsInExtensions(true)
+
+        when:
+        def result = executor.execute(QUERY)
+
+        then:
+        result.errors.empty
+        // Every root field and count query, and the lazily loaded friends and genders
+        result.extensions.statistics.statements >= 4
+        result.extensions.statistics.collectionsInitialized == 2
+    }
+
+    def 'Fetches mutations and explained operations one by one'() {
+        given:
+        def managers = new AtomicInteger()
+        def executor = new GraphQLExecutor(entityManager).setParallelRootFields(counting(entityManagerFactory, managers), pool)
+
+        when:
+        def plan = new TransactionTemplate(transactionManager).execute { executor.explain(QUERY, null) }
+
+        then:
+        plan.errors.empty
+        plan.fields*.path == ['/Human', '/Droid', '/HumanConnection', '/HumanConnection']
+        managers.get() == 0
+    }
+
+    def 'Requires a pool'() {
+        when:
+        new GraphQLExecutor(entityManager).setParallelRootFields(entityManagerFactory, null)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    /**
+     * @return The given factory, counting the managers created through it.
+     */
+    private static EntityManagerFactory counting(EntityManagerFactory factory, AtomicInteger managers) {
+        return (EntityManagerFactory) Proxy.newProxyInstance(EntityManagerFactory.classLoader, [EntityManagerFactory] as Class[], { proxy, Method method, Object[] args ->
+            if (method.name == 'createEntityManager')
+                managers.incrementAndGet()
+
+            try {
+                return method.invoke(factory, args)
+            } catch (InvocationTargetException e) {
+                throw e.cause
+            }
+        } as InvocationHandler)
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.crygier.graphql
+
+import org.crygier.graphql.model.uuid.Thing
+import spock.lang.Shared
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+import javax.persistence.EntityManagerFactory
+import java.lang.reflect.InvocationHandler
+import java.lang.reflect.Method
+import java.lang.reflect.Proxy
+
+class ReplicaRoutingTest extends Specification {
+
+    @Shared EntityManagerFactory primary
+    @Shared EntityManagerFactory replica1
+    @Shared EntityManagerFactory replica2
+
+    def setupSpec() {
+        primary = createDatabase('primary')
+        replica1 = createDatabase('replica1')
+        replica2 = createDatabase('replica2')
+    }
+
+    def cleanupSpec() {
+        [primary, replica1, replica2]*.close()
+    }
+
+    def 'Queries alternate between the replicas'() {
+        given:
+        def executor = new GraphQLExecutor(primary.createEntityManager(), new ReplicaRouter(primary, [replica1, replica2]))
+
+        when:
+        def types = (1..4).collect { executor.execute('{ Thing { type } }').data['Thing'][0]['type'] }
+
+        then:
+        types == ['replica1', 'replica2', 'replica1', 'replica2']
+    }
+
+    def 'Unhealthy and lagging replicas are skipped'() {
+        given:
+        long replica2Lag = lag
+        def router = new ReplicaRouter(primary, [replica1, replica2])
+                .healthCheck(new ReplicaHealthCheck() {
+                    boolean isHealthy(EntityManagerFactory replica) { replica != replica1 }
+                    long getReplicationLag(EntityManagerFactory replica) { replica == replica2 ? replica2Lag : 0 }
+                })
+                .maxReplicationLag(1000)
+        def executor = new GraphQLExecutor(primary.createEntityManager(), router)
+
+        when:
+        def type = executor.execute('{ Thing { type } }').data['Thing'][0]['type']
+
+        then:
+        type == expected
+
+        where:
+        lag  | expected
+        0    | 'replica2'
+        5000 | 'primary'
+    }
+
+    def 'Flagged operations stick to the primary'() {
+        given:
+        def executor = new GraphQLExecutor(primary.createEntityManager(), new ReplicaRouter(primary, [replica1, replica2]))
+
+        when:
+        def result = executor.executeOnPrimary('{ Thing { type } }', null)
+
+        then:
+        result.data['Thing'][0]['type'] == 'primary'
+    }
+
+    def 'Leaves the transactions of JTA primaries to the container'() {
+        given:
+        def executor = new GraphQLExecutor(primary.createEntityManager(), new ReplicaRouter(jta(primary), [replica1, replica2]))
+
+        when:
+        def result = executor.executeOnPrimary('{ Thing { type } }', null)
+
+        then:
+        result.errors.empty
+        result.data['Thing'][0]['type'] == 'primary'
+    }
+
+    def 'Least in flight selects the idle replica'() {
+        given:
+        def router = new ReplicaRouter(primary, [replica1, replica2]).selectionStrategy(ReplicaSelectionStrategy.LEAST_IN_FLIGHT)
+        def busy = router.acquire(true)
+
+        when:
+        def lease = router.acquire(true)
+
+        then:
+        router.getInFlight(replica1) == 1
+        router.getInFlight(replica2) == 1
+        lease.entityManager.entityManagerFactory != busy.entityManager.entityManagerFactory
+
+        cleanup:
+        lease?.close()
+        busy?.close()
+    }
+
+    /**
+     * @return A factory of managers refusing resource-local transactions, like those of a JTA persistence unit.
+     */
+    private static EntityManagerFactory jta(EntityManagerFactory factory) {
+        return (EntityManagerFactory) Proxy.newProxyInstance(EntityManagerFactory.classLoader, [EntityManagerFactory] as Class[], { proxy, Method method, Object[] args ->
+            def answer = method.invoke(factory, args)
+            if (method.name != 'createEntityManager')
+                return answer
+
+            return Proxy.newProxyInstance(EntityManager.classLoader, [EntityManager] as Class[], { entityManagerProxy, Method entityManagerMethod, Object[] entityManagerArgs ->
+                if (entityManagerMethod.name == 'getTransaction')
+                    throw new IllegalStateException('A JTA EntityManager cannot use getTransaction()')
+
+                return entityManagerMethod.invoke(answer, entityManagerArgs)
+            } as InvocationHandler)
+        } as InvocationHandler)
+    }
+
+    private static EntityManagerFactory createDatabase(String name) {
+        return TestDatabases.create(name, [new Thing(id: UUID.randomUUID(), type: name)])
+    }
+
+}
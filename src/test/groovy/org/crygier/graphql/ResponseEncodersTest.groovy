@@ -0,0 +1,73 @@
+package org.crygier.graphql
+
+import graphql.ExecutionResultImpl
+import spock.lang.Specification
+
+import java.time.Instant
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.ZoneId
+
+class ResponseEncodersTest extends Specification {
+
+    private static final LocalDateTime LOCAL_DATE_TIME = LocalDateTime.ofInstant(Instant.ofEpochSecond(1500000000), TimeZone.default.toZoneId())
+
+    def 'Encodes results'() {
+        expect:
+        encode(new CborResponseEncoder(), data) == cbor
+        encode(new MessagePackResponseEncoder(), data) == messagePack
+
+        where:
+        data                                                         || cbor                                                       | messagePack
+        [a: 1]                                                       || 'a16464617461a1616101'                                     | '81a46461746181a16101'
+        [n: -500, s: 'é', t: true, z: null]                          || 'a16464617461a4616e3901f3617362c3a96174f5617af6'           | '81a46461746184a16ed1fe0ca173a2c3a9a174c3a17ac0'
+        [d: 1.5d, l: [300]]                                          || 'a16464617461a26164fb3ff8000000000000616c8119012c'         | '81a46461746182a164cb3ff8000000000000a16c91cd012c'
+        [u: UUID.fromString('00112233-4455-6677-8899-aabbccddeeff')] || 'a16464617461a16175d8255000112233445566778899aabbccddeeff' | '81a46461746181a175c41000112233445566778899aabbccddeeff'
+        [t: LOCAL_DATE_TIME, d: new Date(1000)]                      || 'a16464617461a261741a59682f0061641903e8'                   | '81a46461746182a174ce59682f00a164cd03e8'
+    }
+
+    def 'Converts local values in the time zone of the scalars'() {
+        given:
+        def zone = ZoneId.of('Asia/Tokyo')
+        def encoders = ResponseEncoders.defaults(new JavaScalars(JavaScalars.TemporalFormat.NATIVE, zone))
+        def data = [t: LocalDateTime.ofInstant(Instant.ofEpochSecond(1500000000), zone), d: LocalDate.of(2017, 7, 14)]
+
+        expect:
+        encode(encoders.negotiate('application/cbor'), data) == 'a16464617461a261741a59682f0061641a59678af0'
+        encode(encoders.negotiate('application/msgpack'), data) == '81a46461746182a174ce59682f00a164ce59678af0'
+    }
+
+    def 'Encodes results as JSON by default'() {
+        given:
+        def out = new ByteArrayOutputStream()
+
+        when:
+        ResponseEncoders.defaults().negotiate(null).encode(new ExecutionResultImpl([name: 'R2-D2', id: UUID.fromString('00112233-4455-6677-8899-aabbccddeeff')], []), out)
+
+        then:
+        out.toString('UTF-8') == '{"data":{"name":"R2-D2","id":"00112233-4455-6677-8899-aabbccddeeff"}}'
+    }
+
+    def 'Chooses the encoder the client prefers'() {
+        expect:
+        ResponseEncoders.defaults().negotiate(accept).contentType == contentType
+
+        where:
+        accept                                                  || contentType
+        null                                                    || 'application/json'
+        '*/*'                                                   || 'application/json'
+        'application/cbor'                                      || 'application/cbor'
+        'application/msgpack, application/json'                 || 'application/msgpack'
+        'application/json;q=0.5, application/cbor'              || 'application/cbor'
+        'application/cbor;q=0, application/*'                   || 'application/json'
+        'text/html, application/msgpack;q=0.1'                  || 'application/msgpack'
+        'text/html'                                             || 'application/json'
+    }
+
+    private static String encode(ResponseEncoder encoder, Map<String, Object> data) {
+        def out = new ByteArrayOutputStream()
+        encoder.encode(new ExecutionResultImpl(data, []), out)
+        return out.toByteArray().encodeHex().toString()
+    }
+
+}
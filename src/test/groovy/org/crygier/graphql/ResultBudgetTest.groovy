@@ -0,0 +1,107 @@
+package org.crygier.graphql
+
+import graphql.ExecutionResult
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class ResultBudgetTest extends Specification {
+
+    @Autowired
+    private EntityManager entityManager
+
+    @Autowired
+    private PlatformTransactionManager transactionManager
+
+    private GraphQLExecutor executor
+
+    void setup() {
+        executor = new GraphQLExecutor(entityManager)
+    }
+
+    def 'Leaves results within the budget untouched'() {
+        given:
+        executor.setResultBudget(new ResultBudget().maxRowsPerField(5).maxObjects(100).maxResponseBytes(10000))
+
+        when:
+        def result = execute('{ Human { name(orderBy: ASC) friends { name } } }')
+
+        then:
+        result.errors.empty
+        result.extensions == null
+        result.data.Human.size() == 5
+    }
+
+    def 'Cuts lists off at the rows per field'() {
+        given:
+        executor.setResultBudget(new ResultBudget().maxRowsPerField(2))
+
+        when:
+        def result = execute('{ Human { name(orderBy: ASC) friends { name } } }')
+
+        then:
+        result.data.Human*.name == ['Darth Vader', 'Han Solo']
+        result.data.Human.every { it.friends.size() <= 2 }
+        result.data.Human[1].friends.size() == 2
+        result.extensions.truncated == true
+        result.errors.size() == 1
+        result.errors[0] instanceof ResultBudgetExceededException
+        result.errors[0].truncations == ['2 rows per field': '/Human']
+    }
+
+    def 'Stops fetching objects once the budget of objects is spent'() {
+        given:
+        executor.setResultBudget(new ResultBudget().maxObjects(3))
+
+        when:
+        def result = execute('{ Human { name(orderBy: ASC) } Droid { name } }')
+
+        then:
+        result.data.Human*.name == ['Darth Vader', 'Han Solo', 'Leia Organa']
+        result.data.Droid == null
+        result.extensions.truncated == true
+        result.errors[0].truncations == ['3 objects': '/Human']
+        result.errors[0].message == 'The result was truncated, it exceeded the budget of 3 objects at /Human'
+    }
+
+    def 'Stops fetching fields once the budget of bytes is spent'() {
+        given:
+        executor.setResultBudget(new ResultBudget().maxResponseBytes(60))
+
+        when:
+        def result = execute('{ Human { name(orderBy: ASC) } }')
+
+        then:
+        result.data.Human.size() == 5
+        result.data.Human[0].name == 'Darth Vader'
+        result.data.Human[4].name == null
+        result.extensions.truncated == true
+        result.errors[0].truncations.keySet() == ['60 bytes'] as Set
+    }
+
+    def 'Limits the content of pages'() {
+        given:
+        executor.setResultBudget(new ResultBudget().maxRowsPerField(1))
+
+        when:
+        def result = execute('{ HumanConnection(paginationRequest: { page: 1, size: 3 }) { totalElements content { name(orderBy: ASC) } } }')
+
+        then:
+        result.data.HumanConnection.totalElements == 5
+        result.data.HumanConnection.content*.name == ['Darth Vader']
+        result.errors[0].truncations == ['1 rows per field': '/HumanConnection/content']
+    }
+
+    private ExecutionResult execute(String query) {
+        return new TransactionTemplate(transactionManager).execute { executor.execute(query) }
+    }
+
+}
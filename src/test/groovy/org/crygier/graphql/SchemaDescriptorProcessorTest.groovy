@@ -0,0 +1,60 @@
+package org.crygier.graphql
+
+import org.crygier.graphql.processor.SchemaDescriptorProcessor
+import spock.lang.Specification
+
+import javax.tools.ToolProvider
+import java.nio.file.Files
+import java.nio.file.Path
+
+class SchemaDescriptorProcessorTest extends Specification {
+
+    def 'Records the schema annotations of entities at build time'() {
+        given:
+        Path sources = Files.createTempDirectory('sources')
+        Path classes = Files.createTempDirectory('classes')
+        Path source = sources.resolve('Planet.java')
+        source.text = '''
+            import javax.persistence.*;
+            import org.crygier.graphql.annotation.*;
+
+            @Entity
+            @SchemaDocumentation("A planet: home to = many")
+            public class Planet {
+                @Id
+                @SchemaDocumentation("Primary Key")
+                String id;
+
+                @GraphQLIgnore
+                String secret;
+
+                String name;
+            }
+        '''
+
+        when:
+        def compiler = ToolProvider.systemJavaCompiler
+        def compiled = compiler.getTask(null, null, null,
+                ['-d', classes.toString(), '-classpath', System.getProperty('java.class.path'), '-processor', SchemaDescriptorProcessor.name],
+                null, compiler.getStandardFileManager(null, null, null).getJavaFileObjects(source.toFile())).call()
+
+        then:
+        compiled
+        Files.exists(classes.resolve(SchemaDescriptorProcessor.DESCRIPTOR_LOCATION))
+
+        when:
+        def classLoader = new URLClassLoader([classes.toUri().toURL()] as URL[], getClass().classLoader)
+        def planet = classLoader.loadClass('Planet')
+        def descriptor = SchemaDescriptor.load(classLoader)
+
+        then:
+        descriptor.covers(planet)
+        !descriptor.covers(String)
+        descriptor.getDocumentation(planet) == 'A planet: home to = many'
+        descriptor.getDocumentation(planet.getDeclaredField('id')) == 'Primary Key'
+        descriptor.isIgnored(planet.getDeclaredField('secret'))
+        !descriptor.isIgnored(planet.getDeclaredField('name'))
+        descriptor.getDocumentation(planet.getDeclaredField('name')) == null
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.crygier.graphql
+
+import org.crygier.graphql.model.uuid.Thing
+import spock.lang.Shared
+import spock.lang.Specification
+
+import javax.persistence.EntityManagerFactory
+import java.text.Collator
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+class ShardedExecutionTest extends Specification {
+
+    @Shared List<EntityManagerFactory> shards
+    @Shared ExecutorService executorService
+    @Shared GraphQLExecutor executor
+
+    def setupSpec() {
+        shards = [
+                // 'e' lives in shard 1, the copy in shard 0 is only found when fanning out
+                TestDatabases.create('shard0', things('a', 'd', 'e', 'g')),
+                TestDatabases.create('shard1', things('b', 'e')),
+                TestDatabases.create('shard2', things('c', 'f'))
+        ]
+        executorService = Executors.newFixedThreadPool(3)
+
+        def router = { entityType, arguments ->
+            arguments.type ? OptionalInt.of(['a', 'b', 'c', 'd', 'e', 'f', 'g'].indexOf(arguments.type) % 3) : OptionalInt.empty()
+        } as ShardRouter
+        executor = new GraphQLExecutor(shards[0].createEntityManager(), new ShardSet(shards, executorService).router(router))
+    }
+
+    def cleanupSpec() {
+        executorService.shutdown()
+        shards*.close()
+    }
+
+    def 'Merges the ordered results of all shards'() {
+        when:
+        def result = executor.execute('{ Thing { type(orderBy: DESC) } }').data
+
+        then:
+        result.Thing*.type == ['g', 'f', 'e', 'e', 'd', 'c', 'b', 'a']
+    }
+
+    def 'Paginates after merging and sums the counts'() {
+        given:
+        def query = '''
+        {
+            ThingConnection(paginationRequest: { page: 2, size: 3 }) {
+                totalPages
+                totalElements
+                content { type(orderBy: ASC) }
+            }
+        }
+        '''
+
+        when:
+        def result = executor.execute(query).data
+
+        then:
+        result.ThingConnection.totalElements == 8
+        result.ThingConnection.totalPages == 3
+        result.ThingConnection.content*.type == ['d', 'e', 'e']
+    }
+
+    def 'Merges in the value order of the databases'() {
+        given:
+        def type = shards[0].metamodel.entity(Thing).getAttribute('type')
+        def comparator = ShardedResults.attributeComparator(type, descending, ShardSet.databaseOrder(Collator.getInstance(Locale.ROOT), false))
+        // Sorted like a case-insensitive collation placing nulls last does
+        def results = [
+                ['a', 'C', null].collect { new Thing(type: it) },
+                ['B', 'd', null].collect { new Thing(type: it) }
+        ]
+
+        expect:
+        ShardedResults.merge(results.collect { descending ? it.reverse() : it }, comparator, 1, 4)*.type == page
+
+        where:
+        descending || page
+        false      || ['B', 'C', 'd', null]
+        true       || [null, 'd', 'C', 'B']
+    }
+
+    def 'Routes queries with a shard key to a single shard'() {
+        when:
+        def result = executor.execute('{ Thing(type: "e") { type } }').data
+
+        then:
+        result.Thing*.type == ['e']
+    }
+
+    private static List<Thing> things(String... types) {
+        return types.collect { new Thing(id: UUID.randomUUID(), type: it) }
+    }
+
+}
@@ -0,0 +1,218 @@
+package org.crygier.graphql
+
+import graphql.ExecutionResult
+import graphql.Scalars
+import graphql.schema.DataFetcher
+import graphql.schema.GraphQLFieldDefinition
+import org.crygier.graphql.model.starwars.Droid
+import org.springframework.aop.support.AopUtils
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class SingleFlightTest extends Specification {
+
+    @Autowired
+    private EntityManager entityManager
+
+    @Autowired
+    private PlatformTransactionManager transactionManager
+
+    // The executor of the application, behind the transactional proxy of Spring
+    @Autowired
+    private GraphQLExecutor graphQLExecutor
+
+    private GraphQLExecutor executor
+    private AtomicInteger fetches = new AtomicInteger()
+    private CountDownLatch fetching = new CountDownLatch(1)
+    private CountDownLatch release = new CountDownLatch(1)
+    private Queue<Long> coalesced = new ConcurrentLinkedQueue<>()
+    private ExecutorMetrics metrics = new ExecutorMetrics() {
+        @Override
+        void operationCoalesced(long waitNanos) {
+            coalesced.add(waitNanos)
+        }
+    }
+
+    void setup() {
+        def slow = GraphQLFieldDefinition.newFieldDefinition().name('slow').type(Scalars.GraphQLString).dataFetcher({
+            fetches.incrementAndGet()
+            fetching.countDown()
+            release.await(10, TimeUnit.SECONDS)
+            return 'done'
+        } as DataFetcher).build()
+
+        executor = new GraphQLExecutor(entityManager)
+                .setSingleFlight(true)
+                .setMetrics(metrics)
+        executor.updateSchema { it.addQueryField(slow) }
+    }
+
+    def 'Coalesces identical queries in flight'() {
+        given:
+        def results = new ConcurrentLinkedQueue<ExecutionResult>()
+
+        when:
+        def leader = Thread.start { results.add(executor.execute('{ slow Droid { name(orderBy: ASC) } }')) }
+        fetching.await(10, TimeUnit.SECONDS)
+        def followers = (1..3).collect { Thread.start { results.add(executor.execute('{slow  Droid {name(orderBy:ASC)}}')) } }
+        waitUntilWaiting(followers)
+        release.countDown()
+        ([leader] + followers)*.join(10000)
+
+        then:
+        fetches.get() == 1
+        coalesced.size() == 3
+        results.size() == 4
+        results.every { it.errors.empty && it.data == [slow: 'done', Droid: [[name: 'C-3PO'], [name: 'R2-D2']]] }
+
+        when:
+        results.peek().data.put('slow', 'changed')
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def 'Executes queries again once the identical query completed'() {
+        given:
+        release.countDown()
+
+        when:
+        def first = executor.execute('{ slow }')
+        def second = executor.execute('{ slow }')
+
+        then:
+        first.data == [slow: 'done']
+        second.data == [slow: 'done']
+        fetches.get() == 2
+        coalesced.empty
+    }
+
+    def 'Executes queries with other variables separately'() {
+        given:
+        def query = 'query Droid($id: String) { slow Droid(id: $id) { name } }'
+        def results = new ConcurrentLinkedQueue<ExecutionResult>()
+
+        when:
+        def first = Thread.start { results.add(executor.execute(query, [id: '2000'])) }
+        fetching.await(10, TimeUnit.SECONDS)
+        def second = Thread.start { results.add(executor.execute(query, [id: '2001'])) }
+        while (fetches.get() < 2)
+            Thread.sleep(10)
+        release.countDown()
+        [first, second]*.join(10000)
+
+        then:
+        fetches.get() == 2
+        coalesced.empty
+        results*.data*.Droid*.name.flatten() as Set == ['C-3PO', 'R2-D2'] as Set
+    }
+
+    def 'Never coalesces reads on the primary, nor queries within a read-write transaction of the caller'() {
+        given:
+        def results = new ConcurrentLinkedQueue<ExecutionResult>()
+        def execute = {
+            if (primary)
+                return executor.executeOnPrimary('{ slow }', null)
+
+            return new TransactionTemplate(transactionManager).execute { executor.execute('{ slow }') }
+        }
+
+        when:
+        def threads = (1..2).collect { Thread.start { results.add(execute()) } }
+        long deadline = System.currentTimeMillis() + 10000
+        while (System.currentTimeMillis() < deadline && fetches.get() < 2)
+            Thread.sleep(10)
+        release.countDown()
+        threads*.join(10000)
+
+        then:
+        fetches.get() == 2
+        coalesced.empty
+        results*.data == [[slow: 'done'], [slow: 'done']]
+
+        where:
+        primary << [true, false]
+    }
+
+    def 'Coalesces queries through the transactional proxy, unless the transaction of the caller may have written'() {
+        given:
+        def query = '{ Droid { name(orderBy: ASC) } }'
+        def executions = new AtomicInteger()
+        def results = new ConcurrentLinkedQueue<ExecutionResult>()
+        def previousMetrics = graphQLExecutor.metrics
+        graphQLExecutor.setSingleFlight(true)
+        graphQLExecutor.setMetrics(metrics)
+
+        def coalesce = { Closure<ExecutionResult> execution ->
+            graphQLExecutor.coalesce(query, null) {
+                executions.incrementAndGet()
+                return execution()
+            }
+        }
+        def follow = {
+            if (transaction == null)
+                return coalesce { graphQLExecutor.execute(query) }
+
+            def transactions = new TransactionTemplate(transactionManager)
+            transactions.readOnly = transaction != 'read-write'
+            return transactions.execute {
+                if (transaction == 'read-only with changes')
+                    entityManager.find(Droid, '2001').name = 'Artoo'
+
+                return coalesce { graphQLExecutor.execute(query) }
+            }
+        }
+
+        when:
+        def leader = Thread.start {
+            results.add(coalesce {
+                fetching.countDown()
+                release.await(10, TimeUnit.SECONDS)
+                return graphQLExecutor.execute(query)
+            })
+        }
+        fetching.await(10, TimeUnit.SECONDS)
+        def followers = (1..2).collect { Thread.start { results.add(follow()) } }
+        waitUntilWaiting(followers)
+        release.countDown()
+        ([leader] + followers)*.join(10000)
+
+        then:
+        AopUtils.isAopProxy(graphQLExecutor)
+        results.size() == 3
+        results.every { it.errors.empty }
+        executions.get() == 3 - coalesced.size()
+        coalesced.size() == (shared ? 2 : 0)
+
+        cleanup:
+        graphQLExecutor.setSingleFlight(false)
+        graphQLExecutor.setMetrics(previousMetrics)
+
+        where:
+        transaction              || shared
+        null                     || true
+        'read-only'              || true
+        'read-write'             || false
+        'read-only with changes' || false
+    }
+
+    private static void waitUntilWaiting(List<Thread> threads) {
+        long deadline = System.currentTimeMillis() + 10000
+        while (System.currentTimeMillis() < deadline && !threads.every { it.state in [Thread.State.WAITING, Thread.State.TERMINATED] })
+            Thread.sleep(10)
+    }
+
+}
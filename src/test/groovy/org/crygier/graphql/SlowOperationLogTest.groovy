@@ -0,0 +1,91 @@
+package org.crygier.graphql
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+import java.nio.file.Files
+import java.time.Duration
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class SlowOperationLogTest extends Specification {
+
+    @Autowired
+    private EntityManager entityManager
+
+    @Autowired
+    private PlatformTransactionManager transactionManager
+
+    def 'Records slow operations without their literals'() {
+        given:
+        def log = new SlowOperationLog(Duration.ZERO, 10)
+        def executor = new GraphQLExecutor(entityManager).setSlowOperationLog(log)
+        def query = '''
+            query humans($id: String) {
+                Human(id: $id, homePlanet: "Tatooine") { name friends { name } }
+            }
+        '''
+
+        when:
+        new TransactionTemplate(transactionManager).execute { executor.execute(query, [id: '1000']) }
+        def record = log.records[0]
+
+        then:
+        log.records.size() == 1
+        !record.operation.contains('Tatooine')
+        record.operation.contains('Human(id: $id, homePlanet: "?")')
+        record.variableShapes == [id: 'String']
+        record.fields*.path as Set == ['/Human', '/Human/name', '/Human/friends', '/Human/friends/name'] as Set
+        record.fields.find { it.path == '/Human' }.rows == 1
+        record.fields.find { it.path == '/Human/friends' }.rows == 4
+        record.fields.find { it.path == '/Human/friends/name' }.invocations == 4
+        record.sql.size() == 1
+        record.sql.keySet()[0].toLowerCase().startsWith('select')
+        record.errorCount == 0
+    }
+
+    def 'Skips operations faster than the threshold'() {
+        given:
+        def log = new SlowOperationLog(Duration.ofMinutes(1), 10)
+        def executor = new GraphQLExecutor(entityManager).setSlowOperationLog(log)
+
+        when:
+        executor.execute('{ Human { name } }')
+
+        then:
+        log.records.empty
+    }
+
+    def 'Keeps the most recent records, and appends them all to the file sink'() {
+        given:
+        def file = Files.createTempFile('slow-operations', '.json')
+        def log = new SlowOperationLog(Duration.ZERO, 2).fileSink(file)
+        def executor = new GraphQLExecutor(entityManager).setSlowOperationLog(log)
+
+        when:
+        ['Human', 'Droid', 'CodeList'].each { executor.execute("{ $it { id } }") }
+
+        then:
+        log.records*.operation.collect { it.replaceAll(/\s+/, ' ').trim() } == ['query { CodeList { id } }', 'query { Droid { id } }']
+        log.getSlowest(1).size() == 1
+        log.getRecords { it.operation.contains('Droid') }.size() == 1
+        Files.readAllLines(file).size() == 3
+        Files.readAllLines(file)[0].startsWith('{"timestamp":')
+
+        cleanup:
+        Files.deleteIfExists(file)
+    }
+
+    def 'Records the shape of the variables'() {
+        expect:
+        SlowOperationLog.getShape([id: 'x', page: [page: 1, size: 2], ids: ['a', 'b'], none: null, empty: []]) ==
+                [id: 'String', page: [page: 'Integer', size: 'Integer'], ids: ['String'], none: null, empty: []]
+    }
+
+}
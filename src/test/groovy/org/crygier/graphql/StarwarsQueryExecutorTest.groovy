@@ -9,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional
 import spock.lang.Specification
 
 import javax.persistence.EntityManager
+import java.time.Duration
 
 @Configuration
 @ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
@@ -451,6 +452,39 @@ class StarwarsQueryExecutorTest extends Specification {
         result == expected;
     }
 
+    def 'Fetches all fields within the deadline'() {
+        when:
+        def result = executor.execute('{ Droid { name(orderBy: ASC) } }', null, Duration.ofSeconds(30))
+
+        then:
+        result.errors.isEmpty()
+        result.data == [ Droid: [ [ name: 'C-3PO' ], [ name: 'R2-D2' ] ] ]
+    }
+
+    def 'Stops fetching once the deadline has passed'() {
+        when:
+        def result = executor.execute('{ Droid { name } Human { name } }', null, Duration.ZERO)
+
+        then:
+        result.errors.size() == 1
+        result.data == [ Droid: null, Human: null ]
+    }
+
+    def 'Parses every operation once, and reuses its document'() {
+        given:
+        def query = '{ HumanConnection(paginationRequest: { page: 2, size: 2 }) { totalPages content { name(orderBy: ASC) } } }'
+
+        when:
+        def first = executor.execute(query)
+        def second = executor.execute(query)
+
+        then:
+        executor.parse(query).is(executor.parse(query))
+        first.errors.empty
+        second.data == first.data
+        second.data.HumanConnection.content*.name == ['Leia Organa', 'Luke Skywalker']
+    }
+
     @Autowired
     private EntityManager em;
 
@@ -0,0 +1,38 @@
+package org.crygier.graphql
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter
+
+import javax.persistence.EntityManagerFactory
+import javax.sql.DataSource
+
+/**
+ * Creates additional in-memory H2 databases holding the test model, outside of the Spring context.
+ */
+class TestDatabases {
+
+    static EntityManagerFactory create(String name, List<Object> entities, Map<String, Object> properties = [:], DataSource dataSource = null) {
+        def factoryBean = new LocalContainerEntityManagerFactoryBean()
+        factoryBean.dataSource = dataSource ?: createDataSource(name)
+        factoryBean.jpaVendorAdapter = new HibernateJpaVendorAdapter()
+        factoryBean.setPackagesToScan('org.crygier.graphql.model')
+        factoryBean.jpaPropertyMap = ['hibernate.hbm2ddl.auto': 'create-drop'] + properties
+        factoryBean.persistenceUnitName = name
+        factoryBean.afterPropertiesSet()
+
+        EntityManagerFactory factory = factoryBean.object
+        def entityManager = factory.createEntityManager()
+        entityManager.transaction.begin()
+        entities.each { entityManager.persist(it) }
+        entityManager.transaction.commit()
+        entityManager.close()
+
+        return factory
+    }
+
+    static DataSource createDataSource(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:${name};DB_CLOSE_DELAY=-1", 'sa', '')
+    }
+
+}
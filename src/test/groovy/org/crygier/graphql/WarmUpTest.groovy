@@ -0,0 +1,109 @@
+package org.crygier.graphql
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootContextLoader
+import org.springframework.context.annotation.Configuration
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+@Configuration
+@ContextConfiguration(loader = SpringBootContextLoader, classes = TestApplication)
+class WarmUpTest extends Specification {
+
+    @Autowired
+    private EntityManager entityManager
+
+    @Autowired
+    private PlatformTransactionManager transactionManager
+
+    private GraphQLExecutor executor
+
+    void setup() {
+        executor = new GraphQLExecutor(entityManager).setStatisticsProvider(new HibernateStatisticsProvider()).setStatisticsInExtensions(true)
+    }
+
+    def 'Synthesizes an operation per root field without required arguments'() {
+        when:
+        def operations = WarmUp.synthesize(executor.graphQLSchema)
+
+        then:
+        operations.find { it.startsWith('{ Human {') }.contains('friends { ')
+        operations.find { it.startsWith('{ HumanConnection {') }.contains('content { ')
+        operations.every { !it.contains('ById') }
+
+        when:
+        def results = operations.collect { query -> inTransaction { executor.execute(query) } }
+
+        then:
+        results.every { it.errors.empty }
+    }
+
+    def 'Warms up the synthesized operations with a row per field'() {
+        when:
+        def result = inTransaction { executor.warmUp(new WarmUp().iterations(2)).get() }
+
+        then:
+        result.operations == WarmUp.synthesize(executor.graphQLSchema).size()
+        result.executions == 2 * result.operations
+        result.failures.isEmpty()
+        executor.warmedUp
+    }
+
+    def 'Warms up registered operations, reporting the failing ones'() {
+        given:
+        def warmUp = new WarmUp()
+                .operation('query Luke($id: String) { Human(id: $id) { name friends { name } } }', [id: '1000'])
+                .operation('{ Human { unknown } }')
+                .iterations(3)
+
+        when:
+        def result = inTransaction { executor.warmUp(warmUp).get() }
+
+        then:
+        result.operations == 2
+        result.executions == 6
+        result.failures.keySet() == ['{ Human { unknown } }'] as Set
+    }
+
+    def 'Reports when a background warm-up finishes'() {
+        given:
+        def started = new CountDownLatch(1)
+        def proceed = new CountDownLatch(1)
+        Executor background = { Runnable task ->
+            Thread.start {
+                started.countDown()
+                proceed.await(10, TimeUnit.SECONDS)
+                inTransaction { task.run() }
+            }
+        }
+
+        when:
+        def future = executor.warmUp(new WarmUp().operation('{ Droid { name } }').executor(background))
+        started.await(10, TimeUnit.SECONDS)
+
+        then:
+        !executor.warmedUp
+        !future.done
+
+        when:
+        proceed.countDown()
+        def result = future.get(10, TimeUnit.SECONDS)
+
+        then:
+        result.failures.isEmpty()
+        result.executions == 10
+        executor.warmedUp
+    }
+
+    private <T> T inTransaction(Closure<T> closure) {
+        return new TransactionTemplate(transactionManager).execute { closure() }
+    }
+
+}
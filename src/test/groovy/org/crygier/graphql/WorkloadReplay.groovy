@@ -0,0 +1,198 @@
+package org.crygier.graphql
+
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+import org.springframework.orm.jpa.JpaTransactionManager
+import org.springframework.orm.jpa.SharedEntityManagerCreator
+import org.springframework.transaction.support.TransactionTemplate
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Replays a recorded mix of operations against a {@link DatasetGenerator.Dataset} at a fixed concurrency, through a
+ * single {@link GraphQLExecutor}, every operation in a read-only transaction of its own. The mix is a JSON array of
+ * operations with a name, a query, its variables and a weight; placeholders like {@code $human} in the variables are
+ * replaced by the identifiers of random entities.
+ * <p>
+ * The sequence of operations and their variables only depends on the seed, so the SQL statements per operation are
+ * comparable between runs of the same dataset, while the latencies depend on the machine.
+ */
+class WorkloadReplay {
+
+    private final DatasetGenerator.Dataset dataset
+    private final GraphQLExecutor executor
+    private final TransactionTemplate transactionTemplate
+    private final ThreadLocal<OperationStatistics> statistics = new ThreadLocal<>()
+
+    int concurrency = 4
+    int operations = 1000
+    int warmUpOperations = 100
+    long seed = 42
+
+    WorkloadReplay(DatasetGenerator.Dataset dataset) {
+        this.dataset = dataset
+        this.executor = new GraphQLExecutor(SharedEntityManagerCreator.createSharedEntityManager(dataset.factory))
+                .setStatisticsProvider(new HibernateStatisticsProvider())
+                .setMetrics(new ExecutorMetrics() {
+                    void operationCompleted(OperationStatistics completed) { statistics.set(completed) }
+                })
+        this.transactionTemplate = new TransactionTemplate(new JpaTransactionManager(dataset.factory))
+        this.transactionTemplate.readOnly = true
+    }
+
+    /**
+     * Creates a replay sized by the {@code workload.concurrency}, {@code workload.operations} and {@code workload.seed}
+     * system properties.
+     */
+    static WorkloadReplay fromSystemProperties(DatasetGenerator.Dataset dataset) {
+        WorkloadReplay answer = new WorkloadReplay(dataset)
+        answer.concurrency = Integer.getInteger('workload.concurrency', 4)
+        answer.operations = Integer.getInteger('workload.operations', 1000)
+        answer.seed = Long.getLong('workload.seed', 42)
+        return answer
+    }
+
+    static List<Map> readMix(InputStream input) {
+        return (List<Map>) new JsonSlurper().parse(input, 'UTF-8')
+    }
+
+    Report run(List<Map> mix) {
+        List<Map> sequence = draw(mix)
+        sequence.take(warmUpOperations).each { execute(it) }
+
+        List<Sample> samples = Collections.synchronizedList(new ArrayList<Sample>())
+        AtomicInteger next = new AtomicInteger(warmUpOperations)
+        ExecutorService threads = Executors.newFixedThreadPool(concurrency)
+        long start = System.nanoTime()
+        try {
+            List<Callable<Object>> workers = (1..concurrency).collect {
+                return {
+                    for (int i = next.getAndIncrement(); i < sequence.size(); i = next.getAndIncrement())
+                        samples << execute(sequence[i])
+                } as Callable<Object>
+            }
+            threads.invokeAll(workers)*.get()
+        } finally {
+            threads.shutdown()
+        }
+
+        return new Report(dataset, seed, samples, System.nanoTime() - start)
+    }
+
+    private List<Map> draw(List<Map> mix) {
+        Random random = new Random(seed)
+        int totalWeight = mix.sum { it.weight as int } as int
+        return (1..(warmUpOperations + operations)).collect {
+            int pick = random.nextInt(totalWeight)
+            Map operation = mix.find { (pick -= it.weight as int) < 0 }
+            return [name: operation.name, query: operation.query,
+                    variables: (operation.variables ?: [:]).collectEntries { [it.key, dataset.resolve(it.value, random)] }]
+        }
+    }
+
+    private Sample execute(Map operation) {
+        statistics.remove()
+        long start = System.nanoTime()
+        def result = transactionTemplate.execute { executor.execute((String) operation.query, (Map) operation.variables) }
+        long nanos = System.nanoTime() - start
+
+        if (!result.errors.empty)
+            throw new IllegalStateException("${operation.name} failed: ${result.errors}")
+
+        return new Sample((String) operation.name, nanos, statistics.get()?.statements ?: 0)
+    }
+
+    private static class Sample {
+
+        final String operation
+        final long nanos
+        final long statements
+
+        Sample(String operation, long nanos, long statements) {
+            this.operation = operation
+            this.nanos = nanos
+            this.statements = statements
+        }
+
+    }
+
+    /**
+     * The latencies, throughput and SQL statements of a replay, in total and per operation.
+     */
+    static class Report {
+
+        final int characters
+        final int things
+        final long seed
+        final double throughput
+        final Map<String, Map<String, Number>> operations
+
+        private Report(DatasetGenerator.Dataset dataset, long seed, List<Sample> samples, long nanos) {
+            this.characters = dataset.characters
+            this.things = dataset.things
+            this.seed = seed
+            this.throughput = samples.size() * 1e9d / nanos
+            this.operations = new TreeMap<>(samples.groupBy { it.operation }.collectEntries { name, List<Sample> all ->
+                List<Long> latencies = all*.nanos.sort()
+                return [name, [
+                        count: all.size(),
+                        p50Millis: percentile(latencies, 0.5) / 1e6d,
+                        p99Millis: percentile(latencies, 0.99) / 1e6d,
+                        statements: (all.sum { it.statements } as long) / (double) all.size()]]
+            })
+            this.operations.put('all', [
+                    count: samples.size(),
+                    p50Millis: percentile(samples*.nanos.sort(), 0.5) / 1e6d,
+                    p99Millis: percentile(samples*.nanos.sort(), 0.99) / 1e6d,
+                    statements: (samples.sum { it.statements } as long) / (double) samples.size()])
+        }
+
+        private static long percentile(List<Long> sorted, double percentile) {
+            // Nearest rank
+            return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.size()) - 1)]
+        }
+
+        /**
+         * Compares this report to a baseline written by {@link #toJson()}. The SQL statements per operation may not
+         * grow, unless the dataset or the sequence of operations differ; the latencies are only compared if a tolerance
+         * is given, as they depend on the machine.
+         *
+         * @param latencyTolerance The factor by which the p99 latency of an operation may exceed the baseline, or null.
+         * @return A description of every regression, empty if there is none.
+         */
+        List<String> regressions(Map baseline, Double latencyTolerance) {
+            List<String> answer = []
+            boolean sameWorkload = baseline.characters == characters && baseline.things == things && baseline.seed == seed &&
+                    baseline.operations.all?.count == operations.all.count
+            baseline.operations.each { String name, Map expected ->
+                Map<String, Number> actual = operations[name]
+                if (actual == null) {
+                    answer << "${name} was not executed"
+                    return
+                }
+
+                if (sameWorkload && actual.statements > (expected.statements as double) + 0.005)
+                    answer << "${name} executed ${actual.statements} statements, baseline ${expected.statements}".toString()
+                if (latencyTolerance != null && actual.p99Millis > (expected.p99Millis as double) * latencyTolerance)
+                    answer << "${name} took ${actual.p99Millis} ms at p99, baseline ${expected.p99Millis}".toString()
+            }
+
+            return answer
+        }
+
+        String toJson() {
+            return JsonOutput.prettyPrint(JsonOutput.toJson([characters: characters, things: things, seed: seed, throughput: throughput, operations: operations]))
+        }
+
+        @Override
+        String toString() {
+            return String.format('%,d characters, %,d things, %.0f operations/s%n', characters, things, throughput) +
+                    operations.collect { name, it -> String.format('%-16s %6d x  p50 %8.2f ms  p99 %8.2f ms  %6.2f statements', name, it.count, it.p50Millis, it.p99Millis, it.statements) }.join('\n')
+        }
+
+    }
+
+}
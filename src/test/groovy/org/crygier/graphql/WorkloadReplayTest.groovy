@@ -0,0 +1,63 @@
+package org.crygier.graphql
+
+import groovy.json.JsonSlurper
+import spock.lang.Shared
+import spock.lang.Specification
+
+/**
+ * Replays the recorded Star Wars mix against a generated dataset, small by default. Scale it up with the
+ * {@code workload.*} system properties, e.g. {@code gradle test --tests '*WorkloadReplayTest' -Dworkload.characters=10000000};
+ * pass {@code -Dworkload.latencyTolerance=1.5} to fail on slower p99 latencies too, and
+ * {@code -Dworkload.updateBaseline=true} to record a new baseline.
+ */
+class WorkloadReplayTest extends Specification {
+
+    private static final String BASELINE = 'src/test/resources/workload/baseline.json'
+
+    @Shared
+    private DatasetGenerator.Dataset dataset
+
+    void setupSpec() {
+        dataset = DatasetGenerator.fromSystemProperties().generate('workload')
+    }
+
+    void cleanupSpec() {
+        dataset.close()
+    }
+
+    def 'Generates a skewed friend graph'() {
+        given:
+        def entityManager = dataset.factory.createEntityManager()
+
+        when:
+        long characters = entityManager.createQuery('select count(c) from Character c').singleResult
+        long things = entityManager.createQuery('select count(t) from Thing t').singleResult
+        List<Number> friends = entityManager.createNativeQuery('select count(*) from character_friends group by source_id order by 1 desc').resultList
+        Number popular = entityManager.createNativeQuery("select count(*) from character_friends where friend_id < '${DatasetGenerator.Dataset.FIRST_ID + dataset.characters.intdiv(10)}'").singleResult
+        entityManager.close()
+
+        then:
+        characters == dataset.characters
+        things == dataset.things
+        friends.first() > 4 * friends[friends.size().intdiv(2)]
+        popular > friends.sum() / 4
+    }
+
+    def 'Replays the recorded mix without regressions'() {
+        given:
+        def replay = WorkloadReplay.fromSystemProperties(dataset)
+        def mix = WorkloadReplay.readMix(getClass().getResourceAsStream('/workload/starwars.json'))
+        def baseline = new JsonSlurper().parse(getClass().getResource('/workload/baseline.json'))
+        String latencyTolerance = System.getProperty('workload.latencyTolerance')
+
+        when:
+        def report = replay.run(mix)
+        if (Boolean.getBoolean('workload.updateBaseline'))
+            new File(BASELINE).text = report.toJson() + '\n'
+
+        then:
+        report.operations.keySet() == (mix*.name + 'all') as Set
+        report.regressions(baseline, latencyTolerance ? latencyTolerance as double : null) == []
+    }
+
+}
@@ -1,11 +1,13 @@
 package org.crygier.graphql.model.starwars
 
 import groovy.transform.CompileStatic
+import org.crygier.graphql.LiveQueryListener
 import org.crygier.graphql.annotation.SchemaDocumentation
 
 import javax.persistence.*
 
 @Entity
+@EntityListeners(LiveQueryListener)
 @SchemaDocumentation("Abstract representation of an entity in the Star Wars Universe")
 @CompileStatic
 abstract class Character {
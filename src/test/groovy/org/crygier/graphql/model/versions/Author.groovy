@@ -0,0 +1,23 @@
+package org.crygier.graphql.model.versions
+
+import groovy.transform.CompileStatic
+import org.crygier.graphql.annotation.SchemaDocumentation
+
+import javax.persistence.Entity
+import javax.persistence.Id
+import javax.persistence.Version
+
+@Entity
+@SchemaDocumentation("Author of books, versioned for optimistic locking")
+@CompileStatic
+class Author {
+
+    @Id
+    Long id
+
+    String name
+
+    @Version
+    Long version
+
+}
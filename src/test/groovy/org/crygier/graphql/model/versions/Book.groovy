@@ -0,0 +1,29 @@
+package org.crygier.graphql.model.versions
+
+import groovy.transform.CompileStatic
+import org.crygier.graphql.annotation.SchemaDocumentation
+
+import javax.persistence.Entity
+import javax.persistence.Id
+import javax.persistence.ManyToOne
+import javax.persistence.Version
+
+@Entity
+@SchemaDocumentation("Book written by an author, versioned for optimistic locking")
+@CompileStatic
+class Book {
+
+    @Id
+    Long id
+
+    String title
+
+    String genre
+
+    @ManyToOne
+    Author author
+
+    @Version
+    Long version
+
+}